@@ -0,0 +1,154 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.benchmark;
+
+import be.yildizgames.common.gameobject.Movable;
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.ActionId;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.Action;
+import be.yildizgames.engine.feature.entity.BaseAction;
+import be.yildizgames.engine.feature.entity.BaseEntity;
+import be.yildizgames.engine.feature.entity.action.AbstractAttack;
+import be.yildizgames.engine.feature.entity.data.EntityType;
+import be.yildizgames.engine.feature.entity.data.ViewDistance;
+import be.yildizgames.engine.feature.entity.fields.AttackHitResult;
+import be.yildizgames.engine.feature.entity.fields.Target;
+import be.yildizgames.engine.feature.entity.module.EntityModule;
+
+import java.util.List;
+
+/**
+ * Entity without any behavior, used to measure the managers cost only.
+ *
+ * @author Grégory Van den Borre
+ */
+public class BenchmarkEntity extends BaseEntity {
+
+    public static final EntityType TYPE = new EntityType(1, "benchmark");
+
+    public static final BenchmarkEntity WORLD = new BenchmarkEntity(EntityId.WORLD, EntityType.WORLD, PlayerId.WORLD);
+
+    public BenchmarkEntity(EntityId id, EntityType type, PlayerId owner) {
+        super(id, type, 100, 100);
+        this.hp.setValueAndMax(100);
+        this.energy.setValueAndMax(100);
+        this.setOwner(owner);
+    }
+
+    @Override
+    public void delete() {
+        //Nothing to delete.
+    }
+
+    @Override
+    public Action getAction(ActionId actionId) {
+        throw new IllegalArgumentException("No action " + actionId);
+    }
+
+    @Override
+    public void startAction(ActionId action) {
+        this.startAction(this.getAction(action));
+    }
+
+    @Override
+    public Action move(Point3D destination) {
+        return null;
+    }
+
+    @Override
+    public Action attack(Target target) {
+        return null;
+    }
+
+    @Override
+    public void startAction(Action a) {
+        BaseAction action = (BaseAction) a;
+        action.init(this);
+        this.actionRunning.add(action);
+        this.wakeUp();
+    }
+
+    @Override
+    public void stopAttack() {
+        //Unused.
+    }
+
+    @Override
+    public ViewDistance getLineOfSight() {
+        return ViewDistance.ZERO;
+    }
+
+    @Override
+    public boolean isAttacking() {
+        return false;
+    }
+
+    @Override
+    public AbstractAttack getAttackAction() {
+        return null;
+    }
+
+    @Override
+    public BaseAction getProtectAction() {
+        return null;
+    }
+
+    @Override
+    public BaseAction getGenerateEnergyAction() {
+        return null;
+    }
+
+    @Override
+    public void setTarget(Target t) {
+        this.changeTarget(t);
+    }
+
+    @Override
+    public Movable getMaterialization() {
+        return null;
+    }
+
+    @Override
+    public BaseAction getPreparedAction() {
+        return null;
+    }
+
+    @Override
+    public EntityModule getModule(ActionId id) {
+        return null;
+    }
+
+    @Override
+    public List<EntityModule> getModules() {
+        return List.of();
+    }
+
+    @Override
+    public void hit(AttackHitResult hit) {
+        //Unused.
+    }
+}
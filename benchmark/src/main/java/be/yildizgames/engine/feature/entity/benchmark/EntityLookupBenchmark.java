@@ -0,0 +1,135 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.benchmark;
+
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the entity lookup by id, through the EntityManager primitive index, and through a HashMap as it was done before.
+ * Ids are looked up in a random order, to measure the cache misses as well.
+ *
+ * @author Grégory Van den Borre
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EntityLookupBenchmark {
+
+    /**
+     * Number of ids in the lookup sequence, must be a power of 2.
+     */
+    private static final int LOOKUPS = 1 << 16;
+
+    /**
+     * Number of ids retrieved by a bulk call.
+     */
+    private static final int BULK = 256;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int entities;
+
+    private EntityManager<BenchmarkEntity> manager;
+
+    private final Map<EntityId, BenchmarkEntity> map = new HashMap<>();
+
+    private final EntityId[] ids = new EntityId[LOOKUPS];
+
+    private final long[] idValues = new long[LOOKUPS];
+
+    private final BenchmarkEntity[] result = new BenchmarkEntity[BULK];
+
+    private List<EntityId> bulkIds;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        this.manager = new EntityManager<>(BenchmarkEntity.WORLD);
+        PlayerId player = PlayerId.valueOf(1);
+        for (int i = 1; i <= this.entities; i++) {
+            BenchmarkEntity e = new BenchmarkEntity(EntityId.valueOf(i), BenchmarkEntity.TYPE, player);
+            this.manager.addEntity(e);
+            this.map.put(e.getId(), e);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            this.ids[i] = EntityId.valueOf(1 + random.nextInt(this.entities));
+            this.idValues[i] = this.ids[i].value;
+        }
+        this.bulkIds = List.of(this.ids).subList(0, BULK);
+    }
+
+    private EntityId nextId() {
+        this.next = (this.next + 1) & (LOOKUPS - 1);
+        return this.ids[this.next];
+    }
+
+    @Benchmark
+    public BenchmarkEntity findByIdIndex() {
+        return this.manager.findById(this.nextId());
+    }
+
+    @Benchmark
+    public BenchmarkEntity findByIdHashMap() {
+        return this.map.getOrDefault(this.nextId(), BenchmarkEntity.WORLD);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK)
+    public BenchmarkEntity[] getByIdBulkList() {
+        this.manager.getById(this.bulkIds, this.result);
+        return this.result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK)
+    public BenchmarkEntity[] getByIdBulkPrimitive() {
+        this.manager.getById(this.idValues, BULK, this.result);
+        return this.result;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.benchmark;
+
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the entity manager operations used every frame: retrieving the entities, counting them, and adding and removing entities.
+ * The entities are owned by 4 players, the churn adds and removes entities not in the manager, so the number of entities stays constant.
+ *
+ * @author Grégory Van den Borre
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class EntityManagerBenchmark {
+
+    private static final int PLAYERS = 4;
+
+    /**
+     * Number of entities used for the churn, must be a power of 2.
+     */
+    private static final int CHURN = 1 << 12;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int entities;
+
+    private EntityManager<BenchmarkEntity> manager;
+
+    private final PlayerId player = PlayerId.valueOf(1);
+
+    private final BenchmarkEntity[] churn = new BenchmarkEntity[CHURN];
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        this.manager = new EntityManager<>(BenchmarkEntity.WORLD);
+        for (int i = 1; i <= this.entities; i++) {
+            this.manager.addEntity(new BenchmarkEntity(EntityId.valueOf(i), BenchmarkEntity.TYPE, PlayerId.valueOf(1 + i % PLAYERS)));
+        }
+        for (int i = 0; i < CHURN; i++) {
+            this.churn[i] = new BenchmarkEntity(EntityId.valueOf(this.entities + 1L + i), BenchmarkEntity.TYPE, this.player);
+        }
+    }
+
+    @Benchmark
+    public int getEntitiesOfPlayer() {
+        return this.manager.getEntities(this.player).size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<BenchmarkEntity> getEntities() {
+        return this.manager.getEntities();
+    }
+
+    @Benchmark
+    public int getNumberOfEntities() {
+        return this.manager.getNumberOfEntities(this.player, BenchmarkEntity.TYPE);
+    }
+
+    @Benchmark
+    public BenchmarkEntity addRemoveChurn() {
+        BenchmarkEntity e = this.churn[this.next];
+        this.next = (this.next + 1) & (CHURN - 1);
+        this.manager.addEntity(e);
+        this.manager.removeEntity(e);
+        return e;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.benchmark;
+
+import be.yildizgames.common.model.ActionId;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.ActionManager;
+import be.yildizgames.engine.feature.entity.BaseAction;
+import be.yildizgames.engine.feature.entity.Entity;
+import be.yildizgames.engine.feature.entity.EntityManager;
+import be.yildizgames.engine.feature.entity.action.NoAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure a full frame of the action manager: running the actions, notifying an action listener and applying the structural changes.
+ * One entity out of 4 runs an action, the others are idle, as in a typical game where most units wait for orders.
+ *
+ * @author Grégory Van den Borre
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FrameBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int entities;
+
+    /**
+     * <code>true</code> to let the idle entities sleep.
+     */
+    @Param({"false", "true"})
+    public boolean sleeping;
+
+    private ActionManager<BenchmarkEntity> manager;
+
+    private long notifications;
+
+    private long time;
+
+    @Setup
+    public void setup() {
+        EntityManager<BenchmarkEntity> em = new EntityManager<>(BenchmarkEntity.WORLD);
+        PlayerId player = PlayerId.valueOf(1);
+        for (int i = 1; i <= this.entities; i++) {
+            BenchmarkEntity e = new BenchmarkEntity(EntityId.valueOf(i), BenchmarkEntity.TYPE, player);
+            em.addEntity(e);
+            e.startAction((i & 3) == 0 ? new CountAction() : new NoAction(ActionId.valueOf(2)));
+        }
+        this.manager = new ActionManager<>(em);
+        this.manager.addListener((id, owner, a) -> this.notifications++);
+        if (this.sleeping) {
+            this.manager.enableSleeping();
+        }
+    }
+
+    @Benchmark
+    public boolean frame() {
+        return this.manager.frameEnded(this.time++);
+    }
+
+    /**
+     * Action only incrementing a counter.
+     */
+    private static final class CountAction extends BaseAction {
+
+        private long count;
+
+        private CountAction() {
+            super(ActionId.valueOf(1), false);
+        }
+
+        @Override
+        public boolean checkPrerequisite(final Entity e) {
+            return true;
+        }
+
+        @Override
+        protected void runImpl(final long time, final Entity e) {
+            this.count += time;
+        }
+
+        @Override
+        protected void initImpl(final Entity e) {
+            //Nothing to init.
+        }
+
+        @Override
+        protected void stopImpl(final Entity e) {
+            //Nothing to stop.
+        }
+
+        @Override
+        public void delete() {
+            //Nothing to delete.
+        }
+    }
+}
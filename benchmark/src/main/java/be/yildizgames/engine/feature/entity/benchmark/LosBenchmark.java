@@ -0,0 +1,124 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.benchmark;
+
+import be.yildizgames.common.gameobject.CollisionResult;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.EntityManager;
+import be.yildizgames.engine.feature.entity.LosListener;
+import be.yildizgames.engine.feature.entity.LosManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the line of sight manager during a collision storm: a burst of collisions reported at once, as when 2 armies meet.
+ * Every entity of player 1 collides with a random entity of player 2, each collision is found then lost.
+ * A lost collision clears the visibility, so every operation measures a full see and no longer see cycle:
+ * the lookups, the visible set insertion and removal, and the listener dispatch.
+ *
+ * @author Grégory Van den Borre
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LosBenchmark {
+
+    /**
+     * Number of collisions in a storm.
+     */
+    private static final int STORM = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int entities;
+
+    private LosManager<BenchmarkEntity> los;
+
+    private CollisionResult[] collisions;
+
+    private int next;
+
+    private long notifications;
+
+    @Setup
+    public void setup() {
+        EntityManager<BenchmarkEntity> em = new EntityManager<>(BenchmarkEntity.WORLD);
+        for (int i = 1; i <= this.entities; i++) {
+            em.addEntity(new BenchmarkEntity(EntityId.valueOf(i), BenchmarkEntity.TYPE, PlayerId.valueOf(1 + (i & 1))));
+        }
+        this.los = new LosManager<>(em);
+        this.los.willNotify(new LosListener<>() {
+
+            @Override
+            public void see(final BenchmarkEntity viewer, final BenchmarkEntity viewed) {
+                LosBenchmark.this.notifications++;
+            }
+
+            @Override
+            public void noLongerSee(final BenchmarkEntity viewer, final BenchmarkEntity viewed) {
+                LosBenchmark.this.notifications--;
+            }
+        });
+        Random random = new Random(42);
+        int half = this.entities / 2;
+        this.collisions = new CollisionResult[half];
+        for (int i = 0; i < half; i++) {
+            long viewer = 2L * (i + 1);
+            long seen = 2L * random.nextInt(half) + 1;
+            this.collisions[i] = new CollisionResult(EntityId.valueOf(viewer), EntityId.valueOf(seen));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STORM)
+    public long collisionStorm() {
+        int start = this.next;
+        for (int i = 0; i < STORM; i++) {
+            this.los.newCollision(this.collisions[(start + i) % this.collisions.length]);
+        }
+        for (int i = 0; i < STORM; i++) {
+            this.los.lostCollision(this.collisions[(start + i) % this.collisions.length]);
+        }
+        this.los.frameEnded(0);
+        this.next = (start + STORM) % this.collisions.length;
+        return this.notifications;
+    }
+}
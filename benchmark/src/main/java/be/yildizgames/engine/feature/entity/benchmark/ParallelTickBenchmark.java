@@ -0,0 +1,174 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.benchmark;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.ActionId;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.ActionManager;
+import be.yildizgames.engine.feature.entity.BaseAction;
+import be.yildizgames.engine.feature.entity.EffectBuffer;
+import be.yildizgames.engine.feature.entity.Entity;
+import be.yildizgames.engine.feature.entity.EntityManager;
+import be.yildizgames.engine.feature.entity.fields.AttackHitResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure a frame of the action manager, sequential and in parallel with 1, 4, 8 and 16 threads.
+ * Every entity runs an action doing some computation and hitting another entity.
+ *
+ * @author Grégory Van den Borre
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParallelTickBenchmark {
+
+    @Param({"10000", "100000"})
+    public int entities;
+
+    @Param({"1", "4", "8", "16"})
+    public int threads;
+
+    /**
+     * Number of iterations of the action computation.
+     */
+    @Param({"50"})
+    public int work;
+
+    private ForkJoinPool pool;
+
+    private ActionManager<BenchmarkEntity> sequential;
+
+    private ActionManager<BenchmarkEntity> parallel;
+
+    private long time;
+
+    @Setup
+    public void setup() {
+        EntityManager<BenchmarkEntity> manager = EntityManager.threadSafe(BenchmarkEntity.WORLD);
+        PlayerId player = PlayerId.valueOf(1);
+        List<BenchmarkEntity> all = new ArrayList<>(this.entities);
+        for (int i = 1; i <= this.entities; i++) {
+            BenchmarkEntity e = new BenchmarkEntity(EntityId.valueOf(i), BenchmarkEntity.TYPE, player);
+            e.setPosition(Point3D.valueOf(i % 1000, 0, i / 1000));
+            all.add(e);
+        }
+        manager.addEntities(all);
+        for (int i = 0; i < this.entities; i++) {
+            all.get(i).startAction(new WorkAction(all.get((i * 31) % this.entities), this.work));
+        }
+        this.pool = new ForkJoinPool(this.threads);
+        this.sequential = new ActionManager<>(manager);
+        this.parallel = new ActionManager<>(manager, this.pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    @Benchmark
+    public boolean frameSequential() {
+        return this.sequential.frameEnded(this.time++);
+    }
+
+    @Benchmark
+    public boolean frameParallel() {
+        return this.parallel.frameEnded(this.time++);
+    }
+
+    /**
+     * Action doing some computation on the entity and its target, then hitting the target.
+     */
+    private static final class WorkAction extends BaseAction {
+
+        private static final AttackHitResult HIT = new AttackHitResult(0, 0);
+
+        private final BenchmarkEntity target;
+
+        private final int work;
+
+        private float result;
+
+        private WorkAction(final BenchmarkEntity target, final int work) {
+            super(ActionId.valueOf(1), false);
+            this.target = target;
+            this.work = work;
+        }
+
+        @Override
+        public boolean checkPrerequisite(final Entity e) {
+            return true;
+        }
+
+        @Override
+        protected void runImpl(final long time, final Entity e) {
+            Point3D p = e.getPosition();
+            Point3D t = this.target.getPosition();
+            float r = 0;
+            for (int i = 0; i < this.work; i++) {
+                r += (float) Math.sqrt((p.x - t.x) * (p.x - t.x) + (p.z - t.z) * (p.z - t.z) + i);
+            }
+            this.result = r;
+            EffectBuffer.hit(this.target, HIT);
+        }
+
+        @Override
+        protected void initImpl(final Entity e) {
+            //Nothing to init.
+        }
+
+        @Override
+        protected void stopImpl(final Entity e) {
+            //Nothing to stop.
+        }
+
+        @Override
+        public void delete() {
+            //Nothing to delete.
+        }
+    }
+}
@@ -25,24 +25,80 @@
 package be.yildizgames.engine.feature.entity;
 
 import be.yildizgames.common.frame.EndFrameListener;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.entity.action.ActionListener;
+import be.yildizgames.engine.feature.entity.action.Move;
+import be.yildizgames.engine.feature.entity.fields.Target;
+import be.yildizgames.engine.feature.entity.metrics.ActionRecorder;
+import be.yildizgames.engine.feature.entity.metrics.SimulationMetrics;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * The action manager will loop over Action to run them, if the action is active, it will notify the listeners when an it is created, run, and completed. If the action is passive, the
  * listeners will never be notified about it.
+ * The entity actions can be run in parallel by providing a pool, the side effects on other entities are recorded with the EffectBuffer
+ * and applied in the entity order once all entities have run their actions, while the actions run, the entities updated return to the others
+ * their position, direction, destination, hit and energy points from the start of the frame, so the result does not depend on the update order or the number of threads,
+ * and is the same when running in parallel or not.
+ * The listeners are always notified from the thread ending the frame.
+ * When sleeping is enabled, only the entities with some work to do are updated: an entity falls asleep once none of its actions is running
+ * or has an effect, and is woken up when it starts an action, is hit, its hit or energy points change, or wakeUp is called.
+ * An action can tell it has nothing to do for some time with sleepFor, its entity then sleeps until that time if nothing else has to be done,
+ * the wake up times are kept in a timing wheel, so the entities waiting are not checked every frame, with sleepUntilMoved it is also woken up when its target moves.
+ * A frame budget can be set, the low priority entities are then updated from the least recently updated one, only while the frame time is within the budget,
+ * the ones left are updated in the next frames with the time elapsed since their last update, heartbeats are also postponed when the budget is exceeded.
+ * The frame budget only applies when the actions are not run in parallel.
+ * Every frame phase is reported as a flight recorder event, with the listener callbacks slower than a threshold.
+ * Metrics can be enabled to measure the run duration of every action class and count the work done every frame, without metrics, nothing is measured.
+ * In edge triggered mode, the listeners are only notified when an action starts, changes of target, stops or completes, instead of every frame.
  *
  * @author Grégory Van den Borre
  */
 public class ActionManager<T extends Entity> extends EndFrameListener {
 
+    /**
+     * Active index of a sleeping entity.
+     */
+    private static final int SLEEPING = -1;
+
+    /**
+     * Active index of an entity woken up but not yet in the active entities.
+     */
+    private static final int WOKEN = -2;
+
+    /**
+     * Time before work for an entity with nothing to do.
+     */
+    private static final long NO_WORK = Long.MAX_VALUE;
+
     /**
      * Listeners to notify when an action is created, has run or is complete.
      */
     private final List<ActionListener> listeners = new ArrayList<>();
 
+    /**
+     * Listeners wrapped to report their slow callbacks, in the same order as the listeners.
+     */
+    private final List<TimedActionListener> timedListeners = new ArrayList<>();
+
+    /**
+     * Listeners notified during the current frame, the timed listeners when the slow callback event is recorded.
+     */
+    private List<? extends ActionListener> notified = this.listeners;
+
+    /**
+     * <code>true</code> if the slow callback event is recorded for the current frame.
+     */
+    private boolean slowCallbacks;
+
     /**
      * Listeners to notify when an entity is destroyed.
      */
@@ -56,34 +112,626 @@ public class ActionManager<T extends Entity> extends EndFrameListener {
 
     private final List<ActionListener> listenerToRemove = new ArrayList<>();
 
+    /**
+     * Logic to run on every entity, built once to avoid any allocation during the frame.
+     */
+    private final Consumer<T> entityTick = this::tickOrDefer;
+
+    /**
+     * Notifications to run on every entity once all of them have run their actions.
+     */
+    private final Consumer<T> entityUpdate = this::update;
+
+    /**
+     * Pool running the actions in parallel, null to run them on the thread ending the frame.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Effects of the actions when running on a single thread.
+     */
+    private final EffectBuffer effects = new EffectBuffer();
+
+    /**
+     * Effects of the actions for every partition when running in parallel.
+     */
+    private final EffectBuffer[] partitionEffects;
+
+    /**
+     * Entities frozen for the current frame, reused every frame.
+     */
+    private final List<T> snapshot = new ArrayList<>();
+
+    /**
+     * <code>true</code> to only update the entities with some work to do.
+     */
+    private boolean sleepEnabled;
+
+    /**
+     * Entities to update when sleeping is enabled, every entity knows its index in this list.
+     */
+    private final List<T> active = new ArrayList<>();
+
+    /**
+     * Entities woken up since the active list was last updated, they can be woken up from any thread.
+     */
+    private final List<T> woken = new ArrayList<>();
+
+    /**
+     * Entities to wake up at a given time.
+     */
+    private final TimingWheel<T> wakeUps = new TimingWheel<>(1);
+
+    /**
+     * Wake up the entities when their time is reached, built once to avoid any allocation during the frame.
+     */
+    private final Consumer<T> timedWakeUp = this::wakeUp;
+
+    /**
+     * Sum of all the frame times.
+     */
+    private long now;
+
+    /**
+     * Maximum time to spend in a frame before deferring the low priority work, in nanoseconds, 0 for no budget.
+     */
+    private long frameBudget;
+
+    /**
+     * Check if an entity is low priority, and can be updated less often when the frame budget is exceeded.
+     */
+    private Predicate<? super T> lowPriority = e -> false;
+
+    /**
+     * Order the low priority entities from the least recently updated.
+     */
+    private static final Comparator<BaseEntity> OLDEST_UPDATE_FIRST = Comparator.comparingLong(e -> e.lastUpdate);
+
+    /**
+     * Low priority entities to update in the current frame, reused every frame.
+     */
+    private final List<BaseEntity> lowPriorityEntities = new ArrayList<>();
+
+    /**
+     * System time when the current frame started, in nanoseconds.
+     */
+    private long frameStart;
+
+    /**
+     * Duration of the last frame, in nanoseconds.
+     */
+    private long lastFrameDuration;
+
+    /**
+     * Number of frames that exceeded the budget.
+     */
+    private long budgetOverruns;
+
+    /**
+     * Number of low priority entities not updated during the last frame.
+     */
+    private int deferredEntities;
+
+    /**
+     * Metrics to update every frame, null if disabled.
+     */
+    private SimulationMetrics metrics;
+
+    /**
+     * Action recorders, one per partition, or a single one when not running in parallel, null if the metrics are disabled.
+     */
+    private ActionRecorder[] recorders;
+
+    /**
+     * Number of entities updated during the current frame.
+     */
+    private int ticked;
+
+    /**
+     * Number of entities destroyed during the current frame.
+     */
+    private int destructions;
+
+    /**
+     * Notified by the entity manager when an entity is added or woken up.
+     */
+    private final EntityObserver scheduler = new EntityObserver() {
+
+        @Override
+        public void wokenUp(final BaseEntity entity) {
+            ActionManager.this.wake(entity);
+        }
+    };
+
+    /**
+     * Time of the frame being currently processed.
+     */
+    private long frameTime;
+
+    /**
+     * <code>true</code> to only notify the listeners about the action transitions.
+     */
+    private boolean edgeTriggered;
+
+    /**
+     * Time between two stillRunning notifications in edge triggered mode, 0 to disable them.
+     */
+    private long heartbeatPeriod;
+
+    /**
+     * Time accumulated since the last stillRunning notifications.
+     */
+    private long sinceHeartbeat;
+
+    /**
+     * <code>true</code> if the stillRunning notifications are sent during the current frame.
+     */
+    private boolean heartbeat;
+
+    /**
+     * Filter deciding if the running moves are notified, null to notify them all.
+     */
+    private SignificanceFilter significanceFilter;
+
     public ActionManager(final EntityManager<T> em) {
         super();
         this.entityManager = em;
+        this.pool = null;
+        this.partitionEffects = new EffectBuffer[0];
+    }
+
+    /**
+     * Build an action manager running the entity actions in parallel.
+     * The entity manager must be thread safe, and the actions must only modify other entities through the EffectBuffer.
+     *
+     * @param em Entity manager providing the entities.
+     * @param pool Pool running the actions, the entities are split in 4 partitions per pool thread.
+     * @throws IllegalArgumentException If the entity manager is not thread safe, since it would not lock the moves and changes made by the pool threads.
+     */
+    public ActionManager(final EntityManager<T> em, final ForkJoinPool pool) {
+        super();
+        if (!em.isThreadSafe()) {
+            throw new IllegalArgumentException("The entity manager must be thread safe to run the actions in parallel");
+        }
+        this.entityManager = em;
+        this.pool = pool;
+        this.partitionEffects = new EffectBuffer[pool.getParallelism() * 4];
+        for (int i = 0; i < this.partitionEffects.length; i++) {
+            this.partitionEffects[i] = new EffectBuffer();
+        }
     }
 
     /**
      * Execute the actions required for every entities in the game.
+     * The destroyed entities are removed from the entity manager once all entities are updated, with the other pending structural changes.
      *
      * @param time Time since the begin of this frame.
      * @return true.
      */
     @Override
     public final boolean frameEnded(final long time) {
-        List<T> entities = this.entityManager.getEntities();
-        this.listenerToRemove.forEach(this.listeners::remove);
-        for (T e : entities) {
-            e.doActions(time);
-            e.getActionRunning().forEach(a -> this.listeners.forEach(l -> l.execute(e.getId(), e.getOwner(), a)));
-            e.getActionDone().forEach(a -> this.listeners.forEach(l -> l.complete(e.getId(), e.getOwner(), a)));
-            if (e.isDeleted()) {
-                this.entityManager.removeEntity(e);
-                this.destructionListeners.forEach(l -> l.entityDestroyed(e));
-                e.delete();
+        this.frameStart = System.nanoTime();
+        if (!this.listenerToRemove.isEmpty()) {
+            this.removeListeners();
+        }
+        this.frameTime = time;
+        this.now += time;
+        this.ticked = 0;
+        this.destructions = 0;
+        this.heartbeat = false;
+        if (this.heartbeatPeriod > 0) {
+            this.sinceHeartbeat += time;
+            if (this.sinceHeartbeat >= this.heartbeatPeriod) {
+                this.sinceHeartbeat = 0;
+                this.heartbeat = true;
+            }
+        }
+        if (this.sleepEnabled) {
+            FramePhaseEvent wake = FramePhaseEvent.start();
+            this.wakeUps.advance(this.now, this.timedWakeUp);
+            this.mergeWoken();
+            wake.finish("wake", this.active.size());
+        }
+        FramePhaseEvent tick = FramePhaseEvent.start();
+        if (this.pool == null) {
+            this.freeze();
+            this.effects.begin();
+            if (this.recorders != null) {
+                this.recorders[0].begin();
             }
+            try {
+                if (this.sleepEnabled) {
+                    for (int i = 0; i < this.active.size(); i++) {
+                        T e = this.active.get(i);
+                        if (((BaseEntity) e).isManaged()) {
+                            this.tickOrDefer(e);
+                        }
+                    }
+                } else {
+                    this.entityManager.forEachEntity(this.entityTick);
+                }
+                this.tickLowPriority();
+            } finally {
+                this.effects.end();
+                if (this.recorders != null) {
+                    this.recorders[0].end();
+                }
+                this.unfreeze();
+            }
+            this.effects.apply();
+        } else {
+            this.tickInParallel();
+        }
+        tick.finish("tick", this.ticked);
+        if (this.heartbeat && this.isOverBudget()) {
+            this.heartbeat = false;
+            this.sinceHeartbeat = this.heartbeatPeriod;
+        }
+        long dispatchStart = this.metrics == null ? 0 : System.nanoTime();
+        FramePhaseEvent dispatch = FramePhaseEvent.start();
+        this.slowCallbacks = SlowCallbackEvent.isRecorded();
+        this.notified = this.slowCallbacks ? this.timedListeners : this.listeners;
+        if (this.sleepEnabled) {
+            this.mergeWoken();
+            for (int i = 0; i < this.active.size(); i++) {
+                this.update(this.active.get(i));
+            }
+            this.sleepIdle();
+        } else {
+            this.entityManager.forEachEntity(this.entityUpdate);
+        }
+        dispatch.finish("dispatch", this.sleepEnabled ? this.active.size() : this.ticked);
+        long dispatchEnd = this.metrics == null ? 0 : System.nanoTime();
+        FramePhaseEvent structural = FramePhaseEvent.start();
+        structural.finish("structural", this.entityManager.applyPendingChanges());
+        this.lastFrameDuration = System.nanoTime() - this.frameStart;
+        boolean overrun = this.frameBudget > 0 && this.lastFrameDuration > this.frameBudget;
+        if (overrun) {
+            this.budgetOverruns++;
+        }
+        if (this.metrics != null) {
+            this.metrics.frameEnded(this.lastFrameDuration, this.ticked, dispatchEnd - dispatchStart, this.destructions, overrun, this.deferredEntities);
         }
         return true;
     }
 
+    /**
+     * Run the actions of all entities on the pool, and apply their effects in the entity order.
+     */
+    private void tickInParallel() {
+        this.freeze();
+        this.ticked = this.snapshot.size();
+        try {
+            this.pool.invoke(new Partitions(0, this.partitionEffects.length));
+        } finally {
+            this.unfreeze();
+        }
+        for (EffectBuffer b : this.partitionEffects) {
+            b.apply();
+        }
+    }
+
+    /**
+     * Retrieve the entities to update, and freeze them, so every action reads the other entities as they were at the start of the frame,
+     * whatever the update order and the number of threads.
+     */
+    private void freeze() {
+        this.snapshot.clear();
+        if (this.sleepEnabled) {
+            for (int i = 0; i < this.active.size(); i++) {
+                T e = this.active.get(i);
+                if (((BaseEntity) e).isManaged()) {
+                    this.snapshot.add(e);
+                }
+            }
+        } else {
+            this.entityManager.copyEntities(this.snapshot);
+        }
+        for (int i = 0; i < this.snapshot.size(); i++) {
+            T e = this.snapshot.get(i);
+            if (e instanceof BaseEntity) {
+                ((BaseEntity) e).freeze();
+            }
+        }
+    }
+
+    /**
+     * Let the entities updated during the frame return their current values again.
+     */
+    private void unfreeze() {
+        for (int i = 0; i < this.snapshot.size(); i++) {
+            T e = this.snapshot.get(i);
+            if (e instanceof BaseEntity) {
+                ((BaseEntity) e).unfreeze();
+            }
+        }
+        this.snapshot.clear();
+    }
+
+    /**
+     * Add the entities woken up to the active entities.
+     */
+    @SuppressWarnings("unchecked")
+    private void mergeWoken() {
+        synchronized (this.woken) {
+            for (int i = 0; i < this.woken.size(); i++) {
+                T e = this.woken.get(i);
+                BaseEntity b = (BaseEntity) e;
+                if (b.activeIndex == WOKEN) {
+                    b.activeIndex = this.active.size();
+                    this.active.add(e);
+                }
+            }
+            this.woken.clear();
+        }
+    }
+
+    /**
+     * Remove from the active entities the ones without any work to do, destroyed, or not managed anymore.
+     * The entities whose actions are all sleeping are scheduled to be woken up when the first one has some work to do.
+     */
+    private void sleepIdle() {
+        for (int i = this.active.size() - 1; i >= 0; i--) {
+            T e = this.active.get(i);
+            BaseEntity b = (BaseEntity) e;
+            long delay = b.isManaged() && !e.isDeleted() ? timeBeforeWork(b) : NO_WORK;
+            if (delay > 0) {
+                if (delay != NO_WORK) {
+                    this.wakeUps.schedule(e, this.now + delay);
+                }
+                int last = this.active.size() - 1;
+                T moved = this.active.remove(last);
+                if (i != last) {
+                    this.active.set(i, moved);
+                    ((BaseEntity) moved).activeIndex = i;
+                }
+                b.activeIndex = SLEEPING;
+            }
+        }
+    }
+
+    /**
+     * Compute when an entity will have some work to do.
+     *
+     * @param e Entity to check.
+     * @return 0 if an action is running or waiting to run and has an effect, the smallest sleep delay of the actions if they are all sleeping,
+     * NO_WORK if there is nothing to do.
+     */
+    private static long timeBeforeWork(final BaseEntity e) {
+        long result = NO_WORK;
+        List<? extends Action> running = e.getActionRunning();
+        for (int i = 0; i < running.size(); i++) {
+            Action a = running.get(i);
+            if (!(a instanceof BaseAction)) {
+                return 0;
+            }
+            BaseAction b = (BaseAction) a;
+            if (!b.isNoOp() && (b.isPassive() ? b.checkPrerequisite(e) : !b.isStopped())) {
+                if (b.sleepDelay <= 0) {
+                    return 0;
+                }
+                result = Math.min(result, b.sleepDelay);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Schedule a sleeping entity to be updated.
+     *
+     * @param e Entity to wake up.
+     */
+    @SuppressWarnings("unchecked")
+    private void wake(final BaseEntity e) {
+        synchronized (this.woken) {
+            if (e.activeIndex == SLEEPING) {
+                e.activeIndex = WOKEN;
+                this.woken.add((T) e);
+            }
+        }
+    }
+
+    /**
+     * Run the actions for an entity, or keep it for later if it is low priority and a budget is set.
+     *
+     * @param e Entity to update.
+     */
+    private void tickOrDefer(final T e) {
+        if (this.frameBudget == 0) {
+            this.ticked++;
+            this.tick(e);
+        } else if (e instanceof BaseEntity && this.lowPriority.test(e)) {
+            BaseEntity b = (BaseEntity) e;
+            if (b.lastUpdate == Long.MIN_VALUE) {
+                b.lastUpdate = this.now - this.frameTime;
+            }
+            this.lowPriorityEntities.add(b);
+        } else {
+            this.ticked++;
+            this.tick(e);
+            if (e instanceof BaseEntity) {
+                ((BaseEntity) e).lastUpdate = this.now;
+            }
+        }
+    }
+
+    /**
+     * Run the actions of the low priority entities, from the least recently updated, until the budget is exceeded.
+     * The budget is checked every 8 entities, and at least 8 entities are updated every frame.
+     * An entity seen for the first time counts as updated in the previous frame, so the entities updated before it are only the ones waiting for longer,
+     * their number cannot grow and every frame updates at least 8 of them, whatever the entities added, removed or woken up meanwhile, so none can starve.
+     */
+    private void tickLowPriority() {
+        int size = this.lowPriorityEntities.size();
+        this.deferredEntities = 0;
+        if (size == 0) {
+            return;
+        }
+        this.lowPriorityEntities.sort(OLDEST_UPDATE_FIRST);
+        int done = 0;
+        while (done < size && (done == 0 || (done & 7) != 0 || !this.isOverBudget())) {
+            BaseEntity b = this.lowPriorityEntities.get(done);
+            b.doActions(this.now - b.lastUpdate);
+            b.lastUpdate = this.now;
+            done++;
+        }
+        this.ticked += done;
+        this.deferredEntities = size - done;
+        this.lowPriorityEntities.clear();
+    }
+
+    /**
+     * @return <code>true</code> if a budget is set and the current frame exceeds it.
+     */
+    private boolean isOverBudget() {
+        return this.frameBudget > 0 && System.nanoTime() - this.frameStart > this.frameBudget;
+    }
+
+    /**
+     * Run the actions for an entity.
+     *
+     * @param e Entity to update.
+     */
+    private void tick(final T e) {
+        e.doActions(this.frameTime);
+    }
+
+    /**
+     * Notify the listeners of the entity actions, and schedule the entity removal if it is destroyed.
+     *
+     * @param e Entity to update.
+     */
+    private void update(final T e) {
+        if (this.edgeTriggered) {
+            this.notifyTransitions(e);
+        } else {
+            this.notifyAll(e);
+        }
+        if (e.isDeleted()) {
+            if (this.edgeTriggered) {
+                this.notifyEnd(e, e.getActionRunning(), false);
+            }
+            this.entityManager.removeEntityLater(e);
+            this.destructions++;
+            for (int j = 0; j < this.destructionListeners.size(); j++) {
+                DestructionListener<T> l = this.destructionListeners.get(j);
+                if (this.slowCallbacks) {
+                    SlowCallbackEvent destruction = SlowCallbackEvent.start();
+                    l.entityDestroyed(e);
+                    destruction.finish(l.getClass(), e.getId().value);
+                } else {
+                    l.entityDestroyed(e);
+                }
+            }
+            e.delete();
+        }
+    }
+
+    /**
+     * Notify the listeners about every running and done action.
+     *
+     * @param e Entity to notify the actions.
+     */
+    private void notifyAll(final T e) {
+        List<? extends Action> running = e.getActionRunning();
+        boolean checked = false;
+        boolean significant = true;
+        for (int i = 0; i < running.size(); i++) {
+            if (this.significanceFilter != null && running.get(i) instanceof Move) {
+                if (!checked) {
+                    checked = true;
+                    significant = this.significanceFilter.publish(e, this.now);
+                }
+                if (!significant) {
+                    continue;
+                }
+            }
+            for (int j = 0; j < this.notified.size(); j++) {
+                this.notified.get(j).execute(e.getId(), e.getOwner(), running.get(i));
+            }
+        }
+        List<? extends Action> done = e.getActionDone();
+        for (int i = 0; i < done.size(); i++) {
+            for (int j = 0; j < this.notified.size(); j++) {
+                this.notified.get(j).complete(e.getId(), e.getOwner(), done.get(i));
+            }
+        }
+    }
+
+    /**
+     * Notify the listeners about the actions that started, changed of target or ended since the previous frame.
+     *
+     * @param e Entity to notify the actions.
+     */
+    private void notifyTransitions(final T e) {
+        this.notifyEnd(e, e.getActionDone(), true);
+        List<? extends Action> running = e.getActionRunning();
+        if (running.isEmpty()) {
+            return;
+        }
+        Target target = e.getTarget().orElse(null);
+        for (int i = 0; i < running.size(); i++) {
+            Action a = running.get(i);
+            if (!(a instanceof BaseAction) || !((BaseAction) a).isRunning()) {
+                continue;
+            }
+            BaseAction b = (BaseAction) a;
+            if (!b.reportedRunning) {
+                b.reportedRunning = true;
+                b.reportedTarget = target;
+                for (int j = 0; j < this.notified.size(); j++) {
+                    this.notified.get(j).started(e.getId(), e.getOwner(), a, target);
+                }
+            } else if (b.reportedTarget != target) {
+                b.reportedTarget = target;
+                for (int j = 0; j < this.notified.size(); j++) {
+                    this.notified.get(j).targetChanged(e.getId(), e.getOwner(), a, target);
+                }
+            } else if (this.heartbeat) {
+                for (int j = 0; j < this.notified.size(); j++) {
+                    this.notified.get(j).stillRunning(e.getId(), e.getOwner(), a);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify the listeners that the actions previously notified as started are now stopped or completed.
+     * An action ending before being notified as started, because it started and ended during the same frame, is notified as started first.
+     *
+     * @param e Entity to notify the actions.
+     * @param actions Actions to check.
+     * @param unreported <code>true</code> to also notify the actions not notified as started yet.
+     */
+    private void notifyEnd(final T e, final List<? extends Action> actions, final boolean unreported) {
+        for (int i = 0; i < actions.size(); i++) {
+            Action a = actions.get(i);
+            if (!(a instanceof BaseAction)) {
+                continue;
+            }
+            BaseAction b = (BaseAction) a;
+            if (!b.reportedRunning && unreported && !b.reportedEnded) {
+                Target target = e.getTarget().orElse(null);
+                for (int j = 0; j < this.notified.size(); j++) {
+                    this.notified.get(j).started(e.getId(), e.getOwner(), a, target);
+                }
+                b.reportedRunning = true;
+            }
+            if (b.reportedRunning) {
+                b.reportedRunning = false;
+                b.reportedEnded = true;
+                b.reportedTarget = null;
+                for (int j = 0; j < this.notified.size(); j++) {
+                    if (b.isStopped()) {
+                        this.notified.get(j).stopped(e.getId(), e.getOwner(), a);
+                    } else {
+                        this.notified.get(j).completed(e.getId(), e.getOwner(), a);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Register an action listener to notify when an action is created, run or completed.
      * Beware that nothing prevent to add the same listener several times.
@@ -95,6 +743,142 @@ public class ActionManager<T extends Entity> extends EndFrameListener {
     public final void addListener(final ActionListener l) {
         assert l != null;
         this.listeners.add(l);
+        this.timedListeners.add(new TimedActionListener(l));
+    }
+
+    /**
+     * Only notify the running moves of an entity when its position or direction changed significantly, this only applies when not edge triggered.
+     *
+     * @param filter Filter to use, null to notify all the running moves, it must filter the entities of this manager.
+     */
+    public final void setSignificanceFilter(final SignificanceFilter filter) {
+        assert filter == null || filter.isFor(this.entityManager);
+        this.significanceFilter = filter;
+    }
+
+    /**
+     * Choose how the listeners are notified.
+     *
+     * @param edgeTriggered <code>true</code> to only notify the action transitions, <code>false</code> to notify every action every frame.
+     */
+    public final void setEdgeTriggered(final boolean edgeTriggered) {
+        this.edgeTriggered = edgeTriggered;
+    }
+
+    /**
+     * Set the period of the stillRunning notifications in edge triggered mode.
+     *
+     * @param period Time between two notifications, in the same unit as the frame time, 0 to disable them.
+     */
+    public final void setHeartbeatPeriod(final long period) {
+        assert period >= 0;
+        this.heartbeatPeriod = period;
+        this.sinceHeartbeat = 0;
+    }
+
+    /**
+     * Only update the entities with some work to do, all the current entities are updated at least once.
+     * Only the entities extending BaseEntity are updated once sleeping is enabled.
+     */
+    public final void enableSleeping() {
+        if (!this.sleepEnabled) {
+            this.sleepEnabled = true;
+            this.entityManager.setScheduler(this.scheduler);
+        }
+    }
+
+    /**
+     * Wake up an entity, to update it at the next frame even if it has nothing to do.
+     *
+     * @param entity Entity to wake up.
+     */
+    public final void wakeUp(final T entity) {
+        if (entity instanceof BaseEntity) {
+            this.wake((BaseEntity) entity);
+        }
+    }
+
+    /**
+     * Wake up an entity after a delay, when sleeping is enabled, to be called from the thread ending the frames.
+     * Usable for any timed work: construction countdowns, regeneration or cooldowns.
+     * Nothing is scheduled when sleeping is disabled, since every entity is then updated every frame.
+     *
+     * @param entity Entity to wake up.
+     * @param delay Time before waking up the entity, in the same unit as the frame time.
+     */
+    public final void wakeUpIn(final T entity, final long delay) {
+        if (this.sleepEnabled) {
+            this.wakeUps.schedule(entity, this.now + delay);
+        }
+    }
+
+    /**
+     * Set the time budget of a frame, once exceeded, the low priority entities and the heartbeats are deferred to the next frames.
+     *
+     * @param budget Maximum time to spend in a frame, in nanoseconds, 0 to disable the budget.
+     * @param lowPriority Check if an entity can be updated less often, for example when it is far from any player.
+     */
+    public final void setFrameBudget(final long budget, final Predicate<? super T> lowPriority) {
+        assert budget >= 0;
+        assert lowPriority != null;
+        this.frameBudget = budget;
+        this.lowPriority = lowPriority;
+    }
+
+    /**
+     * Enable or disable the metrics, the previous metrics, if any, stop recording.
+     *
+     * @param metrics Metrics to update every frame, null to disable them.
+     */
+    public final void setMetrics(final SimulationMetrics metrics) {
+        if (this.metrics != null) {
+            this.metrics.stop();
+        }
+        this.metrics = metrics;
+        if (metrics == null) {
+            this.recorders = null;
+            return;
+        }
+        metrics.start();
+        this.recorders = new ActionRecorder[Math.max(1, this.partitionEffects.length)];
+        for (int i = 0; i < this.recorders.length; i++) {
+            this.recorders[i] = metrics.createRecorder();
+        }
+    }
+
+    /**
+     * @return The duration of the last frame, in nanoseconds.
+     */
+    public final long getLastFrameDuration() {
+        return this.lastFrameDuration;
+    }
+
+    /**
+     * @return The number of frames that exceeded the frame budget.
+     */
+    public final long getBudgetOverruns() {
+        return this.budgetOverruns;
+    }
+
+    /**
+     * @return The number of low priority entities deferred to the next frames during the last frame.
+     */
+    public final int getDeferredEntities() {
+        return this.deferredEntities;
+    }
+
+    /**
+     * @return The number of timed wake ups waiting for their time.
+     */
+    public final int getScheduledWakeUps() {
+        return this.wakeUps.size();
+    }
+
+    /**
+     * @return The number of entities updated every frame when sleeping is enabled.
+     */
+    public final int getActiveEntities() {
+        return this.active.size();
     }
 
     public final void removeListener(final ActionListener l) {
@@ -102,8 +886,141 @@ public class ActionManager<T extends Entity> extends EndFrameListener {
         this.listenerToRemove.add(l);
     }
 
+    /**
+     * Remove the listeners asked to be removed, and their timed wrappers.
+     */
+    private void removeListeners() {
+        for (int i = 0; i < this.listenerToRemove.size(); i++) {
+            ActionListener l = this.listenerToRemove.get(i);
+            this.listeners.remove(l);
+            for (int j = 0; j < this.timedListeners.size(); j++) {
+                if (this.timedListeners.get(j).listener.equals(l)) {
+                    this.timedListeners.remove(j);
+                    break;
+                }
+            }
+        }
+        this.listenerToRemove.clear();
+    }
+
     public final void addDestructionListener(final DestructionListener<T> l) {
         assert l != null;
         this.destructionListeners.add(l);
     }
+
+    /**
+     * Run the actions for a range of partitions, split until a single partition is left.
+     */
+    private final class Partitions extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+
+        private final int to;
+
+        private Partitions(final int from, final int to) {
+            super();
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > 1) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new Partitions(this.from, middle), new Partitions(middle, this.to));
+                return;
+            }
+            List<T> entities = ActionManager.this.snapshot;
+            int partitions = ActionManager.this.partitionEffects.length;
+            int start = (int) ((long) entities.size() * this.from / partitions);
+            int end = (int) ((long) entities.size() * this.to / partitions);
+            EffectBuffer b = ActionManager.this.partitionEffects[this.from];
+            ActionRecorder r = ActionManager.this.recorders == null ? null : ActionManager.this.recorders[this.from];
+            b.begin();
+            if (r != null) {
+                r.begin();
+            }
+            try {
+                for (int i = start; i < end; i++) {
+                    ActionManager.this.tick(entities.get(i));
+                }
+            } finally {
+                b.end();
+                if (r != null) {
+                    r.end();
+                }
+            }
+        }
+    }
+
+    /**
+     * Listener reporting every callback of the wrapped listener slower than the slow callback event threshold.
+     */
+    private static final class TimedActionListener implements ActionListener {
+
+        private final ActionListener listener;
+
+        private TimedActionListener(final ActionListener listener) {
+            super();
+            this.listener = listener;
+        }
+
+        @Override
+        public void create(final EntityId id, final PlayerId owner, final Action a) {
+            SlowCallbackEvent event = SlowCallbackEvent.start();
+            this.listener.create(id, owner, a);
+            event.finish(this.listener.getClass(), id.value);
+        }
+
+        @Override
+        public void execute(final EntityId id, final PlayerId owner, final Action a) {
+            SlowCallbackEvent event = SlowCallbackEvent.start();
+            this.listener.execute(id, owner, a);
+            event.finish(this.listener.getClass(), id.value);
+        }
+
+        @Override
+        public void complete(final EntityId id, final PlayerId owner, final Action a) {
+            SlowCallbackEvent event = SlowCallbackEvent.start();
+            this.listener.complete(id, owner, a);
+            event.finish(this.listener.getClass(), id.value);
+        }
+
+        @Override
+        public void started(final EntityId id, final PlayerId owner, final Action a, final Target target) {
+            SlowCallbackEvent event = SlowCallbackEvent.start();
+            this.listener.started(id, owner, a, target);
+            event.finish(this.listener.getClass(), id.value);
+        }
+
+        @Override
+        public void targetChanged(final EntityId id, final PlayerId owner, final Action a, final Target target) {
+            SlowCallbackEvent event = SlowCallbackEvent.start();
+            this.listener.targetChanged(id, owner, a, target);
+            event.finish(this.listener.getClass(), id.value);
+        }
+
+        @Override
+        public void stopped(final EntityId id, final PlayerId owner, final Action a) {
+            SlowCallbackEvent event = SlowCallbackEvent.start();
+            this.listener.stopped(id, owner, a);
+            event.finish(this.listener.getClass(), id.value);
+        }
+
+        @Override
+        public void completed(final EntityId id, final PlayerId owner, final Action a) {
+            SlowCallbackEvent event = SlowCallbackEvent.start();
+            this.listener.completed(id, owner, a);
+            event.finish(this.listener.getClass(), id.value);
+        }
+
+        @Override
+        public void stillRunning(final EntityId id, final PlayerId owner, final Action a) {
+            SlowCallbackEvent event = SlowCallbackEvent.start();
+            this.listener.stillRunning(id, owner, a);
+            event.finish(this.listener.getClass(), id.value);
+        }
+    }
 }
@@ -25,6 +25,8 @@
 package be.yildizgames.engine.feature.entity;
 
 import be.yildizgames.common.model.ActionId;
+import be.yildizgames.engine.feature.entity.fields.Target;
+import be.yildizgames.engine.feature.entity.metrics.ActionRecorder;
 
 /**
  * An action can be done by an Entity, an Entity can do only one action at a time. 2 actions are considered equals if they share the same Entity. An action can have different states, defined by the
@@ -60,6 +62,26 @@ public abstract class BaseAction implements Action {
      */
     private boolean toRun;
 
+    /**
+     * <code>true</code> if the listeners were notified that this action started and not yet that it ended, used by the action manager.
+     */
+    boolean reportedRunning;
+
+    /**
+     * <code>true</code> if the listeners were notified that this action ended since it was last initialized, used by the action manager.
+     */
+    boolean reportedEnded;
+
+    /**
+     * Delay during which this action has nothing to do, set during its last run, used by the action manager.
+     */
+    long sleepDelay;
+
+    /**
+     * Entity target when the listeners were last notified about this action, used by the action manager.
+     */
+    Target reportedTarget;
+
     protected BaseAction(final ActionId id, final boolean passive) {
         this(id, passive, false);
     }
@@ -118,16 +140,17 @@ public abstract class BaseAction implements Action {
      * @return <code>true</code> if the action must continue.
      */
     public final boolean run(final long time, Entity e) {
+        this.sleepDelay = 0;
         if (this.passive && this.checkPrerequisite(e)) {
             this.running = true;
-            this.runImpl(time, e);
+            this.execute(time, e);
             return true;
         } else if (!this.toRun || !this.checkPrerequisite(e)) {
             this.running = false;
             return false;
         } else {
             this.running = true;
-            this.runImpl(time, e);
+            this.execute(time, e);
             return true;
         }
     }
@@ -137,6 +160,7 @@ public abstract class BaseAction implements Action {
      */
     public final void init(Entity e) {
         this.toRun = true;
+        this.reportedEnded = false;
         this.initImpl(e);
     }
 
@@ -149,6 +173,64 @@ public abstract class BaseAction implements Action {
         return this.passive;
     }
 
+    /**
+     * An action doing nothing, like the No* actions, an entity running only such actions does not need to be updated.
+     *
+     * @return <code>true</code> if running this action never has any effect.
+     */
+    public boolean isNoOp() {
+        return false;
+    }
+
+    /**
+     * Run the action implementation, measuring its duration when the metrics are enabled.
+     *
+     * @param time Time since the last call.
+     * @param e Entity running the action.
+     */
+    private void execute(final long time, final Entity e) {
+        if (ActionRecorder.isEnabled()) {
+            long start = System.nanoTime();
+            this.runImpl(time, e);
+            ActionRecorder.record(this.getClass(), System.nanoTime() - start);
+        } else {
+            this.runImpl(time, e);
+        }
+    }
+
+    /**
+     * Tell that this action has nothing to do before a delay, to be called from runImpl.
+     * If the other actions of the entity have nothing to do either, the entity sleeps until the delay is elapsed, when the action manager allows sleeping.
+     * The action may still be run sooner if the entity is woken up by something else.
+     *
+     * @param delay Time before the action has something to do, in the same unit as the frame time.
+     */
+    protected final void sleepFor(final long delay) {
+        this.sleepDelay = delay;
+    }
+
+    /**
+     * Tell that this action has nothing to do before a delay unless a target moves, to be called from runImpl.
+     * Work as sleepFor, the entity is also woken up at the next move of the target when both are BaseEntity, so following a target is not delayed.
+     *
+     * @param delay Time before the action has something to do, in the same unit as the frame time.
+     * @param e Entity running this action.
+     * @param target Target to watch.
+     */
+    protected final void sleepUntilMoved(final long delay, final Entity e, final Target target) {
+        this.sleepDelay = delay;
+        if (e instanceof BaseEntity && target instanceof BaseEntity) {
+            ((BaseEntity) target).wakeOnMove((BaseEntity) e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the action was stopped, and will not run until initialized again.
+     */
+    final boolean isStopped() {
+        return !this.toRun;
+    }
+
     /**
      * @return <code>true</code> if the action is currently in running state.
      */
@@ -97,6 +97,56 @@ public abstract class BaseEntity implements Entity, Target {
 
     private final List<EntityModule> modules = new ArrayList<>();
 
+    /**
+     * Notified of the changes, provided by the manager of this entity.
+     */
+    private EntityObserver observer = EntityObserver.NONE;
+
+    /**
+     * Arrays storing the hot fields while this entity is managed in struct of arrays mode, null otherwise.
+     */
+    private EntityFieldArrays fields;
+
+    /**
+     * Slot of this entity in the field arrays.
+     */
+    private int slot;
+
+    /**
+     * Position of this entity in the active entities of the action manager, negative if it is not in that list.
+     */
+    int activeIndex = -1;
+
+    /**
+     * Time of the last update by the action manager, when the updates can be deferred by the frame budget, Long.MIN_VALUE if never updated.
+     */
+    long lastUpdate = Long.MIN_VALUE;
+
+    /**
+     * Entities to wake up at the next move of this one, they may run from other threads so the list is used under its own lock.
+     */
+    private final List<BaseEntity> wakeOnMove = new ArrayList<>(0);
+
+    /**
+     * Fields changed since the last drain by the entity manager, as DirtyField bits.
+     */
+    private int dirty;
+
+    /**
+     * <code>true</code> while this entity is in the changed list of its entity manager, used by the entity manager.
+     */
+    boolean changeQueued;
+
+    /**
+     * Values of this entity at the start of the frame, returned to the other entities while the actions are running, null if never frozen.
+     */
+    private FrozenState frozen;
+
+    /**
+     * Thread running the actions of this entity, null if they are not running.
+     */
+    private Thread updating;
+
     protected BaseEntity(EntityId id, EntityType type, int hp, int ep) {
         super();
         this.id = id;
@@ -120,15 +170,25 @@ public abstract class BaseEntity implements Entity, Target {
     @Override
     public final void doActions(final long time) {
         this.actionComplete.clear();
-        for (BaseAction a : this.actionRunning) {
-            if (!a.checkPrerequisite(this)) {
-                this.actionComplete.add(a);
-                this.actionRunning.remove(a);
-            } else {
-                boolean running = a.run(time, this);
-                if (!running) {
-                    this.actionComplete.add(a); }
+        this.updating = Thread.currentThread();
+        try {
+            for (int i = 0; i < this.actionRunning.size(); i++) {
+                BaseAction a = this.actionRunning.get(i);
+                if (!a.checkPrerequisite(this)) {
+                    this.actionComplete.add(a);
+                    this.actionRunning.remove(i);
+                    i--;
+                } else {
+                    boolean running = a.run(time, this);
+                    if (!running) {
+                        this.actionComplete.add(a); }
+                }
             }
+        } finally {
+            this.updating = null;
+        }
+        if (!this.actionComplete.isEmpty()) {
+            this.markDirty(DirtyField.ACTIONS);
         }
     }
 
@@ -139,17 +199,29 @@ public abstract class BaseEntity implements Entity, Target {
 
     @Override
     public final void setDestination(Point3D destination) {
-        this.destination = destination;
+        EntityFieldArrays f = this.fields;
+        if (f == null) {
+            this.destination = destination;
+        } else {
+            f.setDestination(this.slot, destination);
+        }
+        this.markDirty(DirtyField.DESTINATION);
     }
 
     @Override
     public final void addState(final State state) {
-        this.states.addState(state);
+        if (!this.states.hasState(state)) {
+            this.states.addState(state);
+            this.markDirty(DirtyField.STATES);
+        }
     }
 
     @Override
     public final void removeState(final State state) {
-        this.states.removeState(state);
+        if (this.states.hasState(state)) {
+            this.states.removeState(state);
+            this.markDirty(DirtyField.STATES);
+        }
     }
 
     @Override
@@ -198,24 +270,56 @@ public abstract class BaseEntity implements Entity, Target {
 
     @Override
     public final Point3D getPosition() {
-        return this.position;
+        FrozenState s = this.frozenForCaller();
+        if (s != null) {
+            return s.position;
+        }
+        EntityFieldArrays f = this.fields;
+        return f == null ? this.position : f.getPosition(this.slot);
     }
 
     @Override
     public final void setPosition(Point3D position) {
         //FIXME use the module to set the position instead, to avoid to be able to set the position even if the module cannot move.
         assert position != null;
-        this.position = position;
+        EntityFieldArrays f = this.fields;
+        Point3D previous;
+        if (f == null) {
+            previous = this.position;
+            this.position = position;
+        } else {
+            previous = f.getPosition(this.slot);
+            f.setPosition(this.slot, position);
+        }
+        this.markDirty(DirtyField.POSITION);
+        this.observer.positionChanged(this, previous);
+        synchronized (this.wakeOnMove) {
+            for (int i = 0; i < this.wakeOnMove.size(); i++) {
+                this.wakeOnMove.get(i).wakeUp();
+            }
+            this.wakeOnMove.clear();
+        }
     }
 
     @Override
     public final Point3D getDirection() {
-        return this.direction;
+        FrozenState s = this.frozenForCaller();
+        if (s != null) {
+            return s.direction;
+        }
+        EntityFieldArrays f = this.fields;
+        return f == null ? this.direction : f.getDirection(this.slot);
     }
 
     @Override
     public final void setDirection(Point3D direction) {
-        this.direction = direction;
+        EntityFieldArrays f = this.fields;
+        if (f == null) {
+            this.direction = direction;
+        } else {
+            f.setDirection(this.slot, direction);
+        }
+        this.markDirty(DirtyField.DIRECTION);
     }
 
     @Override
@@ -225,37 +329,63 @@ public abstract class BaseEntity implements Entity, Target {
 
     @Override
     public final boolean isZeroHp() {
-        return this.hp.getValue() == 0;
+        return this.getHitPoints() == 0;
     }
 
     @Override
     public final  int getHitPoints() {
-        return this.hp.getValue();
+        FrozenState s = this.frozenForCaller();
+        if (s != null) {
+            return s.hitPoints;
+        }
+        EntityFieldArrays f = this.fields;
+        return f == null ? this.hp.getValue() : f.getHitPoints(this.slot);
     }
 
     @Override
     public final void setHitPoints(int hitPoint) {
-        this.hp.setValue(hitPoint);
+        EntityFieldArrays f = this.fields;
+        if (f == null) {
+            this.hp.setValue(hitPoint);
+        } else {
+            f.setHitPoints(this.slot, hitPoint);
+        }
+        this.markDirty(DirtyField.HIT_POINTS);
+        this.wakeUp();
     }
 
     @Override
     public final int getMaxHitPoints() {
-        return this.hp.getMax();
+        EntityFieldArrays f = this.fields;
+        return f == null ? this.hp.getMax() : f.getMaxHitPoints(this.slot);
     }
 
     @Override
     public final int getEnergyPoints() {
-        return this.energy.getValue();
+        FrozenState s = this.frozenForCaller();
+        if (s != null) {
+            return s.energyPoints;
+        }
+        EntityFieldArrays f = this.fields;
+        return f == null ? this.energy.getValue() : f.getEnergyPoints(this.slot);
     }
 
     @Override
     public final void setEnergyPoints(int energy) {
-        this.energy.setValue(energy);
+        EntityFieldArrays f = this.fields;
+        if (f == null) {
+            this.energy.setValue(energy);
+        } else {
+            f.setEnergyPoints(this.slot, energy);
+        }
+        this.markDirty(DirtyField.ENERGY_POINTS);
+        this.wakeUp();
     }
 
     @Override
     public final int getMaxEnergyPoints() {
-        return this.energy.getMax();
+        EntityFieldArrays f = this.fields;
+        return f == null ? this.energy.getMax() : f.getMaxEnergyPoints(this.slot);
     }
 
     @Override
@@ -265,12 +395,33 @@ public abstract class BaseEntity implements Entity, Target {
 
     @Override
     public final float getHitPointsRatio() {
-        return this.hp.getRatio();
+        FrozenState s = this.frozenForCaller();
+        if (s != null) {
+            return ratio(s.hitPoints, this.getMaxHitPoints());
+        }
+        EntityFieldArrays f = this.fields;
+        return f == null ? ratio(this.hp.getValue(), this.hp.getMax()) : ratio(f.getHitPoints(this.slot), f.getMaxHitPoints(this.slot));
     }
 
     @Override
     public final float getEnergyPointsRatio() {
-        return this.energy.getRatio();
+        FrozenState s = this.frozenForCaller();
+        if (s != null) {
+            return ratio(s.energyPoints, this.getMaxEnergyPoints());
+        }
+        EntityFieldArrays f = this.fields;
+        return f == null ? ratio(this.energy.getValue(), this.energy.getMax()) : ratio(f.getEnergyPoints(this.slot), f.getMaxEnergyPoints(this.slot));
+    }
+
+    /**
+     * Compute the ratio of a value to its maximum, the same way whatever the storage.
+     *
+     * @param value Current value.
+     * @param max Maximum value.
+     * @return value / max, 0 if the maximum is 0.
+     */
+    private static float ratio(final int value, final int max) {
+        return max == 0 ? 0 : (float) value / max;
     }
 
     @Override
@@ -286,12 +437,17 @@ public abstract class BaseEntity implements Entity, Target {
     @Override
     public final void setOwner(PlayerId ownerId) {
         assert ownerId != null;
-        this.owner = ownerId;
+        if (!ownerId.equals(this.owner)) {
+            this.owner = ownerId;
+            this.markDirty(DirtyField.OWNER);
+        }
     }
 
     @Override
     public final void startPreparedAction() {
         this.startAction(this.actionToPrepare);
+        this.markDirty(DirtyField.ACTIONS);
+        this.wakeUp();
     }
 
     @Override
@@ -304,6 +460,20 @@ public abstract class BaseEntity implements Entity, Target {
         return Optional.ofNullable(this.target);
     }
 
+    /**
+     * Change the target of this entity, to be called by the setTarget implementations.
+     * The target is flagged as changed and the entity woken up if it is different from the current one.
+     *
+     * @param target New target, null to have none.
+     */
+    protected final void changeTarget(final Target target) {
+        if (target != this.target) {
+            this.target = target;
+            this.markDirty(DirtyField.TARGET);
+            this.wakeUp();
+        }
+    }
+
     public final  Set<Entity> getVisibleEntities() {
         return visibleEntities;
     }
@@ -344,6 +514,150 @@ public abstract class BaseEntity implements Entity, Target {
 
     @Override
     public final Point3D getDestination() {
-        return this.destination;
+        FrozenState s = this.frozenForCaller();
+        if (s != null) {
+            return s.destination;
+        }
+        EntityFieldArrays f = this.fields;
+        return f == null ? this.destination : f.getDestination(this.slot);
+    }
+
+    /**
+     * Notify that this entity may have some work to do, so it is updated again if it was sleeping.
+     * Subclasses must call it when they start an action or are hit.
+     */
+    protected final void wakeUp() {
+        this.observer.wokenUp(this);
+    }
+
+    /**
+     * Wake up an entity at the next move of this one, once.
+     *
+     * @param follower Entity to wake up.
+     */
+    final void wakeOnMove(final BaseEntity follower) {
+        assert follower != null;
+        synchronized (this.wakeOnMove) {
+            if (!this.wakeOnMove.contains(follower)) {
+                this.wakeOnMove.add(follower);
+            }
+        }
+    }
+
+    /**
+     * Flag some fields as changed, so the entity is part of the next drain of its entity manager.
+     * The setters already flag their field, subclasses must call it when they change the running actions.
+     *
+     * @param fields Changed fields, as DirtyField bits.
+     */
+    protected final void markDirty(final int fields) {
+        int previous = this.dirty;
+        if ((previous | fields) != previous) {
+            this.dirty = previous | fields;
+            if (previous == 0) {
+                this.observer.dirtied(this);
+            }
+        }
+    }
+
+    /**
+     * @return The fields changed since the last drain, as DirtyField bits.
+     */
+    public final int getDirtyFields() {
+        return this.dirty;
+    }
+
+    /**
+     * Reset the changed fields, used by the entity manager.
+     *
+     * @return The fields changed before the reset.
+     */
+    final int clearDirty() {
+        int fields = this.dirty;
+        this.dirty = 0;
+        return fields;
+    }
+
+    /**
+     * Keep the current values to return them to the other entities until unfreeze is called, used by the action manager before running the actions.
+     */
+    final void freeze() {
+        FrozenState s = this.frozen;
+        if (s == null) {
+            s = new FrozenState();
+        } else {
+            s.active = false;
+        }
+        s.position = this.getPosition();
+        s.direction = this.getDirection();
+        s.destination = this.getDestination();
+        s.hitPoints = this.getHitPoints();
+        s.energyPoints = this.getEnergyPoints();
+        s.active = true;
+        this.frozen = s;
+    }
+
+    /**
+     * Return the current values to every caller again, used by the action manager once the actions are run.
+     */
+    final void unfreeze() {
+        FrozenState s = this.frozen;
+        if (s != null) {
+            s.active = false;
+        }
+    }
+
+    /**
+     * @return The values to return to the caller, null if the current values must be returned,
+     * the frozen values are returned to every thread except the one running the actions of this entity.
+     */
+    private FrozenState frozenForCaller() {
+        FrozenState s = this.frozen;
+        return s != null && s.active && this.updating != Thread.currentThread() ? s : null;
+    }
+
+    /**
+     * @return <code>true</code> if this entity is currently managed by an entity manager.
+     */
+    final boolean isManaged() {
+        return this.observer != EntityObserver.NONE;
+    }
+
+    /**
+     * Set the observer to notify of the changes, used by the entity manager.
+     *
+     * @param observer Observer to notify, EntityObserver.NONE to stop notifying.
+     */
+    final void setObserver(final EntityObserver observer) {
+        assert observer != null;
+        this.observer = observer;
+    }
+
+    /**
+     * Use the field arrays to store the hot fields, used by the entity field arrays.
+     *
+     * @param fields Arrays storing the fields.
+     * @param slot Slot of this entity in the arrays.
+     */
+    final void attachFields(final EntityFieldArrays fields, final int slot) {
+        this.fields = fields;
+        this.slot = slot;
+    }
+
+    /**
+     * Copy back the hot fields from the field arrays, and stop using them.
+     */
+    final void detachFields() {
+        EntityFieldArrays f = this.fields;
+        if (f != null) {
+            this.position = f.getPosition(this.slot);
+            this.direction = f.getDirection(this.slot);
+            this.destination = f.getDestination(this.slot);
+            this.hp.setMax(f.getMaxHitPoints(this.slot));
+            this.hp.setValue(f.getHitPoints(this.slot));
+            this.energy.setMax(f.getMaxEnergyPoints(this.slot));
+            this.energy.setValue(f.getEnergyPoints(this.slot));
+            this.fields = null;
+        }
     }
 }
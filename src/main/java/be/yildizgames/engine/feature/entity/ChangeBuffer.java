@@ -0,0 +1,104 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.model.PlayerId;
+
+import java.util.Arrays;
+
+/**
+ * Structural changes recorded to be applied later, in the order they were recorded.
+ * This class is not thread safe.
+ *
+ * @author Grégory Van den Borre
+ */
+final class ChangeBuffer<T extends Entity> {
+
+    static final byte ADD = 0;
+
+    static final byte REMOVE = 1;
+
+    static final byte OWNER = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    private Object[] entities = new Object[INITIAL_CAPACITY];
+
+    /**
+     * New owner for the OWNER changes, null for the other ones.
+     */
+    private PlayerId[] owners = new PlayerId[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Record a change.
+     *
+     * @param type Change type, ADD, REMOVE or OWNER.
+     * @param entity Entity to change.
+     * @param owner New owner for an OWNER change, null otherwise.
+     */
+    void record(final byte type, final T entity, final PlayerId owner) {
+        assert entity != null;
+        if (this.size == this.types.length) {
+            int capacity = this.size << 1;
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.entities = Arrays.copyOf(this.entities, capacity);
+            this.owners = Arrays.copyOf(this.owners, capacity);
+        }
+        this.types[this.size] = type;
+        this.entities[this.size] = entity;
+        this.owners[this.size] = owner;
+        this.size++;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    byte getType(final int index) {
+        return this.types[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    T getEntity(final int index) {
+        return (T) this.entities[index];
+    }
+
+    PlayerId getOwner(final int index) {
+        return this.owners[index];
+    }
+
+    /**
+     * Forget all the recorded changes.
+     */
+    void clear() {
+        Arrays.fill(this.entities, 0, this.size, null);
+        Arrays.fill(this.owners, 0, this.size, null);
+        this.size = 0;
+    }
+}
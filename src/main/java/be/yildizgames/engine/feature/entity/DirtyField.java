@@ -0,0 +1,71 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+/**
+ * Bits identifying the entity fields changed since the last replication, combined in an int mask.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class DirtyField {
+
+    public static final int POSITION = 1;
+
+    public static final int DIRECTION = 1 << 1;
+
+    public static final int DESTINATION = 1 << 2;
+
+    public static final int HIT_POINTS = 1 << 3;
+
+    public static final int ENERGY_POINTS = 1 << 4;
+
+    public static final int OWNER = 1 << 5;
+
+    public static final int STATES = 1 << 6;
+
+    public static final int TARGET = 1 << 7;
+
+    public static final int ACTIONS = 1 << 8;
+
+    /**
+     * Every field, used when an entity starts being managed.
+     */
+    public static final int ALL = (1 << 9) - 1;
+
+    private DirtyField() {
+        super();
+    }
+
+    /**
+     * Check if a field is part of a mask.
+     *
+     * @param mask Changed fields.
+     * @param field Field to check.
+     * @return <code>true</code> if the field is in the mask.
+     */
+    public static boolean contains(final int mask, final int field) {
+        return (mask & field) != 0;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.engine.feature.entity.data.State;
+import be.yildizgames.engine.feature.entity.fields.AttackHitResult;
+import be.yildizgames.engine.feature.entity.fields.Target;
+
+import java.util.Arrays;
+
+/**
+ * Side effects of an entity on other entities, recorded while the entities are updated and applied once all of them are updated.
+ * The effects of every update partition are applied in the entity order, so a frame gives the same result whatever the number of threads used.
+ * Actions must use the static methods of this class instead of modifying other entities directly,
+ * outside of an entity update the effects are applied immediately.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class EffectBuffer {
+
+    private static final byte HIT = 0;
+
+    private static final byte ADD_STATE = 1;
+
+    private static final byte REMOVE_STATE = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Buffer recording the effects for the current thread, null if the thread is not updating entities.
+     */
+    private static final ThreadLocal<EffectBuffer> CURRENT = new ThreadLocal<>();
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+
+    private Object[] targets = new Object[INITIAL_CAPACITY];
+
+    private Object[] values = new Object[INITIAL_CAPACITY];
+
+    private int size;
+
+    EffectBuffer() {
+        super();
+    }
+
+    /**
+     * Hit a target.
+     *
+     * @param target Target to hit.
+     * @param hit Hit to apply.
+     */
+    public static void hit(final Target target, final AttackHitResult hit) {
+        EffectBuffer b = CURRENT.get();
+        if (b == null) {
+            target.hit(hit);
+        } else {
+            b.record(HIT, target, hit);
+        }
+    }
+
+    /**
+     * Add a state to an entity.
+     *
+     * @param entity Entity to update.
+     * @param state State to add.
+     */
+    public static void addState(final Entity entity, final State state) {
+        EffectBuffer b = CURRENT.get();
+        if (b == null) {
+            entity.addState(state);
+        } else {
+            b.record(ADD_STATE, entity, state);
+        }
+    }
+
+    /**
+     * Remove a state from an entity.
+     *
+     * @param entity Entity to update.
+     * @param state State to remove.
+     */
+    public static void removeState(final Entity entity, final State state) {
+        EffectBuffer b = CURRENT.get();
+        if (b == null) {
+            entity.removeState(state);
+        } else {
+            b.record(REMOVE_STATE, entity, state);
+        }
+    }
+
+    /**
+     * Record the effects of the current thread in this buffer until end is called.
+     */
+    void begin() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Stop recording the effects of the current thread.
+     */
+    void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Apply all the recorded effects in order, and forget them.
+     */
+    void apply() {
+        for (int i = 0; i < this.size; i++) {
+            switch (this.types[i]) {
+                case HIT:
+                    ((Target) this.targets[i]).hit((AttackHitResult) this.values[i]);
+                    if (this.targets[i] instanceof BaseEntity) {
+                        ((BaseEntity) this.targets[i]).wakeUp();
+                    }
+                    break;
+                case ADD_STATE:
+                    ((Entity) this.targets[i]).addState((State) this.values[i]);
+                    break;
+                default:
+                    ((Entity) this.targets[i]).removeState((State) this.values[i]);
+                    break;
+            }
+        }
+        Arrays.fill(this.targets, 0, this.size, null);
+        Arrays.fill(this.values, 0, this.size, null);
+        this.size = 0;
+    }
+
+    private void record(final byte type, final Object target, final Object value) {
+        if (this.size == this.types.length) {
+            int capacity = this.size << 1;
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.targets = Arrays.copyOf(this.targets, capacity);
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+        this.types[this.size] = type;
+        this.targets[this.size] = target;
+        this.values[this.size] = value;
+        this.size++;
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Hot fields of the managed entities, stored in parallel primitive arrays indexed by entity slot.
+ * While an entity is stored here, its position, direction, destination, hit points and energy accessors read and write these arrays,
+ * so those values can be processed for all the entities in tight loops.
+ * Subclasses must then use the accessors and not the hp and energy fields directly, the fields are updated again when the entity is removed.
+ * A slot is used if getEntity does not return null, all the slots lower than getSlotCount must be checked.
+ * This class is not thread safe, it is meant to be used by the thread updating the entities.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class EntityFieldArrays {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Invoked with the slot of an entity moved by a batch operation.
+     */
+    private final IntConsumer moveListener;
+
+    private BaseEntity[] entities = new BaseEntity[INITIAL_CAPACITY];
+
+    private float[] positionX = new float[INITIAL_CAPACITY];
+
+    private float[] positionY = new float[INITIAL_CAPACITY];
+
+    private float[] positionZ = new float[INITIAL_CAPACITY];
+
+    private float[] directionX = new float[INITIAL_CAPACITY];
+
+    private float[] directionY = new float[INITIAL_CAPACITY];
+
+    private float[] directionZ = new float[INITIAL_CAPACITY];
+
+    private float[] destinationX = new float[INITIAL_CAPACITY];
+
+    private float[] destinationY = new float[INITIAL_CAPACITY];
+
+    private float[] destinationZ = new float[INITIAL_CAPACITY];
+
+    private int[] hitPoints = new int[INITIAL_CAPACITY];
+
+    private int[] maxHitPoints = new int[INITIAL_CAPACITY];
+
+    private int[] energyPoints = new int[INITIAL_CAPACITY];
+
+    private int[] maxEnergyPoints = new int[INITIAL_CAPACITY];
+
+    /**
+     * Point3D matching the arrays content, rebuilt on demand once the arrays are modified by a batch operation.
+     */
+    private Point3D[] positions = new Point3D[INITIAL_CAPACITY];
+
+    private Point3D[] directions = new Point3D[INITIAL_CAPACITY];
+
+    private Point3D[] destinations = new Point3D[INITIAL_CAPACITY];
+
+    /**
+     * Upper bound of the used slots.
+     */
+    private int slotCount;
+
+    EntityFieldArrays(final IntConsumer moveListener) {
+        super();
+        this.moveListener = moveListener;
+    }
+
+    /**
+     * Store the fields of an entity, the entity accessors use the arrays until it is detached.
+     *
+     * @param slot Slot of the entity.
+     * @param entity Entity to attach.
+     */
+    void attach(final int slot, final BaseEntity entity) {
+        this.ensureCapacity(slot + 1);
+        this.slotCount = Math.max(this.slotCount, slot + 1);
+        this.entities[slot] = entity;
+        this.setPosition(slot, entity.getPosition());
+        this.setDirection(slot, entity.getDirection());
+        this.setDestination(slot, entity.getDestination());
+        this.maxHitPoints[slot] = entity.getMaxHitPoints();
+        this.hitPoints[slot] = entity.getHitPoints();
+        this.maxEnergyPoints[slot] = entity.getMaxEnergyPoints();
+        this.energyPoints[slot] = entity.getEnergyPoints();
+        entity.attachFields(this, slot);
+    }
+
+    /**
+     * Stop storing the fields of an entity, they are copied back in the entity.
+     *
+     * @param slot Slot of the entity to detach.
+     */
+    void detach(final int slot) {
+        BaseEntity e = this.entities[slot];
+        if (e != null) {
+            e.detachFields();
+            this.entities[slot] = null;
+            this.positions[slot] = null;
+            this.directions[slot] = null;
+            this.destinations[slot] = null;
+        }
+    }
+
+    /**
+     * @return The upper bound of the used slots.
+     */
+    public int getSlotCount() {
+        return this.slotCount;
+    }
+
+    /**
+     * @param slot Slot to get the entity.
+     * @return The entity using the slot, or null if the slot is free.
+     */
+    public BaseEntity getEntity(final int slot) {
+        return this.entities[slot];
+    }
+
+    public float getPositionX(final int slot) {
+        return this.positionX[slot];
+    }
+
+    public float getPositionY(final int slot) {
+        return this.positionY[slot];
+    }
+
+    public float getPositionZ(final int slot) {
+        return this.positionZ[slot];
+    }
+
+    public float getDestinationX(final int slot) {
+        return this.destinationX[slot];
+    }
+
+    public float getDestinationY(final int slot) {
+        return this.destinationY[slot];
+    }
+
+    public float getDestinationZ(final int slot) {
+        return this.destinationZ[slot];
+    }
+
+    public float getDirectionX(final int slot) {
+        return this.directionX[slot];
+    }
+
+    public float getDirectionY(final int slot) {
+        return this.directionY[slot];
+    }
+
+    public float getDirectionZ(final int slot) {
+        return this.directionZ[slot];
+    }
+
+    public int getHitPoints(final int slot) {
+        return this.hitPoints[slot];
+    }
+
+    public int getMaxHitPoints(final int slot) {
+        return this.maxHitPoints[slot];
+    }
+
+    public int getEnergyPoints(final int slot) {
+        return this.energyPoints[slot];
+    }
+
+    public int getMaxEnergyPoints(final int slot) {
+        return this.maxEnergyPoints[slot];
+    }
+
+    /**
+     * Move an entity, the spatial index is updated, nothing happens if the slot is not used.
+     *
+     * @param slot Slot of the entity to move.
+     * @param x New position x value.
+     * @param y New position y value.
+     * @param z New position z value.
+     */
+    public void setPosition(final int slot, final float x, final float y, final float z) {
+        if (this.entities[slot] == null) {
+            return;
+        }
+        this.positionX[slot] = x;
+        this.positionY[slot] = y;
+        this.positionZ[slot] = z;
+        this.positions[slot] = null;
+        this.markDirty(slot, DirtyField.POSITION);
+        this.moveListener.accept(slot);
+    }
+
+    /**
+     * Set the hit points of an entity, the value is kept between 0 and the max hit points.
+     *
+     * @param slot Slot of the entity.
+     * @param value New hit points.
+     */
+    public void setHitPoints(final int slot, final int value) {
+        this.hitPoints[slot] = clamp(value, this.maxHitPoints[slot]);
+        this.markDirty(slot, DirtyField.HIT_POINTS);
+    }
+
+    /**
+     * Set the energy points of an entity, the value is kept between 0 and the max energy points.
+     *
+     * @param slot Slot of the entity.
+     * @param value New energy points.
+     */
+    public void setEnergyPoints(final int slot, final int value) {
+        this.energyPoints[slot] = clamp(value, this.maxEnergyPoints[slot]);
+        this.markDirty(slot, DirtyField.ENERGY_POINTS);
+    }
+
+    /**
+     * Move every entity toward its destination.
+     *
+     * @param distance Maximum distance to move, an entity closer to its destination stops on it.
+     * @return The number of entities moved.
+     */
+    public int moveTowardDestination(final float distance) {
+        float d2 = distance * distance;
+        int moved = 0;
+        for (int i = 0; i < this.slotCount; i++) {
+            float dx = this.destinationX[i] - this.positionX[i];
+            float dy = this.destinationY[i] - this.positionY[i];
+            float dz = this.destinationZ[i] - this.positionZ[i];
+            float length2 = dx * dx + dy * dy + dz * dz;
+            if (length2 == 0 || this.entities[i] == null) {
+                continue;
+            }
+            if (length2 <= d2) {
+                this.setPosition(i, this.destinationX[i], this.destinationY[i], this.destinationZ[i]);
+            } else {
+                float ratio = distance / (float) Math.sqrt(length2);
+                this.setPosition(i, this.positionX[i] + dx * ratio, this.positionY[i] + dy * ratio, this.positionZ[i] + dz * ratio);
+            }
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Add energy points to every entity, without exceeding their max energy points.
+     *
+     * @param amount Energy points to add.
+     */
+    public void regenerateEnergy(final int amount) {
+        for (int i = 0; i < this.slotCount; i++) {
+            int energy = this.energyPoints[i];
+            int value = clamp(energy + amount, this.maxEnergyPoints[i]);
+            if (value != energy && this.entities[i] != null) {
+                this.energyPoints[i] = value;
+                this.entities[i].markDirty(DirtyField.ENERGY_POINTS);
+            }
+        }
+    }
+
+    /**
+     * Add hit points to every living entity, without exceeding their max hit points.
+     *
+     * @param amount Hit points to add.
+     */
+    public void regenerateHitPoints(final int amount) {
+        for (int i = 0; i < this.slotCount; i++) {
+            int hp = this.hitPoints[i];
+            if (hp > 0) {
+                int value = clamp(hp + amount, this.maxHitPoints[i]);
+                if (value != hp && this.entities[i] != null) {
+                    this.hitPoints[i] = value;
+                    this.entities[i].markDirty(DirtyField.HIT_POINTS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieve the slots of the entities closer than a radius from a point, all the entities are checked.
+     *
+     * @param x Center x value.
+     * @param y Center y value.
+     * @param z Center z value.
+     * @param radius Zone radius.
+     * @param result Array to fill with the slots found, the search stops when it is full.
+     * @return The number of slots written in the result.
+     */
+    public int findInRadius(final float x, final float y, final float z, final float radius, final int[] result) {
+        float r2 = radius * radius;
+        int count = 0;
+        for (int i = 0; i < this.slotCount && count < result.length; i++) {
+            float dx = this.positionX[i] - x;
+            float dy = this.positionY[i] - y;
+            float dz = this.positionZ[i] - z;
+            if (dx * dx + dy * dy + dz * dz < r2 && this.entities[i] != null) {
+                result[count] = i;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    Point3D getPosition(final int slot) {
+        Point3D p = this.positions[slot];
+        if (p == null) {
+            p = Point3D.valueOf(this.positionX[slot], this.positionY[slot], this.positionZ[slot]);
+            this.positions[slot] = p;
+        }
+        return p;
+    }
+
+    Point3D getDirection(final int slot) {
+        Point3D p = this.directions[slot];
+        if (p == null) {
+            p = Point3D.valueOf(this.directionX[slot], this.directionY[slot], this.directionZ[slot]);
+            this.directions[slot] = p;
+        }
+        return p;
+    }
+
+    Point3D getDestination(final int slot) {
+        Point3D p = this.destinations[slot];
+        if (p == null) {
+            p = Point3D.valueOf(this.destinationX[slot], this.destinationY[slot], this.destinationZ[slot]);
+            this.destinations[slot] = p;
+        }
+        return p;
+    }
+
+    /**
+     * Flag a field of an entity as changed, if the slot is used.
+     *
+     * @param slot Slot of the entity.
+     * @param field Changed field, as a DirtyField bit.
+     */
+    private void markDirty(final int slot, final int field) {
+        BaseEntity e = this.entities[slot];
+        if (e != null) {
+            e.markDirty(field);
+        }
+    }
+
+    /**
+     * Set the position without notifying the move listener, used by the entity that notifies its own observer.
+     */
+    void setPosition(final int slot, final Point3D p) {
+        this.positionX[slot] = p.x;
+        this.positionY[slot] = p.y;
+        this.positionZ[slot] = p.z;
+        this.positions[slot] = p;
+    }
+
+    void setDirection(final int slot, final Point3D p) {
+        this.directionX[slot] = p.x;
+        this.directionY[slot] = p.y;
+        this.directionZ[slot] = p.z;
+        this.directions[slot] = p;
+    }
+
+    void setDestination(final int slot, final Point3D p) {
+        this.destinationX[slot] = p.x;
+        this.destinationY[slot] = p.y;
+        this.destinationZ[slot] = p.z;
+        this.destinations[slot] = p;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= this.entities.length) {
+            return;
+        }
+        int c = Math.max(capacity, this.entities.length << 1);
+        this.entities = Arrays.copyOf(this.entities, c);
+        this.positionX = Arrays.copyOf(this.positionX, c);
+        this.positionY = Arrays.copyOf(this.positionY, c);
+        this.positionZ = Arrays.copyOf(this.positionZ, c);
+        this.directionX = Arrays.copyOf(this.directionX, c);
+        this.directionY = Arrays.copyOf(this.directionY, c);
+        this.directionZ = Arrays.copyOf(this.directionZ, c);
+        this.destinationX = Arrays.copyOf(this.destinationX, c);
+        this.destinationY = Arrays.copyOf(this.destinationY, c);
+        this.destinationZ = Arrays.copyOf(this.destinationZ, c);
+        this.hitPoints = Arrays.copyOf(this.hitPoints, c);
+        this.maxHitPoints = Arrays.copyOf(this.maxHitPoints, c);
+        this.energyPoints = Arrays.copyOf(this.energyPoints, c);
+        this.maxEnergyPoints = Arrays.copyOf(this.maxEnergyPoints, c);
+        this.positions = Arrays.copyOf(this.positions, c);
+        this.directions = Arrays.copyOf(this.directions, c);
+        this.destinations = Arrays.copyOf(this.destinations, c);
+    }
+
+    private static int clamp(final int value, final int max) {
+        return Math.max(0, Math.min(value, max));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+/**
+ * Handle to an entity managed by an EntityManager, to retrieve it with a bounds check and an array read instead of a hash lookup.
+ * A handle is made of the slot used by the entity in the manager, and of the slot generation, incremented every time the slot is released:
+ * once the entity is removed, the handle is stale and does not give access to the entity, even if the slot is reused by another entity.
+ * The EntityId remains the entity identity, a handle is only valid for the manager that issued it, and only as long as the entity is managed.
+ * Immutable class.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class EntityHandle {
+
+    /**
+     * Handle not matching any entity.
+     */
+    public static final EntityHandle INVALID = new EntityHandle(-1, 0, null);
+
+    /**
+     * Slot of the entity in the manager.
+     */
+    public final int slot;
+
+    /**
+     * Generation of the slot when the handle was issued.
+     */
+    public final int generation;
+
+    /**
+     * Entity associated to the handle.
+     */
+    final Entity entity;
+
+    EntityHandle(final int slot, final int generation, final Entity entity) {
+        super();
+        this.slot = slot;
+        this.generation = generation;
+        this.entity = entity;
+    }
+
+    /**
+     * Pack this handle in a primitive long, to be stored without any object.
+     *
+     * @return The generation in the high 32 bits, the slot in the low 32 bits.
+     */
+    public long toLong() {
+        return ((long) this.generation << 32) | (this.slot & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        EntityHandle that = (EntityHandle) o;
+
+        return slot == that.slot && generation == that.generation;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = slot;
+        result = 31 * result + generation;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityHandle:" + this.slot + "-" + this.generation;
+    }
+}
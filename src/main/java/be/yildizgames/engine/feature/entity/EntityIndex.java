@@ -0,0 +1,266 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Open addressing hash table, mapping the primitive entity id value to the entity, and to an int position chosen by the owner of the index.
+ * Lookups do not box the id and only read 2 arrays, removals leave a tombstone to keep the probe sequences valid, the table is rebuilt when there are too many of them.
+ * Only one thread at a time can update the index, but get and getPosition can be called from any thread at any time:
+ * the entries are published with release/acquire semantics, a resized table is built before being published,
+ * and the entity found is checked to have the requested id, so a concurrent reader never sees a wrong entity.
+ *
+ * @author Grégory Van den Borre
+ */
+final class EntityIndex<T extends Entity> {
+
+    /**
+     * Access to the values with release/acquire semantics.
+     */
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /**
+     * Marker for a removed entry.
+     */
+    private static final Object TOMBSTONE = new Object();
+
+    /**
+     * Initial table capacity, must be a power of 2.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Current table, replaced when resized.
+     */
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    /**
+     * Number of live entries.
+     */
+    private int size;
+
+    /**
+     * Number of tombstones in the current table.
+     */
+    private int tombstones;
+
+    /**
+     * Retrieve an entity from its id value.
+     *
+     * @param id Entity id value.
+     * @return The entity, or null if not found.
+     */
+    @SuppressWarnings("unchecked")
+    T get(final long id) {
+        Table t = this.table;
+        int mask = t.mask;
+        int i = hash(id, t.shift);
+        for (int n = 0; n <= mask; n++) {
+            Object v = VALUES.getAcquire(t.values, i);
+            if (v == null) {
+                return null;
+            }
+            if (v != TOMBSTONE && t.keys[i] == id) {
+                T e = (T) v;
+                return e.getId().value == id ? e : null;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Add an entity, if an entity with the same id is already present, it is replaced.
+     *
+     * @param entity Entity to add.
+     * @param position Position associated to the entity.
+     * @return <code>true</code> if the entity was not present.
+     */
+    boolean put(final T entity, final int position) {
+        long id = entity.getId().value;
+        int slot = this.find(this.table, id);
+        if (slot >= 0) {
+            Table t = this.table;
+            t.positions[slot] = position;
+            VALUES.setRelease(t.values, slot, entity);
+            return false;
+        }
+        if ((this.size + this.tombstones + 1) << 1 > this.table.values.length) {
+            this.rebuild();
+        }
+        Table t = this.table;
+        int i = hash(id, t.shift);
+        while (true) {
+            Object v = t.values[i];
+            if (v == null || v == TOMBSTONE) {
+                if (v == TOMBSTONE) {
+                    this.tombstones--;
+                }
+                t.keys[i] = id;
+                t.positions[i] = position;
+                VALUES.setRelease(t.values, i, entity);
+                this.size++;
+                return true;
+            }
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    /**
+     * Remove an entity.
+     *
+     * @param id Id value of the entity to remove.
+     * @return The position associated to the removed entity, or -1 if not found.
+     */
+    int remove(final long id) {
+        Table t = this.table;
+        int slot = this.find(t, id);
+        if (slot < 0) {
+            return -1;
+        }
+        VALUES.setRelease(t.values, slot, TOMBSTONE);
+        this.size--;
+        this.tombstones++;
+        return t.positions[slot];
+    }
+
+    /**
+     * Retrieve the position associated to an entity, can be called from any thread.
+     *
+     * @param id Entity id value.
+     * @return The position associated to the entity, or -1 if not found.
+     */
+    int getPosition(final long id) {
+        Table t = this.table;
+        int mask = t.mask;
+        int i = hash(id, t.shift);
+        for (int n = 0; n <= mask; n++) {
+            Object v = VALUES.getAcquire(t.values, i);
+            if (v == null) {
+                return -1;
+            }
+            if (v != TOMBSTONE && t.keys[i] == id) {
+                int position = t.positions[i];
+                VarHandle.acquireFence();
+                return ((Entity) v).getId().value == id && t.values[i] == v ? position : -1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of entities.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Find the slot used by an id, only to be called by the writer thread.
+     *
+     * @param t Table to search in.
+     * @param id Id value.
+     * @return The slot, or -1 if not found.
+     */
+    private int find(final Table t, final long id) {
+        int i = hash(id, t.shift);
+        while (true) {
+            Object v = t.values[i];
+            if (v == null) {
+                return -1;
+            }
+            if (v != TOMBSTONE && t.keys[i] == id) {
+                return i;
+            }
+            i = (i + 1) & t.mask;
+        }
+    }
+
+    /**
+     * Build a new table without tombstones, twice bigger if the live entries use more than a quarter of the current one,
+     * and publish it once complete.
+     */
+    private void rebuild() {
+        Table old = this.table;
+        int capacity = old.values.length;
+        if ((this.size + 1) << 2 > capacity) {
+            capacity <<= 1;
+        }
+        Table t = new Table(capacity);
+        for (int j = 0; j < old.values.length; j++) {
+            Object v = old.values[j];
+            if (v != null && v != TOMBSTONE) {
+                int i = hash(old.keys[j], t.shift);
+                while (t.values[i] != null) {
+                    i = (i + 1) & t.mask;
+                }
+                t.keys[i] = old.keys[j];
+                t.positions[i] = old.positions[j];
+                t.values[i] = v;
+            }
+        }
+        this.tombstones = 0;
+        this.table = t;
+    }
+
+    /**
+     * Fibonacci hashing, spread the sequential ids over the whole table.
+     *
+     * @param id Id value.
+     * @param shift 64 - log2(table capacity).
+     * @return The first slot to probe.
+     */
+    private static int hash(final long id, final int shift) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Arrays of the hash table, a key, value and position share the same index.
+     */
+    private static final class Table {
+
+        private final long[] keys;
+
+        private final Object[] values;
+
+        private final int[] positions;
+
+        private final int mask;
+
+        private final int shift;
+
+        private Table(final int capacity) {
+            super();
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.positions = new int[capacity];
+            this.mask = capacity - 1;
+            this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        }
+    }
+}
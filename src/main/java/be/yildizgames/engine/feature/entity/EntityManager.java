@@ -24,64 +24,193 @@
 
 package be.yildizgames.engine.feature.entity;
 
+import be.yildizgames.common.geometry.Point3D;
 import be.yildizgames.common.model.EntityId;
 import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.common.util.Checker;
 import be.yildizgames.engine.feature.entity.bonus.EntityBonus;
 import be.yildizgames.engine.feature.entity.data.EntityType;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Manage all entities.
+ * A thread safe instance can be built with threadSafe(world): lookups can then be done from any thread without
+ * locking, while all the structural changes (add, remove, owner change, bonus) are serialized.
+ * The spatial index is shared, so in a thread safe instance, the spatial queries and the moves updating the index take the lock as well,
+ * an instance that is not thread safe never locks them.
+ * Entities are also kept in a spatial index, to retrieve them by zone, entities extending BaseEntity update it when they move,
+ * other implementations must call updatePosition.
+ * The hot fields of the entities extending BaseEntity can be stored in arrays to process them in batch, see enableFieldArrays.
  *
  * @author Grégory Van den Borre
  */
 public class EntityManager<T extends Entity> {
 
+    /**
+     * Spatial index cell size used by default.
+     */
+    private static final float DEFAULT_CELL_SIZE = 32f;
+
     /**
      * List of all entities by Player.
      */
-    private final Map<PlayerId, Set<T>> entityList = new HashMap<>();
+    private final Map<PlayerId, Set<T>> entityList;
+
+    /**
+     * Number of entities by player and type.
+     */
+    private final Map<PlayerId, EntityTypeCounter> counters;
+
+    /**
+     * All entities, in a dense array used to iterate every frame, and indexed by id.
+     */
+    private final EntityStore<T> store = new EntityStore<>();
+
+    /**
+     * All entities, by zone.
+     */
+    private SpatialGrid<T> grid = new SpatialGrid<>(DEFAULT_CELL_SIZE);
+
+    /**
+     * Hot fields of the entities, null until enabled.
+     */
+    private EntityFieldArrays fields;
+
+    /**
+     * Structural changes waiting to be applied.
+     */
+    private final ChangeBuffer<T> pending = new ChangeBuffer<>();
+
+    /**
+     * Notified when an entity is added or woken up, to update it again.
+     */
+    private EntityObserver scheduler = EntityObserver.NONE;
+
+    /**
+     * Observer installed on the managed entities.
+     */
+    private final EntityObserver observer = new EntityObserver() {
+
+        @Override
+        public void positionChanged(final BaseEntity entity, final Point3D previous) {
+            EntityManager.this.positionChanged(entity, previous);
+        }
+
+        @Override
+        public void wokenUp(final BaseEntity entity) {
+            EntityManager.this.scheduler.wokenUp(entity);
+        }
+
+        @Override
+        public void dirtied(final BaseEntity entity) {
+            EntityManager.this.dirtied(entity);
+        }
+    };
+
+    /**
+     * <code>true</code> once the changes are tracked, with enableChangeTracking or the first drain.
+     */
+    private volatile boolean tracking;
+
+    /**
+     * Entities changed since the last drain, an entity is in the list at most once, even if removed and added again.
+     */
+    private List<BaseEntity> changed = new ArrayList<>();
 
     /**
-     * List of all Entity, by Id.
+     * Entities being drained, swapped with the changed list to accept the changes made by the consumer.
      */
-    private final Map<EntityId, T> entities = new HashMap<>();
+    private List<BaseEntity> draining = new ArrayList<>();
+
+    /**
+     * Changed fields of the entities being drained, reused.
+     */
+    private int[] drainedFields = new int[16];
 
     /**
      * List of all entity bonus associated to a player.
      */
-    private final Map<PlayerId, Set<EntityBonus>> bonusList = new HashMap<>();
+    private final Map<PlayerId, Set<EntityBonus>> bonusList;
+
+    /**
+     * Lock used to serialize the structural changes, the lookups never use it, the spatial queries only use it if this manager is thread safe.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * <code>true</code> if the lookups can be done from other threads than the writers.
+     */
+    private final boolean threadSafe;
 
     private final T world;
 
     public EntityManager(T world) {
+        this(world, false);
+    }
+
+    private EntityManager(T world, boolean threadSafe) {
+        super();
         this.world = world;
+        this.threadSafe = threadSafe;
+        this.entityList = threadSafe ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.bonusList = threadSafe ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.counters = threadSafe ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * Build an entity manager safe to be read from several threads.
+     * Lookups (findById, findByHandle, getById, getHandle, getEntities(PlayerId), getNumberOfEntities) never lock and can run while a frame is updating the entities,
+     * they see every structural change completed before the call, the sets returned for a player are weakly consistent.
+     * Writers are serialized with a lock.
+     *
+     * @param world Entity returned when a lookup does not find anything.
+     * @param <T> Entity implementation.
+     * @return The created manager.
+     */
+    public static <T extends Entity> EntityManager<T> threadSafe(T world) {
+        return new EntityManager<>(world, true);
+    }
+
+    /**
+     * @return <code>true</code> if this manager can be read from several threads.
+     */
+    public final boolean isThreadSafe() {
+        return this.threadSafe;
     }
 
     /**
      * Get the number of entities owned by a player for a given type.
+     * The value is maintained when entities are added, removed or change owner, so the cost does not depend on the number of entities.
      *
      * @param player Player to get the number of entities.
      * @param type Entity type.
      * @return The number of entities.
      */
     public final int getNumberOfEntities(final PlayerId player, final EntityType type) {
-        int number = 0;
-        Set<T> l = this.entityList.get(player);
-        for (T e : l) {
-            if (e.getType() == type) {
-                number++;
-            }
-        }
-        return number;
+        EntityTypeCounter counter = this.counters.get(player);
+        return counter == null ? 0 : counter.get(type);
+    }
+
+    /**
+     * Check if a player owns at least one entity of a given type.
+     *
+     * @param player Player to check.
+     * @param type Entity type.
+     * @return <code>true</code> if the player owns an entity of that type.
+     */
+    public final boolean hasEntity(final PlayerId player, final EntityType type) {
+        return this.getNumberOfEntities(player, type) > 0;
     }
 
     /**
@@ -94,14 +223,23 @@ public class EntityManager<T extends Entity> {
 
     /**
      * Add an entity. This method is meant to be used automatically when an entity is created, and should not be called manually.
+     * If an entity with the same id is already managed, nothing happens.
      *
      * @param entity Entity to add.
      */
     public final void addEntity(final T entity) {
-        this.entities.put(entity.getId(), entity);
-        PlayerId p = entity.getOwner();
-        Set<T> list = this.entityList.computeIfAbsent(p, PlayerId -> new HashSet<>());
-        list.add(entity);
+        StructuralChangeEvent event = StructuralChangeEvent.start();
+        this.lock.lock();
+        try {
+            if (this.insert(entity)) {
+                PlayerId p = entity.getOwner();
+                this.counterFor(p).increment(entity.getType());
+                this.setFor(p).add(entity);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        event.finish("add", 1);
         //Set<EntityBonus> boni = CollectionUtil.getOrCreateSetFromMap(this.bonusList, p);
         //for (EntityBonus b : boni) {
         // for (EntityType be.yildizgames.engine.feature.entity.data : b.getTypes()) {
@@ -113,6 +251,36 @@ public class EntityManager<T extends Entity> {
         //}
     }
 
+    /**
+     * Add several entities at once, the lock is only taken once and the indexes of consecutive entities with the same owner are only retrieved once.
+     * The entities already managed are ignored.
+     *
+     * @param entities Entities to add.
+     */
+    public final void addEntities(final Collection<? extends T> entities) {
+        StructuralChangeEvent event = StructuralChangeEvent.start();
+        this.lock.lock();
+        try {
+            PlayerId p = null;
+            Set<T> list = null;
+            EntityTypeCounter counter = null;
+            for (T entity : entities) {
+                if (this.insert(entity)) {
+                    if (entity.getOwner() != p) {
+                        p = entity.getOwner();
+                        list = this.setFor(p);
+                        counter = this.counterFor(p);
+                    }
+                    counter.increment(entity.getType());
+                    list.add(entity);
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        event.finish("add", entities.size());
+    }
+
     /**
      * Remove an entity, this method is meant to be used automatically when an entity is destroyed, and should not be called manually.
      *
@@ -125,14 +293,53 @@ public class EntityManager<T extends Entity> {
     //@postcondition: entity is removed from this system.
     public final void removeEntity(final T entity) {
         // FIXME also remove all bonus && visible.
-        assert this.entityList.containsKey(entity.getOwner());
-        this.entityList.get(entity.getOwner()).remove(entity);
-        this.entities.remove(entity.getId());
+        StructuralChangeEvent event = StructuralChangeEvent.start();
+        this.lock.lock();
+        try {
+            assert this.entityList.containsKey(entity.getOwner());
+            this.entityList.get(entity.getOwner()).remove(entity);
+            if (this.delete(entity)) {
+                this.counters.get(entity.getOwner()).decrement(entity.getType());
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        event.finish("remove", 1);
+    }
+
+    /**
+     * Remove several entities at once, the lock is only taken once and the indexes of consecutive entities with the same owner are only retrieved once.
+     * The entities not managed are ignored.
+     *
+     * @param entities Entities to remove.
+     */
+    public final void removeEntities(final Collection<? extends T> entities) {
+        StructuralChangeEvent event = StructuralChangeEvent.start();
+        this.lock.lock();
+        try {
+            PlayerId p = null;
+            Set<T> list = null;
+            EntityTypeCounter counter = null;
+            for (T entity : entities) {
+                if (this.delete(entity)) {
+                    if (entity.getOwner() != p) {
+                        p = entity.getOwner();
+                        list = this.entityList.get(p);
+                        counter = this.counters.get(p);
+                    }
+                    list.remove(entity);
+                    counter.decrement(entity.getType());
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        event.finish("remove", entities.size());
     }
 
     public final void removeEntity(EntityId entityId) {
-        assert this.entities.get(entityId) != null;
-        Optional.ofNullable(this.entities.get(entityId)).ifPresent(this::removeEntity);
+        assert this.store.get(entityId.value) != null;
+        Optional.ofNullable(this.store.get(entityId.value)).ifPresent(this::removeEntity);
     }
 
     /**
@@ -142,7 +349,12 @@ public class EntityManager<T extends Entity> {
      * @param bonus Bonus to add.
      */
     public final void addBonus(final PlayerId p, final EntityBonus bonus) {
-        this.bonusList.computeIfAbsent(p, PlayerId -> new HashSet<>()).add(bonus);
+        this.lock.lock();
+        try {
+            this.bonusList.computeIfAbsent(p, PlayerId -> this.newSet()).add(bonus);
+        } finally {
+            this.lock.unlock();
+        }
         //Set<Entity> list = CollectionUtil.getOrCreateSetFromMap(this.entityList, p);
         // for (EntityType be.yildizgames.engine.feature.entity.data : bonus.getTypes()) {
         // for (Entity e : list) {
@@ -161,7 +373,160 @@ public class EntityManager<T extends Entity> {
      * @return The Entity found, or world if nothing is found.
      */
     public final T findById(final EntityId id) {
-        return this.entities.getOrDefault(id, this.world);
+        T e = this.store.get(id.value);
+        return e == null ? this.world : e;
+    }
+
+    /**
+     * Retrieve the entities closer than a radius from a point, only the entities in the cells around the point are checked.
+     *
+     * @param center Center of the zone.
+     * @param radius Zone radius.
+     * @param result Collection to fill with the entities found, it is not cleared and can be reused between calls to avoid any allocation.
+     */
+    public final void findInRadius(final Point3D center, final float radius, final Collection<? super T> result) {
+        this.lockIfThreadSafe();
+        try {
+            this.grid.findInRadius(center, radius, result);
+        } finally {
+            this.unlockIfThreadSafe();
+        }
+    }
+
+    /**
+     * Retrieve the entities in an axis aligned box, bounds included.
+     *
+     * @param min Lowest box corner.
+     * @param max Highest box corner.
+     * @param result Collection to fill with the entities found, it is not cleared and can be reused between calls to avoid any allocation.
+     */
+    public final void findInBox(final Point3D min, final Point3D max, final Collection<? super T> result) {
+        this.lockIfThreadSafe();
+        try {
+            this.grid.findInBox(min, max, result);
+        } finally {
+            this.unlockIfThreadSafe();
+        }
+    }
+
+    /**
+     * Retrieve the entities the closest to a point.
+     *
+     * @param center Point to get the nearest entities.
+     * @param k Maximum number of entities to retrieve.
+     * @param result List to fill with the entities found, the closest first, it is not cleared and can be reused between calls.
+     */
+    public final void findNearest(final Point3D center, final int k, final List<? super T> result) {
+        this.lockIfThreadSafe();
+        try {
+            this.grid.findNearest(center, k, result);
+        } finally {
+            this.unlockIfThreadSafe();
+        }
+    }
+
+    /**
+     * Update the spatial index after an entity moved, only needed for the entities not extending BaseEntity.
+     *
+     * @param entity Entity that moved.
+     */
+    public final void updatePosition(final T entity) {
+        this.lock.lock();
+        try {
+            int slot = this.store.getSlot(entity.getId().value);
+            if (slot >= 0) {
+                this.grid.move(slot, entity.getPosition());
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Change the cell size of the spatial index, it should be close to the usual query radius.
+     *
+     * @param cellSize New cell size.
+     * @throws IllegalArgumentException If the cell size is not greater than zero.
+     */
+    public final void setSpatialCellSize(final float cellSize) {
+        Checker.exceptionNotGreaterThanZero(cellSize);
+        this.lock.lock();
+        try {
+            SpatialGrid<T> g = new SpatialGrid<>(cellSize);
+            this.store.forEach(e -> g.add(this.store.getSlot(e.getId().value), e));
+            this.grid = g;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Store the position, direction, destination, hit points and energy of the entities extending BaseEntity in parallel arrays indexed by slot,
+     * the current entities are migrated, and the entities added later are stored in the arrays too.
+     * The entity accessors remain usable, and the arrays can be used to process all the entities in batch from the thread updating them.
+     *
+     * @return The arrays storing the entity fields.
+     */
+    public final EntityFieldArrays enableFieldArrays() {
+        this.lock.lock();
+        try {
+            if (this.fields == null) {
+                EntityFieldArrays f = new EntityFieldArrays(this::slotMoved);
+                this.store.forEach(e -> {
+                    if (e instanceof BaseEntity) {
+                        f.attach(this.store.getSlot(e.getId().value), (BaseEntity) e);
+                    }
+                });
+                this.fields = f;
+            }
+            return this.fields;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Provide the handle of an entity, to retrieve it later without any hash lookup.
+     * The handle is issued when the entity is added, and becomes stale when the entity is removed.
+     *
+     * @param id Id of the entity.
+     * @return The entity handle, or EntityHandle.INVALID if the entity is not managed.
+     */
+    public final EntityHandle getHandle(final EntityId id) {
+        EntityHandle h = this.store.getHandle(id.value);
+        return h == null ? EntityHandle.INVALID : h;
+    }
+
+    /**
+     * Return an Entity from its handle.
+     *
+     * @param handle Handle of the entity to get.
+     * @return The Entity, or world if the handle is stale.
+     */
+    public final T findByHandle(final EntityHandle handle) {
+        T e = this.store.getByHandle(handle);
+        return e == null ? this.world : e;
+    }
+
+    /**
+     * Return an Entity from its handle packed in a long.
+     *
+     * @param handle Handle of the entity to get, as returned by EntityHandle.toLong.
+     * @return The Entity, or world if the handle is stale.
+     */
+    public final T findByHandle(final long handle) {
+        T e = this.store.getByHandle(handle);
+        return e == null ? this.world : e;
+    }
+
+    /**
+     * Check if a handle still gives access to its entity.
+     *
+     * @param handle Handle to check.
+     * @return <code>false</code> if the entity was removed.
+     */
+    public final boolean isValid(final EntityHandle handle) {
+        return this.store.getByHandle(handle) != null;
     }
 
     /**
@@ -175,15 +540,228 @@ public class EntityManager<T extends Entity> {
         // FIXME recompute bonus in player and remove it from network message
         // parser (and somewhere else?)
         // FIXME builder list not managed, recompute it.
-        if (this.entityList.containsKey(player)) {
-            this.removeEntity(entity);
+        StructuralChangeEvent event = StructuralChangeEvent.start();
+        this.lock.lock();
+        try {
+            this.changeOwner(entity, player, this.setFor(player), this.counterFor(player));
+        } finally {
+            this.lock.unlock();
+        }
+        event.finish("transfer", 1);
+    }
+
+    /**
+     * Give several entities to a player at once, the lock is only taken once and the indexes of the new owner are only retrieved once.
+     * The entities not managed yet are added.
+     *
+     * @param entities Entities to change the owner.
+     * @param player New owner.
+     */
+    public final void transferOwnership(final Collection<? extends T> entities, final PlayerId player) {
+        StructuralChangeEvent event = StructuralChangeEvent.start();
+        this.lock.lock();
+        try {
+            Set<T> list = this.setFor(player);
+            EntityTypeCounter counter = this.counterFor(player);
+            for (T entity : entities) {
+                this.changeOwner(entity, player, list, counter);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        event.finish("transfer", entities.size());
+    }
+
+    /**
+     * Record an entity to add when applyPendingChanges is called.
+     *
+     * @param entity Entity to add.
+     */
+    public final void addEntityLater(final T entity) {
+        this.record(ChangeBuffer.ADD, entity, null);
+    }
+
+    /**
+     * Record an entity to remove when applyPendingChanges is called.
+     *
+     * @param entity Entity to remove.
+     */
+    public final void removeEntityLater(final T entity) {
+        this.record(ChangeBuffer.REMOVE, entity, null);
+    }
+
+    /**
+     * Record an owner change to apply when applyPendingChanges is called.
+     *
+     * @param entity Entity to change the owner.
+     * @param player New owner.
+     */
+    public final void setOwnerLater(final T entity, final PlayerId player) {
+        assert player != null;
+        this.record(ChangeBuffer.OWNER, entity, player);
+    }
+
+    /**
+     * Apply all the recorded structural changes, in the order they were recorded, this is meant to be called once per frame, at the frame boundary.
+     *
+     * @return The number of changes applied.
+     */
+    public final int applyPendingChanges() {
+        StructuralChangeEvent event = StructuralChangeEvent.start();
+        this.lock.lock();
+        int size = 0;
+        try {
+            size = this.pending.size();
+            for (int i = 0; i < size; i++) {
+                T entity = this.pending.getEntity(i);
+                switch (this.pending.getType(i)) {
+                    case ChangeBuffer.ADD:
+                        this.addEntity(entity);
+                        break;
+                    case ChangeBuffer.REMOVE:
+                        if (this.store.get(entity.getId().value) == entity) {
+                            this.removeEntity(entity);
+                        }
+                        break;
+                    default:
+                        this.setOwner(entity, this.pending.getOwner(i));
+                        break;
+                }
+            }
+            this.pending.clear();
+        } finally {
+            this.lock.unlock();
+        }
+        if (size > 0) {
+            event.finish("pending", size);
         }
-        entity.setOwner(player);
-        this.addEntity(entity);
+        return size;
     }
 
+    /**
+     * Provide the entities changed since the previous drain with their changed fields, and reset them.
+     * Only the changed entities are visited, an entity added since the previous drain has all its fields flagged,
+     * the entities removed in the meantime are skipped.
+     * This is meant to be called once per frame, at the frame boundary, once the entities are no longer updated.
+     * The changes made by the consumer are part of the next drain.
+     * The first drain enables the change tracking if it was not, all the entities are then provided with all their fields flagged.
+     *
+     * @param consumer Consumer receiving every changed entity with its changed fields, as DirtyField bits.
+     * @return The number of entities provided to the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public final int drainChanges(final ChangeConsumer<? super T> consumer) {
+        this.enableChangeTracking();
+        List<BaseEntity> list;
+        this.lock.lock();
+        try {
+            list = this.changed;
+            this.changed = this.draining;
+            this.draining = list;
+        } finally {
+            this.lock.unlock();
+        }
+        int size = list.size();
+        if (this.drainedFields.length < size) {
+            this.drainedFields = new int[Math.max(size, this.drainedFields.length << 1)];
+        }
+        int[] fields = this.drainedFields;
+        for (int i = 0; i < size; i++) {
+            BaseEntity e = list.get(i);
+            e.changeQueued = false;
+            fields[i] = e.clearDirty();
+        }
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            BaseEntity e = list.get(i);
+            if (fields[i] != 0 && this.store.get(e.getId().value) == e) {
+                consumer.accept((T) e, fields[i]);
+                count++;
+            }
+        }
+        list.clear();
+        return count;
+    }
+
+    /**
+     * Start tracking the changed entity fields, to be retrieved with drainChanges, all the current entities are flagged as changed.
+     * Until then, the changes are not recorded, so a manager never drained does not keep any change.
+     */
+    public final void enableChangeTracking() {
+        if (this.tracking) {
+            return;
+        }
+        this.lock.lock();
+        try {
+            this.tracking = true;
+            this.store.forEach(e -> {
+                if (e instanceof BaseEntity) {
+                    ((BaseEntity) e).clearDirty();
+                    ((BaseEntity) e).markDirty(DirtyField.ALL);
+                }
+            });
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of entities recorded as changed since the last drain, always 0 while the changes are not tracked.
+     */
+    public final int getChangedCount() {
+        this.lock.lock();
+        try {
+            return this.changed.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Copy all the entities in a new list, this method is meant for occasional use, to visit all entities every frame,
+     * forEachEntity must be preferred.
+     *
+     * @return A list containing all the entities.
+     */
     public final List<T> getEntities() {
-        return new ArrayList<>(this.entities.values());
+        this.lock.lock();
+        try {
+            List<T> result = new ArrayList<>(this.store.size());
+            this.store.copyTo(result);
+            return result;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Copy all the entities in a list, in the same order they are visited by forEachEntity.
+     *
+     * @param result List to fill, it is not cleared and can be reused between calls.
+     */
+    public final void copyEntities(final List<? super T> result) {
+        this.lock.lock();
+        try {
+            this.store.copyTo(result);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Visit every entity without any copy, entities can be added or removed by the action while visiting.
+     * An entity removed before being visited will not be visited, an entity added during the visit will only be visited the next time.
+     * Structural changes from other threads wait for the visit to complete.
+     *
+     * @param action Action to execute on every entity.
+     */
+    public final void forEachEntity(final Consumer<? super T> action) {
+        this.lock.lock();
+        try {
+            this.store.forEach(action);
+        } finally {
+            this.lock.unlock();
+        }
     }
 
     /**
@@ -191,8 +769,253 @@ public class EntityManager<T extends Entity> {
      * @return The entities matching the provided list of id.
      */
     public final List<T> getById(final List<EntityId> ids) {
-        return ids.stream()
-                .map(this::findById)
-                .collect(Collectors.toList());
+        List<T> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            result.add(this.findById(ids.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Retrieve several entities at once, without allocating anything.
+     *
+     * @param ids List of ids.
+     * @param result Array to fill with the entities matching the ids, at the same index, world is used if an id is not found.
+     * @throws IndexOutOfBoundsException If the result array is smaller than the ids list.
+     */
+    public final void getById(final List<EntityId> ids, final T[] result) {
+        for (int i = 0; i < ids.size(); i++) {
+            result[i] = this.findById(ids.get(i));
+        }
+    }
+
+    /**
+     * Retrieve several entities at once from their id values, without allocating anything.
+     *
+     * @param ids Id values, only the first length values are used.
+     * @param length Number of ids to retrieve.
+     * @param result Array to fill with the entities matching the ids, at the same index, world is used if an id is not found.
+     * @throws IndexOutOfBoundsException If an array is smaller than length.
+     */
+    public final void getById(final long[] ids, final int length, final T[] result) {
+        for (int i = 0; i < length; i++) {
+            T e = this.store.get(ids[i]);
+            result[i] = e == null ? this.world : e;
+        }
+    }
+
+    /**
+     * Provide the slot of a managed entity, stable while it is managed and reused once it is removed.
+     *
+     * @param entity Entity to retrieve.
+     * @return The entity slot, or -1 if it is not managed.
+     */
+    final int getSlot(final Entity entity) {
+        long id = entity.getId().value;
+        return this.store.get(id) == entity ? this.store.getSlot(id) : -1;
+    }
+
+    /**
+     * Set the scheduler to notify when an entity is added or woken up, all the current entities are notified.
+     *
+     * @param scheduler Scheduler to notify.
+     */
+    final void setScheduler(final EntityObserver scheduler) {
+        this.lock.lock();
+        try {
+            this.scheduler = scheduler;
+            this.store.forEach(e -> {
+                if (e instanceof BaseEntity) {
+                    scheduler.wokenUp((BaseEntity) e);
+                }
+            });
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Store an entity and register it in the spatial index, the owner indexes are not updated, the lock must be held.
+     *
+     * @param entity Entity to store.
+     * @return <code>true</code> if the entity was added, <code>false</code> if it was already managed.
+     */
+    private boolean insert(final T entity) {
+        if (!this.store.add(entity)) {
+            return false;
+        }
+        int slot = this.store.getSlot(entity.getId().value);
+        this.grid.add(slot, entity);
+        if (entity instanceof BaseEntity) {
+            BaseEntity e = (BaseEntity) entity;
+            e.clearDirty();
+            e.setObserver(this.observer);
+            if (this.fields != null) {
+                this.fields.attach(slot, e);
+            }
+            e.markDirty(DirtyField.ALL);
+            this.scheduler.wokenUp(e);
+        }
+        return true;
+    }
+
+    /**
+     * Remove an entity from the store and the spatial index, the owner indexes are not updated, the lock must be held.
+     *
+     * @param entity Entity to remove.
+     * @return <code>true</code> if the entity was removed, <code>false</code> if it was not managed.
+     */
+    private boolean delete(final T entity) {
+        long id = entity.getId().value;
+        if (this.store.get(id) != entity) {
+            return false;
+        }
+        int slot = this.store.getSlot(id);
+        this.grid.remove(slot);
+        if (entity instanceof BaseEntity) {
+            ((BaseEntity) entity).setObserver(EntityObserver.NONE);
+            if (this.fields != null) {
+                this.fields.detach(slot);
+            }
+            ((BaseEntity) entity).clearDirty();
+        }
+        return this.store.remove(entity);
+    }
+
+    /**
+     * Change the owner of an entity, or add it if it is not managed, the lock must be held.
+     *
+     * @param entity Entity to change the owner.
+     * @param player New owner.
+     * @param list Entities of the new owner.
+     * @param counter Entity counter of the new owner.
+     */
+    private void changeOwner(final T entity, final PlayerId player, final Set<T> list, final EntityTypeCounter counter) {
+        if (this.store.get(entity.getId().value) == entity) {
+            Optional.ofNullable(this.entityList.get(entity.getOwner())).ifPresent(l -> l.remove(entity));
+            this.counters.get(entity.getOwner()).decrement(entity.getType());
+            entity.setOwner(player);
+        } else {
+            entity.setOwner(player);
+            if (!this.insert(entity)) {
+                return;
+            }
+        }
+        list.add(entity);
+        counter.increment(entity.getType());
+    }
+
+    private void record(final byte type, final T entity, final PlayerId owner) {
+        this.lock.lock();
+        try {
+            this.pending.record(type, entity, owner);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private Set<T> setFor(final PlayerId player) {
+        return this.entityList.computeIfAbsent(player, PlayerId -> this.newSet());
+    }
+
+    private EntityTypeCounter counterFor(final PlayerId player) {
+        return this.counters.computeIfAbsent(player, PlayerId -> new EntityTypeCounter());
+    }
+
+    /**
+     * Keep the spatial index up to date when a managed entity moves.
+     *
+     * @param entity Entity that moved.
+     * @param previous Position before the move.
+     */
+    private void positionChanged(final BaseEntity entity, final Point3D previous) {
+        if (this.grid.isCellChanged(previous, entity.getPosition())) {
+            this.lockIfThreadSafe();
+            try {
+                int slot = this.store.getSlot(entity.getId().value);
+                if (slot >= 0) {
+                    this.grid.move(slot, entity.getPosition());
+                }
+            } finally {
+                this.unlockIfThreadSafe();
+            }
+        }
+    }
+
+    /**
+     * Keep the spatial index up to date when an entity is moved by the field arrays.
+     *
+     * @param slot Slot of the entity that moved.
+     */
+    private void slotMoved(final int slot) {
+        this.lockIfThreadSafe();
+        try {
+            this.grid.move(slot, this.fields.getPositionX(slot), this.fields.getPositionY(slot), this.fields.getPositionZ(slot));
+        } finally {
+            this.unlockIfThreadSafe();
+        }
+    }
+
+    /**
+     * Record an entity changed for the first time since the last drain, the entities can be changed from the action threads.
+     *
+     * @param entity Changed entity.
+     */
+    private void dirtied(final BaseEntity entity) {
+        if (!this.tracking) {
+            return;
+        }
+        this.lockIfThreadSafe();
+        try {
+            if (!entity.changeQueued) {
+                entity.changeQueued = true;
+                this.changed.add(entity);
+            }
+        } finally {
+            this.unlockIfThreadSafe();
+        }
+    }
+
+    /**
+     * Take the lock if this manager can be used from several threads, the moves, changes and spatial queries of a manager that is not thread safe are never locked.
+     */
+    private void lockIfThreadSafe() {
+        if (this.threadSafe) {
+            this.lock.lock();
+        }
+    }
+
+    /**
+     * Release the lock taken by lockIfThreadSafe.
+     */
+    private void unlockIfThreadSafe() {
+        if (this.threadSafe) {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @param <E> Set content.
+     * @return A new set, safe to be read by several threads if this manager is thread safe.
+     */
+    private <E> Set<E> newSet() {
+        return this.threadSafe ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    }
+
+    /**
+     * Receive the entities changed since the previous drain.
+     *
+     * @param <T> Entity implementation.
+     */
+    @FunctionalInterface
+    public interface ChangeConsumer<T> {
+
+        /**
+         * Receive a changed entity.
+         *
+         * @param entity Changed entity.
+         * @param fields Changed fields, as DirtyField bits.
+         */
+        void accept(T entity, int fields);
     }
 }
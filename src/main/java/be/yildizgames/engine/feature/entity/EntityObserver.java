@@ -0,0 +1,65 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+
+/**
+ * Notified when the state of a managed entity changes, installed on the entities by their manager.
+ *
+ * @author Grégory Van den Borre
+ */
+interface EntityObserver {
+
+    /**
+     * Observer used while an entity is not managed.
+     */
+    EntityObserver NONE = new EntityObserver() {};
+
+    /**
+     * Invoked after the position of an entity changed.
+     *
+     * @param entity Entity that moved.
+     * @param previous Position before the move.
+     */
+    default void positionChanged(BaseEntity entity, Point3D previous) {
+    }
+
+    /**
+     * Invoked when an entity may have work to do and must be updated again.
+     *
+     * @param entity Entity woken up.
+     */
+    default void wokenUp(BaseEntity entity) {
+    }
+
+    /**
+     * Invoked when a field of an entity changes for the first time since its last drain.
+     *
+     * @param entity Changed entity.
+     */
+    default void dirtied(BaseEntity entity) {
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hold the entities, to iterate over them without any allocation, and to retrieve them by id or by handle.
+ * Every entity gets a stable slot while it is stored, released slots are reused, and the slot generation is incremented on release to detect stale handles.
+ * The entities are also kept in a dense array for the iteration.
+ * Entities can be added or removed while iterating: a removed entity leaves an empty position, skipped by the iteration,
+ * and the array is compacted once the iteration is over, an entity added while iterating will only be visited by the next iteration.
+ * This class is not thread safe, the caller is responsible to serialize the calls, except for the get methods, that can be called from any thread.
+ *
+ * @author Grégory Van den Borre
+ */
+final class EntityStore<T extends Entity> {
+
+    /**
+     * Access to the handles with release/acquire semantics.
+     */
+    private static final VarHandle HANDLES = MethodHandles.arrayElementVarHandle(EntityHandle[].class);
+
+    /**
+     * Initial array size.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Entities, from 0 to size, can contain null values while iterating.
+     */
+    private Object[] entities = new Object[INITIAL_CAPACITY];
+
+    /**
+     * Slot of every entity in the entities array.
+     */
+    private int[] denseSlots = new int[INITIAL_CAPACITY];
+
+    /**
+     * Current handle for every slot, null if the slot is free.
+     */
+    private volatile EntityHandle[] handles = new EntityHandle[INITIAL_CAPACITY];
+
+    /**
+     * Current generation for every slot.
+     */
+    private int[] generations = new int[INITIAL_CAPACITY];
+
+    /**
+     * Position in the entities array for every slot.
+     */
+    private int[] slotPositions = new int[INITIAL_CAPACITY];
+
+    /**
+     * Released slots, to be reused.
+     */
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+
+    /**
+     * Number of released slots.
+     */
+    private int freeCount;
+
+    /**
+     * Number of slots ever used.
+     */
+    private int slotCount;
+
+    /**
+     * Entities by id value, with their slot.
+     */
+    private final EntityIndex<T> index = new EntityIndex<>();
+
+    /**
+     * Number of used positions in the entities array.
+     */
+    private int size;
+
+    /**
+     * Number of iterations currently running, iterations can be nested.
+     */
+    private int iterating;
+
+    /**
+     * Number of positions emptied during the current iteration.
+     */
+    private int holes;
+
+    /**
+     * Add an entity, if the entity is already present, nothing happens.
+     *
+     * @param entity Entity to add.
+     * @return <code>true</code> if the entity was added.
+     */
+    boolean add(final T entity) {
+        if (this.index.getPosition(entity.getId().value) >= 0) {
+            return false;
+        }
+        int slot = this.acquireSlot();
+        if (this.size == this.entities.length) {
+            this.entities = Arrays.copyOf(this.entities, this.size << 1);
+            this.denseSlots = Arrays.copyOf(this.denseSlots, this.size << 1);
+        }
+        this.entities[this.size] = entity;
+        this.denseSlots[this.size] = slot;
+        this.slotPositions[slot] = this.size;
+        this.size++;
+        this.index.put(entity, slot);
+        HANDLES.setRelease(this.handles, slot, new EntityHandle(slot, this.generations[slot], entity));
+        return true;
+    }
+
+    /**
+     * Remove an entity, if the entity is not present, nothing happens.
+     * When iterating, the position is emptied, otherwise it is replaced by the last entity.
+     *
+     * @param entity Entity to remove.
+     * @return <code>true</code> if the entity was removed.
+     */
+    boolean remove(final T entity) {
+        int slot = this.index.remove(entity.getId().value);
+        if (slot < 0) {
+            return false;
+        }
+        int p = this.slotPositions[slot];
+        this.releaseSlot(slot);
+        if (this.iterating > 0) {
+            this.entities[p] = null;
+            this.holes++;
+        } else {
+            this.size--;
+            if (p != this.size) {
+                this.move(this.size, p);
+            }
+            this.entities[this.size] = null;
+        }
+        return true;
+    }
+
+    /**
+     * Retrieve an entity from its id value, can be called from any thread.
+     *
+     * @param id Entity id value.
+     * @return The entity, or null if not found.
+     */
+    T get(final long id) {
+        return this.index.get(id);
+    }
+
+    /**
+     * Retrieve an entity from its handle, can be called from any thread.
+     *
+     * @param handle Entity handle.
+     * @return The entity, or null if the handle is stale.
+     */
+    @SuppressWarnings("unchecked")
+    T getByHandle(final EntityHandle handle) {
+        EntityHandle[] h = this.handles;
+        int slot = handle.slot;
+        if (slot < 0 || slot >= h.length || HANDLES.getAcquire(h, slot) != handle) {
+            return null;
+        }
+        return (T) handle.entity;
+    }
+
+    /**
+     * Retrieve an entity from its packed handle, can be called from any thread.
+     *
+     * @param handle Entity handle, as returned by EntityHandle.toLong.
+     * @return The entity, or null if the handle is stale.
+     */
+    @SuppressWarnings("unchecked")
+    T getByHandle(final long handle) {
+        EntityHandle[] h = this.handles;
+        int slot = (int) handle;
+        if (slot < 0 || slot >= h.length) {
+            return null;
+        }
+        EntityHandle current = (EntityHandle) HANDLES.getAcquire(h, slot);
+        if (current == null || current.generation != (int) (handle >>> 32)) {
+            return null;
+        }
+        return (T) current.entity;
+    }
+
+    /**
+     * Retrieve the current handle for an entity, can be called from any thread.
+     *
+     * @param id Entity id value.
+     * @return The entity handle, or null if the entity is not stored.
+     */
+    EntityHandle getHandle(final long id) {
+        int slot = this.index.getPosition(id);
+        EntityHandle[] h = this.handles;
+        if (slot < 0 || slot >= h.length) {
+            return null;
+        }
+        EntityHandle current = (EntityHandle) HANDLES.getAcquire(h, slot);
+        return current != null && current.entity.getId().value == id ? current : null;
+    }
+
+    /**
+     * Provide the slot of an entity, to be used by the writers only.
+     *
+     * @param id Entity id value.
+     * @return The entity slot, or -1 if the entity is not stored.
+     */
+    int getSlot(final long id) {
+        return this.index.getPosition(id);
+    }
+
+    /**
+     * Visit all the entities, the entities added during the visit are not visited, the entities removed during the visit and not visited yet are not visited.
+     *
+     * @param action Action to execute on every entity.
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(final Consumer<? super T> action) {
+        int end = this.size;
+        this.iterating++;
+        try {
+            for (int i = 0; i < end; i++) {
+                Object e = this.entities[i];
+                if (e != null) {
+                    action.accept((T) e);
+                }
+            }
+        } finally {
+            this.iterating--;
+            if (this.iterating == 0 && this.holes > 0) {
+                this.compact();
+            }
+        }
+    }
+
+    /**
+     * Copy all the entities in a list.
+     *
+     * @param result List to fill.
+     */
+    @SuppressWarnings("unchecked")
+    void copyTo(final List<? super T> result) {
+        for (int i = 0; i < this.size; i++) {
+            Object e = this.entities[i];
+            if (e != null) {
+                result.add((T) e);
+            }
+        }
+    }
+
+    /**
+     * @return The number of entities.
+     */
+    int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Provide a free slot, reusing the released ones first.
+     *
+     * @return The slot to use.
+     */
+    private int acquireSlot() {
+        if (this.freeCount > 0) {
+            this.freeCount--;
+            return this.freeSlots[this.freeCount];
+        }
+        int slot = this.slotCount;
+        if (slot == this.generations.length) {
+            int capacity = slot << 1;
+            this.generations = Arrays.copyOf(this.generations, capacity);
+            this.slotPositions = Arrays.copyOf(this.slotPositions, capacity);
+            this.freeSlots = Arrays.copyOf(this.freeSlots, capacity);
+            this.handles = Arrays.copyOf(this.handles, capacity);
+        }
+        this.slotCount++;
+        return slot;
+    }
+
+    /**
+     * Release a slot, making all its handles stale.
+     *
+     * @param slot Slot to release.
+     */
+    private void releaseSlot(final int slot) {
+        HANDLES.setRelease(this.handles, slot, null);
+        this.generations[slot]++;
+        this.freeSlots[this.freeCount] = slot;
+        this.freeCount++;
+    }
+
+    /**
+     * Move an entity in the entities array.
+     *
+     * @param from Current entity position.
+     * @param to New entity position.
+     */
+    private void move(final int from, final int to) {
+        int slot = this.denseSlots[from];
+        this.entities[to] = this.entities[from];
+        this.denseSlots[to] = slot;
+        this.slotPositions[slot] = to;
+    }
+
+    /**
+     * Remove the empty positions, keeping the entities order.
+     */
+    private void compact() {
+        int write = 0;
+        for (int read = 0; read < this.size; read++) {
+            if (this.entities[read] != null) {
+                if (read != write) {
+                    this.move(read, write);
+                }
+                write++;
+            }
+        }
+        Arrays.fill(this.entities, write, this.size, null);
+        this.size = write;
+        this.holes = 0;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.engine.feature.entity.data.EntityType;
+
+import java.util.Arrays;
+
+/**
+ * Count the number of entities for every entity type, for a single player.
+ * Only one thread at a time can update the counter, but it can be read from any thread:
+ * the array reference is volatile and written after every update, so a reader always sees the completed updates.
+ *
+ * @author Grégory Van den Borre
+ */
+final class EntityTypeCounter {
+
+    /**
+     * Number of entities, the index is the entity type value.
+     */
+    private volatile int[] counts = new int[8];
+
+    /**
+     * @param type Type to get the number of entities.
+     * @return The number of entities for that type.
+     */
+    int get(final EntityType type) {
+        int[] c = this.counts;
+        return type.type < c.length ? c[type.type] : 0;
+    }
+
+    /**
+     * Increase the number of entities for a type.
+     *
+     * @param type Type to increase.
+     */
+    void increment(final EntityType type) {
+        int[] c = this.counts;
+        if (type.type >= c.length) {
+            c = Arrays.copyOf(c, Math.max(type.type + 1, c.length << 1));
+        }
+        c[type.type]++;
+        this.counts = c;
+    }
+
+    /**
+     * Decrease the number of entities for a type.
+     *
+     * @param type Type to decrease.
+     */
+    void decrement(final EntityType type) {
+        int[] c = this.counts;
+        assert type.type < c.length && c[type.type] > 0 : "No entity to remove for " + type;
+        c[type.type]--;
+        this.counts = c;
+    }
+}
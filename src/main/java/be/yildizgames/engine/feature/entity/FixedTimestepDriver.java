@@ -0,0 +1,129 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.frame.EndFrameListener;
+import be.yildizgames.common.frame.FrameListener;
+
+/**
+ * Run a frame listener with a fixed time step, whatever the real frame duration.
+ * The real frame times are accumulated, and the listener is run once for every complete step, so the simulation does not depend on the frame rate.
+ * To avoid stalling the simulation when frames are too slow, at most maxSteps steps are run per frame, the time left is then dropped.
+ *
+ * @author Grégory Van den Borre
+ */
+public class FixedTimestepDriver extends EndFrameListener {
+
+    /**
+     * Listener to run every step.
+     */
+    private final FrameListener listener;
+
+    /**
+     * Duration of a step.
+     */
+    private final long step;
+
+    /**
+     * Maximum number of steps to run in a single frame.
+     */
+    private final int maxSteps;
+
+    /**
+     * Time not yet consumed by a step.
+     */
+    private long accumulator;
+
+    /**
+     * Number of steps run since the creation.
+     */
+    private long steps;
+
+    /**
+     * Number of steps dropped since the creation, because they exceeded the catch up limit.
+     */
+    private long droppedSteps;
+
+    /**
+     * Create a new driver.
+     *
+     * @param listener Listener to run every step.
+     * @param step Duration of a step, in the frame time unit.
+     * @param maxSteps Maximum number of steps to run in a single frame.
+     */
+    public FixedTimestepDriver(final FrameListener listener, final long step, final int maxSteps) {
+        super();
+        assert listener != null;
+        assert step > 0;
+        assert maxSteps > 0;
+        this.listener = listener;
+        this.step = step;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Run as many steps as the accumulated time allows, up to the catch up limit.
+     *
+     * @param time Time since the previous frame.
+     * @return true.
+     */
+    @Override
+    public final boolean frameEnded(final long time) {
+        this.accumulator += time;
+        int run = 0;
+        while (this.accumulator >= this.step && run < this.maxSteps) {
+            this.listener.frameEnded(this.step);
+            this.accumulator -= this.step;
+            run++;
+        }
+        this.steps += run;
+        if (this.accumulator >= this.step) {
+            this.droppedSteps += this.accumulator / this.step;
+            this.accumulator %= this.step;
+        }
+        return true;
+    }
+
+    /**
+     * @return The time accumulated not yet consumed by a step, usable to interpolate the rendering between two steps.
+     */
+    public final long getRemainingTime() {
+        return this.accumulator;
+    }
+
+    /**
+     * @return The number of steps run since the creation.
+     */
+    public final long getSteps() {
+        return this.steps;
+    }
+
+    /**
+     * @return The number of steps dropped since the creation because the frames were too slow to catch up.
+     */
+    public final long getDroppedSteps() {
+        return this.droppedSteps;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a phase of the action manager frame.
+ *
+ * @author Grégory Van den Borre
+ */
+@Name("be.yildizgames.entity.FramePhase")
+@Label("Entity Frame Phase")
+@Category({"Yildiz", "Entity"})
+@Description("Phase of the entity simulation frame: wake, tick, dispatch or structural changes.")
+@StackTrace(false)
+final class FramePhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Entities")
+    @Description("Number of entities processed during the phase.")
+    int entities;
+
+    /**
+     * Create and start a new event.
+     *
+     * @return The started event.
+     */
+    static FramePhaseEvent start() {
+        FramePhaseEvent event = new FramePhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the event and commit it if it is recorded.
+     *
+     * @param phase Phase name.
+     * @param entities Number of entities processed.
+     */
+    void finish(final String phase, final int entities) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.phase = phase;
+            this.entities = entities;
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,496 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.model.PlayerId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Compute, for every registered player, the entities worth replicating to it: the entities it owns, the entities seen by one of its entities,
+ * and the entities pinned for it.
+ * The listeners are notified when an entity enters or leaves the interest of a player,
+ * and the changes of the entities in the interest of a player are collected in its update list every frame,
+ * so the cost for a player depends on what it can see and not on the world size.
+ * The manager must be registered as line of sight listener and destruction listener, and receive the entity manager changes,
+ * either with collect, or as consumer of a significance filter drain, after calling clearUpdates.
+ * This class is not thread safe, it is meant to be used by the thread ending the frame.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class InterestManager<T extends Entity> implements LosListener<T>, DestructionListener<T>, EntityManager.ChangeConsumer<T> {
+
+    /**
+     * Interest of every registered player.
+     */
+    private final Map<PlayerId, PlayerInterest<T>> players = new HashMap<>();
+
+    /**
+     * Registered players, to iterate without allocation.
+     */
+    private final List<PlayerInterest<T>> playerList = new ArrayList<>();
+
+    /**
+     * Listeners notified about the interest changes.
+     */
+    private final List<InterestListener<T>> listeners = new ArrayList<>();
+
+    /**
+     * Owner for which the entities seen by a viewer are counted, to move them when the viewer changes owner.
+     */
+    private final Map<T, PlayerId> countedOwners = new HashMap<>();
+
+    private final EntityManager<T> manager;
+
+    public InterestManager(final EntityManager<T> manager) {
+        super();
+        assert manager != null;
+        this.manager = manager;
+    }
+
+    /**
+     * Add a listener to notify when an entity enters or leaves the interest of a player.
+     *
+     * @param listener Listener to add.
+     */
+    public void willNotify(final InterestListener<T> listener) {
+        assert listener != null;
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Start computing the interest of a player, its entities enter its interest.
+     * The entities it currently sees are not retrieved, they are added by the next line of sight events.
+     *
+     * @param player Player to register, nothing happens if it is already registered.
+     */
+    public void addPlayer(final PlayerId player) {
+        assert player != null;
+        if (this.players.containsKey(player)) {
+            return;
+        }
+        PlayerInterest<T> p = new PlayerInterest<>(player);
+        this.players.put(player, p);
+        this.playerList.add(p);
+        Set<T> owned = this.manager.getEntities(player);
+        if (owned != null) {
+            for (T e : owned) {
+                this.update(p, p.entry(e), (en) -> en.owned = true);
+            }
+        }
+    }
+
+    /**
+     * Stop computing the interest of a player, no leave event is sent.
+     *
+     * @param player Player to unregister.
+     */
+    public void removePlayer(final PlayerId player) {
+        PlayerInterest<T> p = this.players.remove(player);
+        if (p != null) {
+            this.playerList.remove(p);
+        }
+    }
+
+    /**
+     * Keep an entity in the interest of a player, whatever its visibility.
+     *
+     * @param player Registered player.
+     * @param entity Entity to pin.
+     */
+    public void pin(final PlayerId player, final T entity) {
+        PlayerInterest<T> p = this.players.get(player);
+        if (p != null) {
+            this.update(p, p.entry(entity), (e) -> e.pinned = true);
+        }
+    }
+
+    /**
+     * Stop keeping an entity in the interest of a player, it leaves the interest if it is not owned or seen by the player.
+     *
+     * @param player Registered player.
+     * @param entity Entity to unpin.
+     */
+    public void unpin(final PlayerId player, final T entity) {
+        PlayerInterest<T> p = this.players.get(player);
+        if (p != null) {
+            InterestEntry<T> e = p.entries.get(entity);
+            if (e != null) {
+                this.update(p, e, (en) -> en.pinned = false);
+            }
+        }
+    }
+
+    /**
+     * Check if an entity is in the interest of a player.
+     *
+     * @param player Player to check.
+     * @param entity Entity to check.
+     * @return <code>true</code> if the entity is replicated to the player.
+     */
+    public boolean isInterested(final PlayerId player, final T entity) {
+        PlayerInterest<T> p = this.players.get(player);
+        return p != null && p.entries.containsKey(entity);
+    }
+
+    /**
+     * @param player Player to check.
+     * @return The number of entities in the interest of the player.
+     */
+    public int getInterestSize(final PlayerId player) {
+        PlayerInterest<T> p = this.players.get(player);
+        return p == null ? 0 : p.entries.size();
+    }
+
+    /**
+     * Visit the entities in the interest of a player.
+     *
+     * @param player Player to check.
+     * @param action Action to execute on every entity.
+     */
+    public void forEachInterest(final PlayerId player, final Consumer<? super T> action) {
+        PlayerInterest<T> p = this.players.get(player);
+        if (p != null) {
+            p.entries.keySet().forEach(action);
+        }
+    }
+
+    /**
+     * Visit the entities to replicate to a player for the current frame, with the fields to send.
+     * The entities that entered the interest during the frame have all their fields flagged.
+     *
+     * @param player Player to replicate.
+     * @param consumer Consumer receiving every entity with its fields to send, as DirtyField bits.
+     * @return The number of entities visited.
+     */
+    public int forEachUpdate(final PlayerId player, final EntityManager.ChangeConsumer<? super T> consumer) {
+        PlayerInterest<T> p = this.players.get(player);
+        if (p == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < p.updateCount; i++) {
+            InterestEntry<T> e = p.updates[i];
+            if (e.fields != 0) {
+                consumer.accept(e.entity, e.fields);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Empty the update lists of all the players, and fill them again with the changes drained from the entity manager.
+     *
+     * @return The number of changed entities.
+     */
+    public int collect() {
+        this.clearUpdates();
+        return this.manager.drainChanges(this);
+    }
+
+    /**
+     * Empty the update lists of all the players, to be called before draining the changes of a new frame.
+     */
+    public void clearUpdates() {
+        for (int i = 0; i < this.playerList.size(); i++) {
+            PlayerInterest<T> p = this.playerList.get(i);
+            for (int j = 0; j < p.updateCount; j++) {
+                p.updates[j].fields = 0;
+                p.updates[j].queued = false;
+                p.updates[j] = null;
+            }
+            p.updateCount = 0;
+        }
+    }
+
+    /**
+     * Add a changed entity to the update list of the players interested in it, the owner changes are applied first.
+     *
+     * @param entity Changed entity.
+     * @param fields Changed fields, as DirtyField bits.
+     */
+    @Override
+    public void accept(final T entity, final int fields) {
+        if (entity.isDeleted()) {
+            return;
+        }
+        if (DirtyField.contains(fields, DirtyField.OWNER)) {
+            this.recount(entity, null);
+        }
+        for (int i = 0; i < this.playerList.size(); i++) {
+            PlayerInterest<T> p = this.playerList.get(i);
+            InterestEntry<T> e = p.entries.get(entity);
+            if (DirtyField.contains(fields, DirtyField.OWNER)) {
+                boolean owned = p.player.equals(entity.getOwner());
+                if (owned && e == null) {
+                    e = p.entry(entity);
+                }
+                if (e != null && e.owned != owned) {
+                    e = this.update(p, e, (en) -> en.owned = owned);
+                }
+            }
+            if (e != null) {
+                p.queue(e, fields);
+            }
+        }
+    }
+
+    @Override
+    public void see(final T viewer, final T viewed) {
+        this.recount(viewer, viewed);
+        if (viewer instanceof BaseEntity) {
+            this.countedOwners.put(viewer, viewer.getOwner());
+        }
+        PlayerInterest<T> p = this.players.get(viewer.getOwner());
+        if (p != null) {
+            this.see(p, viewed);
+        }
+    }
+
+    @Override
+    public void noLongerSee(final T viewer, final T viewed) {
+        PlayerId counted = this.recount(viewer, null);
+        PlayerInterest<T> p = this.players.get(counted == null ? viewer.getOwner() : counted);
+        if (p != null) {
+            this.noLongerSee(p, viewed);
+        }
+        if (viewer instanceof BaseEntity && ((BaseEntity) viewer).getVisibleEntities().isEmpty()) {
+            this.countedOwners.remove(viewer);
+        }
+    }
+
+    /**
+     * Remove a destroyed entity from the interest of all the players, and stop counting it as viewer.
+     *
+     * @param entity Entity destroyed.
+     */
+    @Override
+    public void entityDestroyed(final T entity) {
+        if (entity instanceof BaseEntity) {
+            PlayerId counted = this.countedOwners.remove(entity);
+            PlayerInterest<T> owner = this.players.get(counted == null ? entity.getOwner() : counted);
+            if (owner != null) {
+                for (Entity seen : ((BaseEntity) entity).getVisibleEntities()) {
+                    this.noLongerSee(owner, seen);
+                }
+            }
+        }
+        for (int i = 0; i < this.playerList.size(); i++) {
+            PlayerInterest<T> p = this.playerList.get(i);
+            InterestEntry<T> e = p.entries.get(entity);
+            if (e != null) {
+                this.update(p, e, (en) -> {
+                    en.viewers = 0;
+                    en.owned = false;
+                    en.pinned = false;
+                });
+            }
+        }
+    }
+
+    /**
+     * Move the entities seen by a viewer to its current owner, if it changed since they were counted.
+     *
+     * @param viewer Viewer to check.
+     * @param excluded Entity seen by the viewer but not counted yet, null if none.
+     * @return The owner the entities seen by the viewer were counted for, null if none.
+     */
+    private PlayerId recount(final T viewer, final Entity excluded) {
+        PlayerId counted = this.countedOwners.get(viewer);
+        PlayerId owner = viewer.getOwner();
+        if (counted == null || counted.equals(owner)) {
+            return counted;
+        }
+        PlayerInterest<T> from = this.players.get(counted);
+        PlayerInterest<T> to = this.players.get(owner);
+        for (Entity seen : ((BaseEntity) viewer).getVisibleEntities()) {
+            if (seen != excluded) {
+                if (from != null) {
+                    this.noLongerSee(from, seen);
+                }
+                if (to != null) {
+                    this.see(to, seen);
+                }
+            }
+        }
+        this.countedOwners.put(viewer, owner);
+        return counted;
+    }
+
+    /**
+     * Count an entity seen by a viewer of a player.
+     *
+     * @param viewerOwner Interest of the viewer owner.
+     * @param seen Entity seen by the viewer.
+     */
+    @SuppressWarnings("unchecked")
+    private void see(final PlayerInterest<T> viewerOwner, final Entity seen) {
+        this.update(viewerOwner, viewerOwner.entry((T) seen), (e) -> e.viewers++);
+    }
+
+    /**
+     * Stop counting an entity seen by a viewer of a player.
+     *
+     * @param owner Interest of the viewer owner.
+     * @param seen Entity no longer seen by the viewer.
+     */
+    private void noLongerSee(final PlayerInterest<T> owner, final Entity seen) {
+        InterestEntry<T> e = owner.entries.get(seen);
+        if (e != null && e.viewers > 0) {
+            this.update(owner, e, (en) -> en.viewers--);
+        }
+    }
+
+    /**
+     * Change the reasons of an entity to be in the interest of a player, and notify the listeners if it enters or leaves the interest.
+     *
+     * @param p Player interest.
+     * @param e Entry of the entity.
+     * @param change Change to apply on the entry.
+     * @return The entry, or null if it left the interest.
+     */
+    private InterestEntry<T> update(final PlayerInterest<T> p, final InterestEntry<T> e, final Consumer<InterestEntry<T>> change) {
+        boolean before = e.isInterested();
+        change.accept(e);
+        boolean after = e.isInterested();
+        if (!before && after) {
+            p.queue(e, DirtyField.ALL);
+            for (int i = 0; i < this.listeners.size(); i++) {
+                this.listeners.get(i).entered(p.player, e.entity);
+            }
+        } else if (!after) {
+            p.entries.remove(e.entity);
+            e.fields = 0;
+            if (before) {
+                for (int i = 0; i < this.listeners.size(); i++) {
+                    this.listeners.get(i).left(p.player, e.entity);
+                }
+            }
+            return null;
+        }
+        return e;
+    }
+
+    /**
+     * Interest of a player.
+     *
+     * @param <T> Entity implementation.
+     */
+    private static final class PlayerInterest<T extends Entity> {
+
+        private final PlayerId player;
+
+        /**
+         * Entries of the entities in the interest, an entry is removed once it has no reason to be there.
+         */
+        private final Map<T, InterestEntry<T>> entries = new HashMap<>();
+
+        /**
+         * Entries changed during the current frame.
+         */
+        @SuppressWarnings("unchecked")
+        private InterestEntry<T>[] updates = (InterestEntry<T>[]) new InterestEntry<?>[16];
+
+        private int updateCount;
+
+        private PlayerInterest(final PlayerId player) {
+            super();
+            this.player = player;
+        }
+
+        /**
+         * Retrieve the entry of an entity, or create it, a created entry is not in the interest until a reason is set.
+         *
+         * @param entity Entity to retrieve.
+         * @return The entity entry.
+         */
+        private InterestEntry<T> entry(final T entity) {
+            return this.entries.computeIfAbsent(entity, InterestEntry::new);
+        }
+
+        /**
+         * Add the changed fields of an entry to the update list.
+         *
+         * @param e Changed entry.
+         * @param fields Changed fields.
+         */
+        private void queue(final InterestEntry<T> e, final int fields) {
+            e.fields |= fields;
+            if (!e.queued) {
+                e.queued = true;
+                if (this.updateCount == this.updates.length) {
+                    this.updates = Arrays.copyOf(this.updates, this.updateCount << 1);
+                }
+                this.updates[this.updateCount] = e;
+                this.updateCount++;
+            }
+        }
+    }
+
+    /**
+     * Reasons for an entity to be in the interest of a player.
+     *
+     * @param <T> Entity implementation.
+     */
+    private static final class InterestEntry<T extends Entity> {
+
+        private final T entity;
+
+        /**
+         * Number of entities of the player seeing this one.
+         */
+        private int viewers;
+
+        private boolean owned;
+
+        private boolean pinned;
+
+        /**
+         * Fields to send for the current frame.
+         */
+        private int fields;
+
+        /**
+         * <code>true</code> if the entry is in the update list.
+         */
+        private boolean queued;
+
+        private InterestEntry(final T entity) {
+            super();
+            this.entity = entity;
+        }
+
+        private boolean isInterested() {
+            return this.viewers > 0 || this.owned || this.pinned;
+        }
+    }
+}
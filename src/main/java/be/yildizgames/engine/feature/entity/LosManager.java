@@ -24,6 +24,7 @@
 
 package be.yildizgames.engine.feature.entity;
 
+import be.yildizgames.common.frame.EndFrameListener;
 import be.yildizgames.common.gameobject.CollisionListener;
 import be.yildizgames.common.gameobject.CollisionResult;
 
@@ -32,10 +33,11 @@ import java.util.List;
 
 /**
  * Manage and dispatch the line of sight events.
+ * When registered as a frame listener, the line of sight changes notified between 2 frames are reported as a flight recorder event.
  *
  * @author Grégory Van den Borre
  */
-public class LosManager<T extends Entity> implements CollisionListener {
+public class LosManager<T extends Entity> extends EndFrameListener implements CollisionListener {
 
 
     /**
@@ -45,6 +47,11 @@ public class LosManager<T extends Entity> implements CollisionListener {
 
     private final EntityManager<T> manager;
 
+    /**
+     * Line of sight changes since the previous frame, null if none.
+     */
+    private LosBurstEvent burst;
+
     public LosManager(EntityManager<T> manager) {
         super();
         this.manager = manager;
@@ -65,6 +72,7 @@ public class LosManager<T extends Entity> implements CollisionListener {
         if (viewer.hasSameOwnerAs(seen) || !viewer.see(seen)) {
             return;
         }
+        this.burst().seen++;
         this.listenerList.forEach(l -> l.see(viewer, seen));
     }
 
@@ -76,10 +84,40 @@ public class LosManager<T extends Entity> implements CollisionListener {
         T viewer = this.manager.findById(r.object1);
         T unseen = this.manager.findById(r.object2);
         if (!viewer.getOwner().equals(unseen.getOwner()) && viewer.isSeeing(unseen)) {
+            if (viewer instanceof BaseEntity) {
+                ((BaseEntity) viewer).noLongerSee(unseen);
+            }
+            this.burst().unseen++;
             this.listenerList.forEach(l -> l.noLongerSee(viewer, unseen));
         }
     }
 
+    /**
+     * Report the line of sight changes notified since the previous frame.
+     *
+     * @param time Time since the previous frame.
+     * @return true.
+     */
+    @Override
+    public boolean frameEnded(final long time) {
+        if (this.burst != null) {
+            this.burst.commit();
+            this.burst = null;
+        }
+        return true;
+    }
+
+    /**
+     * @return The event counting the line of sight changes of the current frame, started on the first change.
+     */
+    private LosBurstEvent burst() {
+        if (this.burst == null) {
+            this.burst = new LosBurstEvent();
+            this.burst.begin();
+        }
+        return this.burst;
+    }
+
     /**
      * Add a new listener to notify about LOS event changes.
      *
@@ -0,0 +1,374 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.common.util.Checker;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Choose the entity updates sent to a player every tick, when its link cannot carry all of them.
+ * Every pending update accumulates a priority over time, growing faster for the entities close to the player units and for the entities in combat,
+ * so the priority also reflects the time since the entity was last sent.
+ * Every tick, the updates are taken by decreasing priority while they fit in the byte budget, the others wait for the next tick with their changes merged.
+ * The highest priority update is always sent, even if bigger than the budget, so no update waits forever.
+ * The updates are received as change consumer, typically from the interest manager update list of the player.
+ * This class is not thread safe, it is meant to be used by the thread sending the updates.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class ReplicationScheduler<T extends Entity> implements EntityManager.ChangeConsumer<T> {
+
+    private final EntityManager<T> manager;
+
+    private final PlayerId player;
+
+    /**
+     * Pending update of the entities replicated to the player, kept once sent while the entity is considered in combat, to remember when it was hit.
+     * The entries of the deleted entities and the sent ones out of combat are dropped by the next schedule.
+     */
+    private final Map<T, Pending<T>> pendingByEntity = new HashMap<>();
+
+    /**
+     * Pending updates, used as heap while scheduling.
+     */
+    @SuppressWarnings("unchecked")
+    private Pending<T>[] pending = (Pending<T>[]) new Pending<?>[16];
+
+    private int pendingCount;
+
+    /**
+     * Positions of the player units, collected once per schedule, as x, y, z.
+     */
+    private float[] units = new float[48];
+
+    private int unitCount;
+
+    /**
+     * Distance to the player units under which the priority grows faster.
+     */
+    private float relevanceRadius = 100f;
+
+    /**
+     * Priority increase per time unit added at distance zero of a player unit, decreasing linearly to 0 at the relevance radius.
+     */
+    private float distanceWeight = 4f;
+
+    /**
+     * Factor applied to the priority increase of the entities attacking or recently hit.
+     */
+    private float combatFactor = 2f;
+
+    /**
+     * Time an entity is considered in combat after its hit points changed.
+     */
+    private long hitDuration = 2000;
+
+    /**
+     * Current time, advanced by every schedule.
+     */
+    private long now;
+
+    public ReplicationScheduler(final EntityManager<T> manager, final PlayerId player) {
+        super();
+        assert manager != null;
+        assert player != null;
+        this.manager = manager;
+        this.player = player;
+    }
+
+    /**
+     * Set how much the proximity of the player units increases the priority.
+     *
+     * @param radius Distance to the player units under which the priority grows faster, must be greater than 0.
+     * @param weight Priority increase per time unit at distance zero, added to the base increase of 1, must be positive.
+     */
+    public void setDistanceWeight(final float radius, final float weight) {
+        Checker.exceptionNotGreaterThanZero(radius);
+        Checker.exceptionNotPositive(weight);
+        this.relevanceRadius = radius;
+        this.distanceWeight = weight;
+    }
+
+    /**
+     * Set how much being in combat increases the priority.
+     *
+     * @param factor Factor applied to the priority increase of the entities attacking or recently hit, must be positive.
+     * @param hitDuration Time an entity is considered in combat after its hit points changed, must be positive.
+     */
+    public void setCombatFactor(final float factor, final long hitDuration) {
+        Checker.exceptionNotPositive(factor);
+        Checker.exceptionNotPositive(hitDuration);
+        this.combatFactor = factor;
+        this.hitDuration = hitDuration;
+    }
+
+    /**
+     * Queue the update of an entity, merged with its pending update if any.
+     *
+     * @param entity Changed entity.
+     * @param fields Changed fields, as DirtyField bits.
+     */
+    @Override
+    public void accept(final T entity, final int fields) {
+        Pending<T> p = this.pendingByEntity.get(entity);
+        if (p == null) {
+            p = new Pending<>(entity);
+            this.pendingByEntity.put(entity, p);
+        }
+        if (!p.queued) {
+            p.queued = true;
+            if (this.pendingCount == this.pending.length) {
+                this.pending = Arrays.copyOf(this.pending, this.pendingCount << 1);
+            }
+            this.pending[this.pendingCount] = p;
+            this.pendingCount++;
+        }
+        p.fields |= fields;
+        if (DirtyField.contains(fields, DirtyField.HIT_POINTS)) {
+            p.lastHit = this.now;
+        }
+    }
+
+    /**
+     * Drop the pending update of an entity, when it is no longer replicated to the player.
+     *
+     * @param entity Entity to drop.
+     */
+    public void remove(final T entity) {
+        Pending<T> p = this.pendingByEntity.remove(entity);
+        if (p != null) {
+            p.fields = 0;
+            p.lastHit = Long.MIN_VALUE / 2;
+        }
+    }
+
+    /**
+     * Accumulate the priorities, and send the highest priority updates fitting in the budget.
+     *
+     * @param elapsed Time since the previous schedule.
+     * @param budget Bytes that can be sent for this tick.
+     * @param sizer Provide the size of an update.
+     * @param sender Send an update.
+     * @return The number of bytes sent, greater than the budget if the highest priority update did not fit.
+     */
+    public int schedule(final long elapsed, final int budget, final UpdateSizer<? super T> sizer, final EntityManager.ChangeConsumer<? super T> sender) {
+        this.now += elapsed;
+        this.collectUnits();
+        int kept = 0;
+        for (int i = 0; i < this.pendingCount; i++) {
+            Pending<T> p = this.pending[i];
+            if (p.entity.isDeleted() || (p.fields == 0 && this.now - p.lastHit >= this.hitDuration)) {
+                this.pendingByEntity.remove(p.entity, p);
+                p.queued = false;
+            } else {
+                this.pending[kept] = p;
+                kept++;
+            }
+        }
+        Arrays.fill(this.pending, kept, this.pendingCount, null);
+        this.pendingCount = kept;
+        int size = 0;
+        for (int i = 0; i < kept; i++) {
+            Pending<T> p = this.pending[i];
+            if (p.fields != 0) {
+                p.priority += this.weight(p) * elapsed;
+                this.swap(i, size);
+                size++;
+            }
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            this.siftDown(i, size);
+        }
+        int sent = 0;
+        int heap = size;
+        while (heap > 0 && sent < budget) {
+            Pending<T> p = this.pending[0];
+            heap--;
+            this.swap(0, heap);
+            this.siftDown(0, heap);
+            int bytes = sizer.size(p.entity, p.fields);
+            if (sent + bytes <= budget || sent == 0) {
+                sender.accept(p.entity, p.fields);
+                sent += bytes;
+                p.fields = 0;
+                p.priority = 0;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * @return The number of updates waiting to be sent.
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (int i = 0; i < this.pendingCount; i++) {
+            if (this.pending[i].fields != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of entities tracked, with an update waiting or recently hit.
+     */
+    public int getTrackedCount() {
+        return this.pendingByEntity.size();
+    }
+
+    /**
+     * Copy the positions of the player units, so the pending updates are weighted without querying the entity manager.
+     */
+    private void collectUnits() {
+        this.unitCount = 0;
+        Set<T> owned = this.manager.getEntities(this.player);
+        if (owned == null) {
+            return;
+        }
+        for (T e : owned) {
+            int i = this.unitCount * 3;
+            if (i == this.units.length) {
+                this.units = Arrays.copyOf(this.units, i << 1);
+            }
+            Point3D position = e.getPosition();
+            this.units[i] = position.x;
+            this.units[i + 1] = position.y;
+            this.units[i + 2] = position.z;
+            this.unitCount++;
+        }
+    }
+
+    /**
+     * Compute the priority increase per time unit of a pending update.
+     *
+     * @param p Pending update.
+     * @return The priority increase.
+     */
+    private float weight(final Pending<T> p) {
+        Point3D position = p.entity.getPosition();
+        float nearest = this.relevanceRadius * this.relevanceRadius;
+        for (int i = 0; i < this.unitCount * 3; i += 3) {
+            float dx = this.units[i] - position.x;
+            float dy = this.units[i + 1] - position.y;
+            float dz = this.units[i + 2] - position.z;
+            nearest = Math.min(nearest, dx * dx + dy * dy + dz * dz);
+        }
+        float weight = 1 + this.distanceWeight * (1 - (float) Math.sqrt(nearest) / this.relevanceRadius);
+        if (p.entity.isAttacking() || this.now - p.lastHit < this.hitDuration) {
+            weight *= this.combatFactor;
+        }
+        return weight;
+    }
+
+    /**
+     * Move a pending update down the heap until its children have a lower priority.
+     *
+     * @param index Index of the update to move.
+     * @param size Heap size.
+     */
+    private void siftDown(final int index, final int size) {
+        int i = index;
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && this.pending[child + 1].priority > this.pending[child].priority) {
+                child++;
+            }
+            if (this.pending[i].priority >= this.pending[child].priority) {
+                return;
+            }
+            this.swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(final int i, final int j) {
+        Pending<T> p = this.pending[i];
+        this.pending[i] = this.pending[j];
+        this.pending[j] = p;
+    }
+
+    /**
+     * Provide the number of bytes needed to send an update.
+     *
+     * @param <T> Entity implementation.
+     */
+    @FunctionalInterface
+    public interface UpdateSizer<T> {
+
+        /**
+         * Compute the size of an update.
+         *
+         * @param entity Entity to send.
+         * @param fields Fields to send, as DirtyField bits.
+         * @return The number of bytes needed.
+         */
+        int size(T entity, int fields);
+    }
+
+    /**
+     * Update waiting to be sent.
+     *
+     * @param <T> Entity implementation.
+     */
+    private static final class Pending<T extends Entity> {
+
+        private final T entity;
+
+        /**
+         * Fields to send, 0 once sent.
+         */
+        private int fields;
+
+        /**
+         * Accumulated priority, reset once sent.
+         */
+        private float priority;
+
+        /**
+         * <code>true</code> while the update is in the pending updates array, until sent and out of combat.
+         */
+        private boolean queued;
+
+        /**
+         * Time of the last hit points change.
+         */
+        private long lastHit = Long.MIN_VALUE / 2;
+
+        private Pending(final T entity) {
+            super();
+            this.entity = entity;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.engine.feature.entity.data.EntityType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decide if the position and direction of an entity changed enough since they were last published to be published again,
+ * to avoid sending the small moves of the entities.
+ * The threshold is configured by entity type, the last published values are kept by the filter for every entity slot of its entity manager,
+ * so several filters can be used for different publication channels.
+ * The entities not managed by the entity manager are always significant.
+ * This class is not thread safe, it is meant to be used by the thread ending the frame.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class SignificanceFilter {
+
+    /**
+     * Fields checked by the filter.
+     */
+    private static final int MOVEMENT = DirtyField.POSITION | DirtyField.DIRECTION;
+
+    /**
+     * The change must be published.
+     */
+    private static final byte SIGNIFICANT = 0;
+
+    /**
+     * The change is too small to be published yet.
+     */
+    private static final byte INSIGNIFICANT = 1;
+
+    /**
+     * Nothing changed since the last publication.
+     */
+    private static final byte UNCHANGED = 2;
+
+    /**
+     * Values stored per slot.
+     */
+    private static final int VALUES = 6;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Manager providing the entity slots.
+     */
+    private final EntityManager<?> manager;
+
+    /**
+     * Threshold for every entity type.
+     */
+    private final Map<EntityType, SignificanceThreshold> thresholds = new HashMap<>();
+
+    /**
+     * Threshold for the types without one.
+     */
+    private SignificanceThreshold defaultThreshold = SignificanceThreshold.ALWAYS;
+
+    /**
+     * Id value of the entity last published for every slot, to detect a slot reused by another entity.
+     */
+    private long[] ids = new long[INITIAL_CAPACITY];
+
+    /**
+     * <code>true</code> if an entity was published for the slot.
+     */
+    private boolean[] published = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * Position then direction published, for every slot.
+     */
+    private float[] values = new float[INITIAL_CAPACITY * VALUES];
+
+    /**
+     * Time of the publication, for every slot.
+     */
+    private long[] times = new long[INITIAL_CAPACITY];
+
+    /**
+     * Number of changes found not significant.
+     */
+    private long filtered;
+
+    /**
+     * Number of entities forwarded by the current drain.
+     */
+    private int forwarded;
+
+    /**
+     * Create a new filter.
+     *
+     * @param manager Manager of the entities to filter.
+     */
+    public SignificanceFilter(final EntityManager<?> manager) {
+        super();
+        assert manager != null;
+        this.manager = manager;
+    }
+
+    /**
+     * Set the threshold to use for an entity type.
+     *
+     * @param type Entity type.
+     * @param threshold Threshold to use for the entities of that type.
+     */
+    public void setThreshold(final EntityType type, final SignificanceThreshold threshold) {
+        assert type != null;
+        assert threshold != null;
+        this.thresholds.put(type, threshold);
+    }
+
+    /**
+     * Set the threshold to use for the entity types without any, SignificanceThreshold.ALWAYS by default.
+     *
+     * @param threshold Threshold to use.
+     */
+    public void setDefaultThreshold(final SignificanceThreshold threshold) {
+        assert threshold != null;
+        this.defaultThreshold = threshold;
+    }
+
+    /**
+     * Check if the position or direction of an entity changed enough to be published, the entity is not recorded as published.
+     *
+     * @param entity Entity to check.
+     * @param time Current time.
+     * @return <code>true</code> if the change must be published.
+     */
+    public boolean isSignificant(final Entity entity, final long time) {
+        return this.check(entity, this.manager.getSlot(entity), time) == SIGNIFICANT;
+    }
+
+    /**
+     * Check if the position or direction of an entity changed enough to be published, if so, the entity is recorded as published.
+     *
+     * @param entity Entity to check.
+     * @param time Current time.
+     * @return <code>true</code> if the change must be published.
+     */
+    public boolean publish(final Entity entity, final long time) {
+        return this.publish(entity, this.manager.getSlot(entity), time) == SIGNIFICANT;
+    }
+
+    /**
+     * Drain the changed entities of the entity manager, without their position and direction changes that are not significant.
+     * The changes too small to be published yet are flagged again on the entity, to be checked by the next drain, until they are significant or stale,
+     * the changes leaving the entity where it was last published are dropped.
+     * The entities without any remaining change are not provided to the consumer.
+     *
+     * @param time Current time.
+     * @param consumer Consumer receiving every changed entity with its significant changed fields.
+     * @param <T> Entity implementation.
+     * @return The number of entities provided to the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> int drainChanges(final long time, final EntityManager.ChangeConsumer<? super T> consumer) {
+        this.forwarded = 0;
+        ((EntityManager<T>) this.manager).drainChanges((e, fields) -> {
+            int f = fields;
+            if ((f & MOVEMENT) != 0) {
+                byte result = this.publish(e, this.manager.getSlot(e), time);
+                if (result != SIGNIFICANT) {
+                    f &= ~MOVEMENT;
+                }
+                if (result == INSIGNIFICANT) {
+                    ((BaseEntity) e).markDirty(fields & MOVEMENT);
+                }
+            }
+            if (f != 0) {
+                consumer.accept(e, f);
+                this.forwarded++;
+            }
+        });
+        return this.forwarded;
+    }
+
+    /**
+     * Check if this filter uses the slots of an entity manager.
+     *
+     * @param manager Manager to check.
+     * @return <code>true</code> if this filter was created for that manager.
+     */
+    boolean isFor(final EntityManager<?> manager) {
+        return this.manager == manager;
+    }
+
+    /**
+     * @return The number of changes found not significant since this filter was created.
+     */
+    public long getFiltered() {
+        return this.filtered;
+    }
+
+    /**
+     * Check an entity, and record it as published if the change is significant.
+     *
+     * @param entity Entity to check.
+     * @param slot Entity slot, negative if not managed.
+     * @param time Current time.
+     * @return SIGNIFICANT, INSIGNIFICANT or UNCHANGED.
+     */
+    private byte publish(final Entity entity, final int slot, final long time) {
+        byte result = this.check(entity, slot, time);
+        if (result != SIGNIFICANT) {
+            this.filtered++;
+        } else if (slot >= 0) {
+            this.ensureCapacity(slot + 1);
+            Point3D position = entity.getPosition();
+            Point3D direction = entity.getDirection();
+            int v = slot * VALUES;
+            this.values[v] = position.x;
+            this.values[v + 1] = position.y;
+            this.values[v + 2] = position.z;
+            this.values[v + 3] = direction.x;
+            this.values[v + 4] = direction.y;
+            this.values[v + 5] = direction.z;
+            this.ids[slot] = entity.getId().value;
+            this.published[slot] = true;
+            this.times[slot] = time;
+        }
+        return result;
+    }
+
+    /**
+     * Compare an entity with the values last published for it.
+     *
+     * @param entity Entity to check.
+     * @param slot Entity slot, negative if not managed.
+     * @param time Current time.
+     * @return SIGNIFICANT, INSIGNIFICANT or UNCHANGED.
+     */
+    private byte check(final Entity entity, final int slot, final long time) {
+        if (slot < 0 || slot >= this.ids.length || !this.published[slot] || this.ids[slot] != entity.getId().value) {
+            return SIGNIFICANT;
+        }
+        SignificanceThreshold t = this.thresholds.getOrDefault(entity.getType(), this.defaultThreshold);
+        Point3D position = entity.getPosition();
+        Point3D direction = entity.getDirection();
+        int v = slot * VALUES;
+        float dx = position.x - this.values[v];
+        float dy = position.y - this.values[v + 1];
+        float dz = position.z - this.values[v + 2];
+        float moved = dx * dx + dy * dy + dz * dz;
+        boolean turned = direction.x != this.values[v + 3] || direction.y != this.values[v + 4] || direction.z != this.values[v + 5];
+        if (moved == 0 && !turned) {
+            return UNCHANGED;
+        }
+        if (moved > t.squaredDistance || time - this.times[slot] >= t.getMaxStaleness()) {
+            return SIGNIFICANT;
+        }
+        return turned && isAngleGreater(direction, this.values, v + 3, t.cosAngle) ? SIGNIFICANT : INSIGNIFICANT;
+    }
+
+    /**
+     * Grow the slot arrays to hold at least a number of slots.
+     *
+     * @param capacity Number of slots required.
+     */
+    private void ensureCapacity(final int capacity) {
+        if (capacity > this.ids.length) {
+            int size = Math.max(capacity, this.ids.length << 1);
+            this.ids = Arrays.copyOf(this.ids, size);
+            this.published = Arrays.copyOf(this.published, size);
+            this.values = Arrays.copyOf(this.values, size * VALUES);
+            this.times = Arrays.copyOf(this.times, size);
+        }
+    }
+
+    /**
+     * Compare the angle between the current and the published directions, without requiring normalized directions.
+     *
+     * @param d Current direction.
+     * @param values Published values.
+     * @param offset Offset of the published direction in the values.
+     * @param cosAngle Cosine of the minimum angle.
+     * @return <code>true</code> if the angle is greater than the minimum angle.
+     */
+    private static boolean isAngleGreater(final Point3D d, final float[] values, final int offset, final float cosAngle) {
+        float px = values[offset];
+        float py = values[offset + 1];
+        float pz = values[offset + 2];
+        float dot = d.x * px + d.y * py + d.z * pz;
+        float lengths = (d.x * d.x + d.y * d.y + d.z * d.z) * (px * px + py * py + pz * pz);
+        if (lengths == 0) {
+            return true;
+        }
+        if (dot < 0) {
+            return cosAngle >= 0 || dot * dot > cosAngle * cosAngle * lengths;
+        }
+        return cosAngle >= 0 && dot * dot < cosAngle * cosAngle * lengths;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.util.Checker;
+
+/**
+ * Minimum change of position or direction worth publishing for an entity type.
+ * A change smaller than both epsilons is only published once it is older than the max staleness.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class SignificanceThreshold {
+
+    /**
+     * Threshold publishing every change.
+     */
+    public static final SignificanceThreshold ALWAYS = new SignificanceThreshold(0, 0, 0);
+
+    /**
+     * Minimum distance moved.
+     */
+    private final float distance;
+
+    /**
+     * Minimum direction change, in degrees.
+     */
+    private final float angle;
+
+    /**
+     * Maximum time an insignificant change is kept unpublished.
+     */
+    private final long maxStaleness;
+
+    /**
+     * Square of the distance.
+     */
+    final float squaredDistance;
+
+    /**
+     * Cosine of the angle, a direction change is significant if the cosine between the directions is lower.
+     */
+    final float cosAngle;
+
+    /**
+     * Create a new threshold.
+     *
+     * @param distance Minimum distance moved, must be positive.
+     * @param angle Minimum direction change in degrees, must be positive.
+     * @param maxStaleness Maximum time an insignificant change is kept unpublished, must be positive, 0 publishes every change.
+     */
+    public SignificanceThreshold(final float distance, final float angle, final long maxStaleness) {
+        super();
+        Checker.exceptionNotPositive(distance);
+        Checker.exceptionNotPositive(angle);
+        Checker.exceptionNotPositive(maxStaleness);
+        this.distance = distance;
+        this.angle = angle;
+        this.maxStaleness = maxStaleness;
+        this.squaredDistance = distance * distance;
+        this.cosAngle = (float) Math.cos(Math.toRadians(angle));
+    }
+
+    public float getDistance() {
+        return this.distance;
+    }
+
+    public float getAngle() {
+        return this.angle;
+    }
+
+    public long getMaxStaleness() {
+        return this.maxStaleness;
+    }
+}
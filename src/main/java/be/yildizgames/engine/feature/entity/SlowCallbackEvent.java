@@ -0,0 +1,93 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for the listener callbacks taking longer than the threshold, 1 ms by default.
+ *
+ * @author Grégory Van den Borre
+ */
+@Name("be.yildizgames.entity.SlowCallback")
+@Label("Slow Entity Callback")
+@Category({"Yildiz", "Entity"})
+@Description("Action or destruction listener notification slower than the threshold.")
+@Threshold("1 ms")
+final class SlowCallbackEvent extends Event {
+
+    /**
+     * Type of this event, retrieved once to check cheaply if it is recorded.
+     */
+    private static final EventType TYPE = EventType.getEventType(SlowCallbackEvent.class);
+
+    @Label("Listener")
+    @Description("Listener class.")
+    String listener;
+
+    @Label("Entity")
+    long entity;
+
+    /**
+     * Check if the event is recorded, to avoid creating the events and wrapping the listeners when it is not.
+     *
+     * @return <code>true</code> if a recording enables this event.
+     */
+    static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+
+    /**
+     * Create and start a new event.
+     *
+     * @return The started event.
+     */
+    static SlowCallbackEvent start() {
+        SlowCallbackEvent event = new SlowCallbackEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the event and commit it if it is recorded and slower than the threshold.
+     *
+     * @param listener Listener class.
+     * @param entity Id of the entity notified.
+     */
+    void finish(final Class<?> listener, final long entity) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.listener = listener.getName();
+            this.entity = entity;
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Uniform hash grid of entities, to retrieve the entities in a zone without visiting all of them.
+ * Entities are registered by slot, and the cell they belong to is recomputed only when they move to another cell.
+ * The queries check the real entity positions, so the cell size only impacts the performances:
+ * a cell size close to the usual query radius gives the best results.
+ * A cell is removed from the table as soon as it is empty, and kept for reuse, so the table only holds the occupied cells.
+ * This class is not thread safe.
+ *
+ * @author Grégory Van den Borre
+ */
+final class SpatialGrid<T extends Entity> {
+
+    /**
+     * Number of bits used for every cell coordinate in a cell key.
+     */
+    private static final int BITS = 21;
+
+    private static final long MASK = (1L << BITS) - 1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Maximum number of empty cells kept for reuse.
+     */
+    private static final int MAX_FREE_CELLS = 64;
+
+    /**
+     * Size of a cell, on every axis.
+     */
+    private final float cellSize;
+
+    private final float inverseCellSize;
+
+    /**
+     * Cells, in an open addressing table, null values are free positions.
+     */
+    private Cell[] cells = new Cell[INITIAL_CAPACITY];
+
+    /**
+     * Number of cells in the table.
+     */
+    private int cellCount;
+
+    /**
+     * Empty cells removed from the table, kept for reuse.
+     */
+    private Cell[] freeCells = new Cell[MAX_FREE_CELLS];
+
+    private int freeCount;
+
+    /**
+     * Key of the cell containing every slot.
+     */
+    private long[] slotCells = new long[INITIAL_CAPACITY];
+
+    /**
+     * Position in its cell for every slot.
+     */
+    private int[] slotIndexes = new int[INITIAL_CAPACITY];
+
+    /**
+     * Number of entities.
+     */
+    private int size;
+
+    /**
+     * Reusable buffer for the cells to visit in a query.
+     */
+    private Cell[] visited = new Cell[INITIAL_CAPACITY];
+
+    /**
+     * Reusable buffers for the nearest entities queries.
+     */
+    private Object[] candidates = new Object[INITIAL_CAPACITY];
+
+    private float[] distances = new float[INITIAL_CAPACITY];
+
+    private int candidateCount;
+
+    SpatialGrid(final float cellSize) {
+        super();
+        assert cellSize > 0;
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1f / cellSize;
+    }
+
+    /**
+     * Register an entity.
+     *
+     * @param slot Slot of the entity, not already registered.
+     * @param entity Entity to register.
+     */
+    void add(final int slot, final T entity) {
+        this.insert(slot, entity, this.keyOf(entity.getPosition()));
+        this.size++;
+    }
+
+    /**
+     * Unregister an entity.
+     *
+     * @param slot Slot of the entity to remove.
+     */
+    void remove(final int slot) {
+        this.detach(slot);
+        this.size--;
+    }
+
+    /**
+     * Check if a move requires the entity to change of cell.
+     *
+     * @param from Position before the move.
+     * @param to Position after the move.
+     * @return <code>true</code> if both positions are not in the same cell.
+     */
+    boolean isCellChanged(final Point3D from, final Point3D to) {
+        return this.keyOf(from) != this.keyOf(to);
+    }
+
+    /**
+     * Update the cell of an entity after it moved.
+     *
+     * @param slot Slot of the entity.
+     * @param position New entity position.
+     */
+    void move(final int slot, final Point3D position) {
+        this.move(slot, position.x, position.y, position.z);
+    }
+
+    /**
+     * Update the cell of an entity after it moved.
+     *
+     * @param slot Slot of the entity.
+     * @param x New position x value.
+     * @param y New position y value.
+     * @param z New position z value.
+     */
+    void move(final int slot, final float x, final float y, final float z) {
+        long key = key(this.cellCoordinate(x), this.cellCoordinate(y), this.cellCoordinate(z));
+        if (key != this.slotCells[slot]) {
+            Object entity = this.detach(slot);
+            this.insert(slot, entity, key);
+        }
+    }
+
+    /**
+     * @return The number of registered entities.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Retrieve the entities closer than a radius from a point.
+     *
+     * @param center Center of the zone.
+     * @param radius Zone radius.
+     * @param result Collection to fill with the entities found.
+     */
+    @SuppressWarnings("unchecked")
+    void findInRadius(final Point3D center, final float radius, final Collection<? super T> result) {
+        if (this.size == 0 || radius <= 0) {
+            return;
+        }
+        float r2 = radius * radius;
+        int count = this.collect(center.x - radius, center.y - radius, center.z - radius, center.x + radius, center.y + radius, center.z + radius);
+        for (int n = 0; n < count; n++) {
+            Cell c = this.visited[n];
+            for (int i = 0; i < c.size; i++) {
+                Object e = c.entities[i];
+                if (Point3D.squaredDistance(((Entity) e).getPosition(), center) < r2) {
+                    result.add((T) e);
+                }
+            }
+        }
+        this.clearVisited(count);
+    }
+
+    /**
+     * Retrieve the entities in an axis aligned box, bounds included.
+     *
+     * @param min Lowest box corner.
+     * @param max Highest box corner.
+     * @param result Collection to fill with the entities found.
+     */
+    @SuppressWarnings("unchecked")
+    void findInBox(final Point3D min, final Point3D max, final Collection<? super T> result) {
+        if (this.size == 0) {
+            return;
+        }
+        int count = this.collect(min.x, min.y, min.z, max.x, max.y, max.z);
+        for (int n = 0; n < count; n++) {
+            Cell c = this.visited[n];
+            for (int i = 0; i < c.size; i++) {
+                Object e = c.entities[i];
+                Point3D p = ((Entity) e).getPosition();
+                if (p.x >= min.x && p.x <= max.x && p.y >= min.y && p.y <= max.y && p.z >= min.z && p.z <= max.z) {
+                    result.add((T) e);
+                }
+            }
+        }
+        this.clearVisited(count);
+    }
+
+    /**
+     * Retrieve the entities the closest to a point, the zone is enlarged until enough entities are found.
+     *
+     * @param center Point to get the nearest entities.
+     * @param k Maximum number of entities to retrieve.
+     * @param result List to fill with the entities found, the closest first.
+     */
+    @SuppressWarnings("unchecked")
+    void findNearest(final Point3D center, final int k, final List<? super T> result) {
+        int wanted = Math.min(k, this.size);
+        if (wanted <= 0) {
+            return;
+        }
+        float radius = this.cellSize;
+        do {
+            this.candidateCount = 0;
+            float r2 = radius * radius;
+            int count = this.collect(center.x - radius, center.y - radius, center.z - radius, center.x + radius, center.y + radius, center.z + radius);
+            for (int n = 0; n < count; n++) {
+                Cell c = this.visited[n];
+                for (int i = 0; i < c.size; i++) {
+                    Object e = c.entities[i];
+                    float d = Point3D.squaredDistance(((Entity) e).getPosition(), center);
+                    if (d <= r2) {
+                        this.addCandidate(e, d);
+                    }
+                }
+            }
+            this.clearVisited(count);
+            radius *= 2;
+        } while (this.candidateCount < wanted && Float.isFinite(radius));
+        wanted = Math.min(wanted, this.candidateCount);
+        for (int i = 0; i < wanted; i++) {
+            int closest = i;
+            for (int j = i + 1; j < this.candidateCount; j++) {
+                if (this.distances[j] < this.distances[closest]) {
+                    closest = j;
+                }
+            }
+            Object e = this.candidates[closest];
+            this.candidates[closest] = this.candidates[i];
+            this.distances[closest] = this.distances[i];
+            result.add((T) e);
+        }
+        Arrays.fill(this.candidates, 0, this.candidateCount, null);
+    }
+
+    /**
+     * @return The number of cells in the table, all of them have at least one entity.
+     */
+    int cellCount() {
+        return this.cellCount;
+    }
+
+    /**
+     * Collect the non empty cells overlapping a box in the visited buffer, or all the non empty cells if the box covers more cells than existing.
+     *
+     * @return The number of cells collected.
+     */
+    private int collect(final float minX, final float minY, final float minZ, final float maxX, final float maxY, final float maxZ) {
+        int x0 = this.cellCoordinate(minX);
+        int y0 = this.cellCoordinate(minY);
+        int z0 = this.cellCoordinate(minZ);
+        int x1 = this.cellCoordinate(maxX);
+        int y1 = this.cellCoordinate(maxY);
+        int z1 = this.cellCoordinate(maxZ);
+        int count = 0;
+        if (x1 < x0 || y1 < y0 || z1 < z0) {
+            return count;
+        }
+        if (this.visited.length < this.cellCount) {
+            this.visited = new Cell[this.cells.length];
+        }
+        long dx = (long) x1 - x0 + 1;
+        long dy = (long) y1 - y0 + 1;
+        long dz = (long) z1 - z0 + 1;
+        if (dx > MASK || dy > MASK || dz > MASK || dx * dy * dz > this.cellCount) {
+            for (Cell c : this.cells) {
+                if (c != null && c.size > 0) {
+                    this.visited[count++] = c;
+                }
+            }
+            return count;
+        }
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                for (int z = z0; z <= z1; z++) {
+                    Cell c = this.find(key(x, y, z));
+                    if (c != null && c.size > 0) {
+                        this.visited[count++] = c;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private void clearVisited(final int count) {
+        Arrays.fill(this.visited, 0, count, null);
+    }
+
+    private void addCandidate(final Object entity, final float distance) {
+        if (this.candidateCount == this.candidates.length) {
+            this.candidates = Arrays.copyOf(this.candidates, this.candidateCount << 1);
+            this.distances = Arrays.copyOf(this.distances, this.candidateCount << 1);
+        }
+        this.candidates[this.candidateCount] = entity;
+        this.distances[this.candidateCount] = distance;
+        this.candidateCount++;
+    }
+
+    private void insert(final int slot, final Object entity, final long key) {
+        if (slot >= this.slotCells.length) {
+            int capacity = Math.max(slot + 1, this.slotCells.length << 1);
+            this.slotCells = Arrays.copyOf(this.slotCells, capacity);
+            this.slotIndexes = Arrays.copyOf(this.slotIndexes, capacity);
+        }
+        Cell c = this.findOrCreate(key);
+        if (c.size == c.entities.length) {
+            c.entities = Arrays.copyOf(c.entities, c.size << 1);
+            c.slots = Arrays.copyOf(c.slots, c.size << 1);
+        }
+        c.entities[c.size] = entity;
+        c.slots[c.size] = slot;
+        this.slotCells[slot] = key;
+        this.slotIndexes[slot] = c.size;
+        c.size++;
+    }
+
+    /**
+     * Remove a slot from its cell, the last entity of the cell takes its place, the cell is removed if it becomes empty.
+     *
+     * @return The removed entity.
+     */
+    private Object detach(final int slot) {
+        Cell c = this.find(this.slotCells[slot]);
+        assert c != null;
+        int i = this.slotIndexes[slot];
+        Object entity = c.entities[i];
+        int last = --c.size;
+        if (i != last) {
+            c.entities[i] = c.entities[last];
+            c.slots[i] = c.slots[last];
+            this.slotIndexes[c.slots[i]] = i;
+        }
+        c.entities[last] = null;
+        if (last == 0) {
+            this.removeCell(c);
+        }
+        return entity;
+    }
+
+    /**
+     * Remove an empty cell from the table, moving back the following cells of its probe sequence, and keep it for reuse.
+     *
+     * @param c Cell to remove.
+     */
+    private void removeCell(final Cell c) {
+        Cell[] t = this.cells;
+        int mask = t.length - 1;
+        int i = hash(c.key, mask);
+        while (t[i] != c) {
+            i = (i + 1) & mask;
+        }
+        t[i] = null;
+        int j = (i + 1) & mask;
+        for (Cell n = t[j]; n != null; j = (j + 1) & mask, n = t[j]) {
+            int home = hash(n.key, mask);
+            boolean movable = i <= j ? home <= i || home > j : home <= i && home > j;
+            if (movable) {
+                t[i] = n;
+                t[j] = null;
+                i = j;
+            }
+        }
+        this.cellCount--;
+        if (this.freeCount < MAX_FREE_CELLS) {
+            this.freeCells[this.freeCount++] = c;
+        }
+        if (this.cellCount * 8 < t.length && t.length > INITIAL_CAPACITY) {
+            this.resize(t.length >> 1);
+        }
+    }
+
+    private Cell find(final long key) {
+        Cell[] t = this.cells;
+        int mask = t.length - 1;
+        int i = hash(key, mask);
+        Cell c;
+        while ((c = t[i]) != null) {
+            if (c.key == key) {
+                return c;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    private Cell findOrCreate(final long key) {
+        Cell c = this.find(key);
+        if (c == null) {
+            if ((this.cellCount + 1) * 2 > this.cells.length) {
+                this.resize(this.cells.length << 1);
+            }
+            if (this.freeCount > 0) {
+                c = this.freeCells[--this.freeCount];
+                this.freeCells[this.freeCount] = null;
+                c.key = key;
+            } else {
+                c = new Cell(key);
+            }
+            this.place(this.cells, c);
+            this.cellCount++;
+        }
+        return c;
+    }
+
+    private void resize(final int capacity) {
+        Cell[] t = new Cell[capacity];
+        for (Cell c : this.cells) {
+            if (c != null) {
+                this.place(t, c);
+            }
+        }
+        this.cells = t;
+    }
+
+    private void place(final Cell[] t, final Cell c) {
+        int mask = t.length - 1;
+        int i = hash(c.key, mask);
+        while (t[i] != null) {
+            i = (i + 1) & mask;
+        }
+        t[i] = c;
+    }
+
+    private int cellCoordinate(final float value) {
+        return (int) Math.floor(value * this.inverseCellSize);
+    }
+
+    private long keyOf(final Point3D p) {
+        return key(this.cellCoordinate(p.x), this.cellCoordinate(p.y), this.cellCoordinate(p.z));
+    }
+
+    private static long key(final int x, final int y, final int z) {
+        return ((x & MASK) << (BITS << 1)) | ((y & MASK) << BITS) | (z & MASK);
+    }
+
+    private static int hash(final long key, final int mask) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /**
+     * Entities in a cell.
+     */
+    private static final class Cell {
+
+        private long key;
+
+        private Object[] entities = new Object[4];
+
+        private int[] slots = new int[4];
+
+        private int size;
+
+        private Cell(final long key) {
+            super();
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for a structural change of the entity manager, the duration includes the time waiting for the lock.
+ *
+ * @author Grégory Van den Borre
+ */
+@Name("be.yildizgames.entity.StructuralChange")
+@Label("Entity Structural Change")
+@Category({"Yildiz", "Entity"})
+@Description("Entities added, removed or transferred to another owner, including the lock wait time.")
+@StackTrace(false)
+final class StructuralChangeEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Entities")
+    int entities;
+
+    /**
+     * Create and start a new event.
+     *
+     * @return The started event.
+     */
+    static StructuralChangeEvent start() {
+        StructuralChangeEvent event = new StructuralChangeEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the event and commit it if it is recorded.
+     *
+     * @param operation Operation name.
+     * @param entities Number of entities changed.
+     */
+    void finish(final String operation, final int entities) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.operation = operation;
+            this.entities = entities;
+            this.commit();
+        }
+    }
+}
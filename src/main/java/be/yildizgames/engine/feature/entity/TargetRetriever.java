@@ -27,8 +27,9 @@ package be.yildizgames.engine.feature.entity;
 import be.yildizgames.common.geometry.Point3D;
 import be.yildizgames.engine.feature.entity.fields.Target;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Retrieve the Entity in a given zone.
@@ -55,9 +56,19 @@ public final class TargetRetriever<T extends Entity> {
      * @return All entities in a given zone.
      */
     public Set<Target> retrieve(final Point3D pos, final int damageZone) {
-        return this.manager.getEntities()
-                .stream()
-                .filter(e -> Point3D.squaredDistance(e.getPosition(), pos) < damageZone * damageZone)
-                .collect(Collectors.toSet());
+        Set<Target> result = new HashSet<>();
+        this.manager.findInRadius(pos, damageZone, result);
+        return result;
+    }
+
+    /**
+     * Retrieve the entities in a zone without allocating a new collection.
+     *
+     * @param pos        Center of the zone.
+     * @param damageZone Zone radius.
+     * @param result     Collection to fill with the entities in the zone.
+     */
+    public void retrieve(final Point3D pos, final int damageZone, final Collection<? super T> result) {
+        this.manager.findInRadius(pos, damageZone, result);
     }
 }
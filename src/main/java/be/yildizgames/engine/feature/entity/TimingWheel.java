@@ -0,0 +1,210 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, to be notified when a time is reached without checking every element every frame.
+ * The wheel has 4 levels of 64 slots, an element is stored in the level matching how far its deadline is, and moved to a lower level when that level
+ * reaches it, so advancing the time only costs the number of ticks elapsed and the number of elements expired or moved.
+ * Deadlines farther than 64^4 ticks are kept in the highest level until they get close enough.
+ * Elements are kept in arrays reused between calls, nothing is allocated once the wheel has reached its size.
+ * This class is not thread safe.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class TimingWheel<E> {
+
+    private static final int SLOT_BITS = 6;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final int LEVELS = 4;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int NONE = -1;
+
+    /**
+     * Duration of a tick.
+     */
+    private final long tickDuration;
+
+    /**
+     * First node of every slot, for all levels.
+     */
+    private final int[] heads = new int[LEVELS * SLOTS];
+
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+
+    private long[] deadlines = new long[INITIAL_CAPACITY];
+
+    /**
+     * Next node in the same slot, or in the free list.
+     */
+    private int[] next = new int[INITIAL_CAPACITY];
+
+    private int freeHead = NONE;
+
+    private int nodeCount;
+
+    private int size;
+
+    /**
+     * Last tick processed.
+     */
+    private long currentTick;
+
+    /**
+     * Create a new timing wheel, starting at time 0.
+     *
+     * @param tickDuration Duration of a tick, deadlines are rounded down to a tick.
+     */
+    public TimingWheel(final long tickDuration) {
+        super();
+        assert tickDuration > 0;
+        this.tickDuration = tickDuration;
+        Arrays.fill(this.heads, NONE);
+    }
+
+    /**
+     * Register an element to be notified at a given time.
+     *
+     * @param element Element to notify.
+     * @param time Time to notify the element, if already reached, it is notified at the next advance.
+     */
+    public void schedule(final E element, final long time) {
+        assert element != null;
+        int node = this.allocate();
+        this.elements[node] = element;
+        this.deadlines[node] = Math.max(time / this.tickDuration, this.currentTick + 1);
+        this.insert(node);
+        this.size++;
+    }
+
+    /**
+     * Advance the time and notify all the elements whose time is reached, the earliest ticks first.
+     *
+     * @param time Current time.
+     * @param expired Notified with every element whose time is reached.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(final long time, final Consumer<? super E> expired) {
+        long target = time / this.tickDuration;
+        if (this.size == 0) {
+            this.currentTick = Math.max(this.currentTick, target);
+            return;
+        }
+        while (this.currentTick < target && this.size > 0) {
+            long tick = ++this.currentTick;
+            for (int level = 1; level < LEVELS && (tick & ((1L << (SLOT_BITS * level)) - 1)) == 0; level++) {
+                this.cascade(level, (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+            int slot = (int) tick & SLOT_MASK;
+            int node = this.heads[slot];
+            this.heads[slot] = NONE;
+            while (node != NONE) {
+                int following = this.next[node];
+                E e = (E) this.elements[node];
+                this.release(node);
+                this.size--;
+                expired.accept(e);
+                node = following;
+            }
+        }
+        this.currentTick = Math.max(this.currentTick, target);
+    }
+
+    /**
+     * @return The number of elements waiting for their time.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Move all the elements of a slot to the lower levels.
+     */
+    private void cascade(final int level, final int slot) {
+        int index = level * SLOTS + slot;
+        int node = this.heads[index];
+        this.heads[index] = NONE;
+        while (node != NONE) {
+            int following = this.next[node];
+            this.insert(node);
+            node = following;
+        }
+    }
+
+    /**
+     * Insert a node in the slot matching its deadline.
+     */
+    private void insert(final int node) {
+        long deadline = this.deadlines[node];
+        long delta = deadline - this.currentTick;
+        int index;
+        if (delta < SLOTS) {
+            index = (int) deadline & SLOT_MASK;
+        } else {
+            int level = 1;
+            while (level < LEVELS && delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+            if (level == LEVELS) {
+                level = LEVELS - 1;
+                index = level * SLOTS + ((int) (this.currentTick >>> (SLOT_BITS * level)) - 1 & SLOT_MASK);
+            } else {
+                index = level * SLOTS + ((int) (deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+        }
+        this.next[node] = this.heads[index];
+        this.heads[index] = node;
+    }
+
+    private int allocate() {
+        if (this.freeHead != NONE) {
+            int node = this.freeHead;
+            this.freeHead = this.next[node];
+            return node;
+        }
+        if (this.nodeCount == this.elements.length) {
+            int capacity = this.nodeCount << 1;
+            this.elements = Arrays.copyOf(this.elements, capacity);
+            this.deadlines = Arrays.copyOf(this.deadlines, capacity);
+            this.next = Arrays.copyOf(this.next, capacity);
+        }
+        return this.nodeCount++;
+    }
+
+    private void release(final int node) {
+        this.elements[node] = null;
+        this.next[node] = this.freeHead;
+        this.freeHead = node;
+    }
+}
@@ -58,6 +58,11 @@ public abstract class AbstractAttack extends BaseAction {
      */
     protected AttackHitResult attackHit;
 
+    /**
+     * Time between 2 shots, in milliseconds.
+     */
+    private long attackTime;
+
     /**
      * Create a new Attack action.
      * @param id Action id of the associated module.
@@ -86,6 +91,16 @@ public abstract class AbstractAttack extends BaseAction {
     }
 
     public final void setAttackTime(final AttackTime time) {
-        this.timer = new ElapsedTimeComputer(time.getTime().toMillis());
+        this.attackTime = time.getTime().toMillis();
+        this.timer = new ElapsedTimeComputer(this.attackTime);
+    }
+
+    /**
+     * Provide the time left before the next shot, as computed by the last timer check.
+     *
+     * @return The time left in milliseconds.
+     */
+    protected final long getRemainingCooldown() {
+        return Math.max(0, (long) ((1f - this.timer.getCompletion()) * this.attackTime));
     }
 }
@@ -26,6 +26,7 @@ package be.yildizgames.engine.feature.entity.action;
 
 import be.yildizgames.common.geometry.Point3D;
 import be.yildizgames.common.model.ActionId;
+import be.yildizgames.engine.feature.entity.EffectBuffer;
 import be.yildizgames.engine.feature.entity.Entity;
 import be.yildizgames.engine.feature.entity.fields.Target;
 
@@ -67,8 +68,9 @@ public abstract class AbstractAttackEntity extends AbstractAttack {
                 && e.getDirection().equals(target.getPosition().subtract(e.getPosition()))) {
             this.fire(e);
             if (this.timer.isTimeElapsed()) {
-                target.hit(this.attackHit);
+                EffectBuffer.hit(target, this.attackHit);
             }
+            this.sleepUntilMoved(this.getRemainingCooldown(), e, target);
         } else {
             this.stopFire(e);
         }
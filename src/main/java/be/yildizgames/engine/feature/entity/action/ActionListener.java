@@ -27,8 +27,14 @@ package be.yildizgames.engine.feature.entity.action;
 import be.yildizgames.common.model.EntityId;
 import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.entity.Action;
+import be.yildizgames.engine.feature.entity.fields.Target;
 
 /**
+ * Notified about the entity actions by the action manager.
+ * By default, execute is called every frame for every running action, and complete every frame for every action not running.
+ * When the action manager is edge triggered, only the transitions are notified instead: started, targetChanged, stopped and completed,
+ * with an optional stillRunning heartbeat.
+ *
  * @author Grégory Van den Borre
  */
 @FunctionalInterface
@@ -41,4 +47,56 @@ public interface ActionListener {
 
     default void complete(EntityId id, PlayerId owner, Action a) {
     }
+
+    /**
+     * Notified once when an action starts running, in edge triggered mode.
+     *
+     * @param id Id of the entity running the action.
+     * @param owner Owner of the entity.
+     * @param a Action started.
+     * @param target Entity target when the action started, null if none.
+     */
+    default void started(EntityId id, PlayerId owner, Action a, Target target) {
+    }
+
+    /**
+     * Notified when the entity target changes while an action is running, in edge triggered mode.
+     *
+     * @param id Id of the entity running the action.
+     * @param owner Owner of the entity.
+     * @param a Running action.
+     * @param target New entity target, null if none.
+     */
+    default void targetChanged(EntityId id, PlayerId owner, Action a, Target target) {
+    }
+
+    /**
+     * Notified once when a running action is stopped before its end, in edge triggered mode.
+     *
+     * @param id Id of the entity running the action.
+     * @param owner Owner of the entity.
+     * @param a Action stopped.
+     */
+    default void stopped(EntityId id, PlayerId owner, Action a) {
+    }
+
+    /**
+     * Notified once when a running action ends by itself, in edge triggered mode.
+     *
+     * @param id Id of the entity running the action.
+     * @param owner Owner of the entity.
+     * @param a Action completed.
+     */
+    default void completed(EntityId id, PlayerId owner, Action a) {
+    }
+
+    /**
+     * Notified periodically for every running action, in edge triggered mode with a heartbeat period.
+     *
+     * @param id Id of the entity running the action.
+     * @param owner Owner of the entity.
+     * @param a Running action.
+     */
+    default void stillRunning(EntityId id, PlayerId owner, Action a) {
+    }
 }
@@ -61,4 +61,8 @@ public class NoAction extends AbstractNoInteractionAction{
         //does nothing
     }
 
+    @Override
+    public boolean isNoOp() {
+        return true;
+    }
 }
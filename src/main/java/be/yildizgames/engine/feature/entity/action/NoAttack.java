@@ -97,4 +97,9 @@ public class NoAttack extends AbstractAttack {
     public void delete() {
         //does nothing
     }
+
+    @Override
+    public boolean isNoOp() {
+        return true;
+    }
 }
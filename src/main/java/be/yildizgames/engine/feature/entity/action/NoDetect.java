@@ -61,4 +61,8 @@ public class NoDetect extends Detect{
         //does nothing
     }
 
+    @Override
+    public boolean isNoOp() {
+        return true;
+    }
 }
@@ -40,4 +40,9 @@ public class NoEnergy extends ProduceEnergy {
     protected final void energyReplenishStrategy(final long time, Entity e) {
         //does nothing
     }
+
+    @Override
+    public boolean isNoOp() {
+        return true;
+    }
 }
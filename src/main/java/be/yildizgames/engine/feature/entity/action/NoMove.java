@@ -75,4 +75,9 @@ public final class NoMove extends Move {
     public void delete() {
         //does nothing
     }
+
+    @Override
+    public boolean isNoOp() {
+        return true;
+    }
 }
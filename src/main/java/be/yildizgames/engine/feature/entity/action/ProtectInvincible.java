@@ -74,4 +74,9 @@ public final class ProtectInvincible extends Protect {
     public void addHitResult(AttackHitResult r) {
         //does nothing
     }
+
+    @Override
+    public boolean isNoOp() {
+        return true;
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Record the action run durations of a single thread, to be merged in the SimulationMetrics at the end of the frame.
+ * The action manager installs the recorder on the thread updating the entities, the actions then record with the static methods.
+ * When no metrics are enabled, isEnabled returns false, and the actions do not measure anything.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class ActionRecorder {
+
+    /**
+     * Recorder for the current thread, null if the thread is not updating entities.
+     */
+    private static final ThreadLocal<ActionRecorder> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Number of metrics currently enabled.
+     */
+    private static volatile int enabled;
+
+    /**
+     * Durations by action class.
+     */
+    private final Map<Class<?>, LatencyHistogram> histograms = new HashMap<>();
+
+    /**
+     * Number of actions run since the last drain.
+     */
+    private long actions;
+
+    ActionRecorder() {
+        super();
+    }
+
+    /**
+     * @return <code>true</code> if the action durations must be measured.
+     */
+    public static boolean isEnabled() {
+        return enabled > 0;
+    }
+
+    /**
+     * Record an action run duration in the recorder of the current thread, if any.
+     *
+     * @param type Action class.
+     * @param duration Run duration, in nanoseconds.
+     */
+    public static void record(final Class<?> type, final long duration) {
+        ActionRecorder r = CURRENT.get();
+        if (r != null) {
+            r.actions++;
+            r.histograms.computeIfAbsent(type, t -> new LatencyHistogram()).record(duration);
+        }
+    }
+
+    /**
+     * Install this recorder on the current thread.
+     */
+    public void begin() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Remove this recorder from the current thread.
+     */
+    public void end() {
+        CURRENT.remove();
+    }
+
+    static synchronized void enable() {
+        enabled++;
+    }
+
+    static synchronized void disable() {
+        enabled--;
+    }
+
+    /**
+     * Move the recorded values in the global histograms.
+     *
+     * @param target Global histograms, by action class.
+     * @return The number of actions run since the previous drain.
+     */
+    long drainTo(final Map<Class<?>, LatencyHistogram> target) {
+        for (Map.Entry<Class<?>, LatencyHistogram> e : this.histograms.entrySet()) {
+            target.computeIfAbsent(e.getKey(), t -> new LatencyHistogram()).add(e.getValue());
+            e.getValue().reset();
+        }
+        long result = this.actions;
+        this.actions = 0;
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.metrics;
+
+/**
+ * Counters of the last simulation frame, and the frame durations since the last export.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class FrameMetrics {
+
+    /**
+     * Frame durations since the last export, in nanoseconds.
+     */
+    private final LatencyHistogram durations = new LatencyHistogram();
+
+    private long frame;
+
+    private long duration;
+
+    private int entitiesTicked;
+
+    private long actionsRun;
+
+    private long listenerDispatchTime;
+
+    private int destructions;
+
+    /**
+     * Number of frames that exceeded the frame budget since the last export.
+     */
+    private int budgetOverruns;
+
+    private int deferredEntities;
+
+    FrameMetrics() {
+        super();
+    }
+
+    /**
+     * Update the counters with the values of a new frame.
+     */
+    void update(final long duration, final int entitiesTicked, final long actionsRun, final long listenerDispatchTime, final int destructions,
+                final boolean budgetOverrun, final int deferredEntities) {
+        this.frame++;
+        this.duration = duration;
+        this.entitiesTicked = entitiesTicked;
+        this.actionsRun = actionsRun;
+        this.listenerDispatchTime = listenerDispatchTime;
+        this.destructions = destructions;
+        this.deferredEntities = deferredEntities;
+        if (budgetOverrun) {
+            this.budgetOverruns++;
+        }
+        this.durations.record(duration);
+    }
+
+    void reset() {
+        this.durations.reset();
+        this.budgetOverruns = 0;
+    }
+
+    /**
+     * @return The number of frames since the metrics creation.
+     */
+    public long getFrame() {
+        return this.frame;
+    }
+
+    /**
+     * @return The last frame duration, in nanoseconds.
+     */
+    public long getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * @return The frame durations since the last export, in nanoseconds.
+     */
+    public LatencyHistogram getDurations() {
+        return this.durations;
+    }
+
+    /**
+     * @return The number of entities updated during the last frame.
+     */
+    public int getEntitiesTicked() {
+        return this.entitiesTicked;
+    }
+
+    /**
+     * @return The number of actions run during the last frame.
+     */
+    public long getActionsRun() {
+        return this.actionsRun;
+    }
+
+    /**
+     * @return The time spent to notify the listeners during the last frame, in nanoseconds.
+     */
+    public long getListenerDispatchTime() {
+        return this.listenerDispatchTime;
+    }
+
+    /**
+     * @return The number of entities destroyed during the last frame.
+     */
+    public int getDestructions() {
+        return this.destructions;
+    }
+
+    /**
+     * @return The number of frames that exceeded the frame budget since the last export.
+     */
+    public int getBudgetOverruns() {
+        return this.budgetOverruns;
+    }
+
+    /**
+     * @return The number of low priority entities deferred to the next frames during the last frame.
+     */
+    public int getDeferredEntities() {
+        return this.deferredEntities;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations with a bounded relative error, recording is constant time and allocation free.
+ * Values below 64 are counted exactly, bigger values are counted in buckets of 32 per power of 2, giving a precision of about 3%.
+ * This class is not thread safe, every thread must record in its own histogram, the histograms can then be merged.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Number of bits for the buckets in a power of 2.
+     */
+    private static final int SUB_BITS = 5;
+
+    /**
+     * Number of buckets in a power of 2.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Values counted exactly.
+     */
+    private static final int LINEAR = SUB_BUCKETS << 1;
+
+    /**
+     * Exponent of the first power of 2 not counted exactly.
+     */
+    private static final int FIRST_EXPONENT = SUB_BITS + 1;
+
+    /**
+     * Total number of buckets, to hold any positive long value.
+     */
+    private static final int BUCKETS = LINEAR + ((63 - FIRST_EXPONENT) << SUB_BITS);
+
+    private final long[] counts = new long[BUCKETS];
+
+    private long count;
+
+    private long total;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max;
+
+    /**
+     * Record a value, negative values are counted as 0.
+     *
+     * @param value Value to record.
+     */
+    public void record(final long value) {
+        long v = Math.max(0, value);
+        this.counts[index(v)]++;
+        this.count++;
+        this.total += v;
+        this.min = Math.min(this.min, v);
+        this.max = Math.max(this.max, v);
+    }
+
+    /**
+     * Add all the values of another histogram in this one.
+     *
+     * @param other Histogram to add.
+     */
+    public void add(final LatencyHistogram other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts[i] += other.counts[i];
+        }
+        this.count += other.count;
+        this.total += other.total;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * Remove all the recorded values.
+     */
+    public void reset() {
+        if (this.count == 0) {
+            return;
+        }
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.total = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+
+    /**
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return The sum of the recorded values.
+     */
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * @return The smallest recorded value, 0 if empty.
+     */
+    public long getMin() {
+        return this.count == 0 ? 0 : this.min;
+    }
+
+    /**
+     * @return The biggest recorded value, 0 if empty.
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @return The mean of the recorded values, 0 if empty.
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.total / this.count;
+    }
+
+    /**
+     * Provide the value under which a percentage of the recorded values are.
+     *
+     * @param percentile Percentage, between 0 and 100.
+     * @return The highest value equivalent to the percentile, within the histogram precision, 0 if empty.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        assert percentile >= 0 && percentile <= 100;
+        if (this.count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.max(this.getMin(), Math.min(this.max, lowerBound(i + 1) - 1));
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * @param value Positive value.
+     * @return The bucket counting the value.
+     */
+    private static int index(final long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + ((exponent - FIRST_EXPONENT) << SUB_BITS) + sub;
+    }
+
+    /**
+     * @param index Bucket index.
+     * @return The smallest value counted in the bucket.
+     */
+    private static long lowerBound(final int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        if (index >= BUCKETS) {
+            return Long.MAX_VALUE;
+        }
+        int exponent = ((index - LINEAR) >>> SUB_BITS) + FIRST_EXPONENT;
+        long sub = (index - LINEAR) & (SUB_BUCKETS - 1);
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+}
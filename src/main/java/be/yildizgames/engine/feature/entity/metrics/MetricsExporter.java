@@ -0,0 +1,46 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.metrics;
+
+import java.util.Map;
+
+/**
+ * Receive the simulation metrics periodically, to publish them to a monitoring system.
+ * Implementations can be registered directly on the SimulationMetrics, or provided as a service to be found with the ServiceLoader.
+ * Exporters are called from the frame thread, they must not keep the histograms, that are reset after the export.
+ *
+ * @author Grégory Van den Borre
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    /**
+     * Export the metrics of the last period.
+     *
+     * @param frame Counters of the last frame, and frame durations of the period.
+     * @param actions Duration of the action runs during the period, by action class.
+     */
+    void export(FrameMetrics frame, Map<Class<?>, LatencyHistogram> actions);
+}
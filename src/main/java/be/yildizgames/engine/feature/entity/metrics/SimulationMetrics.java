@@ -0,0 +1,184 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Metrics of the entity simulation: run duration of every action class, and counters of every frame.
+ * The metrics are given to an action manager, that records them while running the frames,
+ * and are exported to the registered exporters every period, the histograms are reset after every export.
+ * Without metrics, the action manager and the actions only check a flag, and do not measure anything.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class SimulationMetrics {
+
+    /**
+     * Number of frames between 2 exports.
+     */
+    private final int exportPeriod;
+
+    /**
+     * Recorders given to the threads updating the entities.
+     */
+    private final List<ActionRecorder> recorders = new ArrayList<>();
+
+    /**
+     * Run durations by action class, since the last export.
+     */
+    private final Map<Class<?>, LatencyHistogram> actions = new HashMap<>();
+
+    /**
+     * Read only view of the run durations.
+     */
+    private final Map<Class<?>, LatencyHistogram> actionsView = Collections.unmodifiableMap(this.actions);
+
+    private final FrameMetrics frame = new FrameMetrics();
+
+    private final List<MetricsExporter> exporters = new ArrayList<>();
+
+    /**
+     * Number of frames since the last export.
+     */
+    private int sinceExport;
+
+    /**
+     * Number of action managers using these metrics.
+     */
+    private int users;
+
+    /**
+     * Create new metrics.
+     *
+     * @param exportPeriod Number of frames between 2 exports.
+     */
+    public SimulationMetrics(final int exportPeriod) {
+        super();
+        assert exportPeriod > 0;
+        this.exportPeriod = exportPeriod;
+    }
+
+    /**
+     * Create new metrics, exporting to all the MetricsExporter services available.
+     *
+     * @param exportPeriod Number of frames between 2 exports.
+     * @return The created metrics.
+     */
+    public static SimulationMetrics withServiceExporters(final int exportPeriod) {
+        SimulationMetrics metrics = new SimulationMetrics(exportPeriod);
+        ServiceLoader.load(MetricsExporter.class).forEach(metrics::addExporter);
+        return metrics;
+    }
+
+    /**
+     * Register an exporter to call every period.
+     *
+     * @param exporter Exporter to add.
+     */
+    public void addExporter(final MetricsExporter exporter) {
+        assert exporter != null;
+        this.exporters.add(exporter);
+    }
+
+    /**
+     * Start recording for an action manager, the actions measure their durations until stop is called.
+     */
+    public void start() {
+        if (this.users == 0) {
+            ActionRecorder.enable();
+        }
+        this.users++;
+    }
+
+    /**
+     * Stop recording for an action manager.
+     */
+    public void stop() {
+        assert this.users > 0;
+        this.users--;
+        if (this.users == 0) {
+            ActionRecorder.disable();
+        }
+    }
+
+    /**
+     * Create a recorder for a thread updating entities.
+     *
+     * @return The created recorder.
+     */
+    public ActionRecorder createRecorder() {
+        ActionRecorder r = new ActionRecorder();
+        this.recorders.add(r);
+        return r;
+    }
+
+    /**
+     * Merge the recorded durations and update the frame counters, at the end of a frame, once all the threads are done.
+     *
+     * @param duration Frame duration, in nanoseconds.
+     * @param entitiesTicked Number of entities updated.
+     * @param listenerDispatchTime Time spent to notify the listeners, in nanoseconds.
+     * @param destructions Number of entities destroyed.
+     * @param budgetOverrun <code>true</code> if the frame exceeded the frame budget.
+     * @param deferredEntities Number of low priority entities deferred to the next frames.
+     */
+    public void frameEnded(final long duration, final int entitiesTicked, final long listenerDispatchTime, final int destructions,
+                           final boolean budgetOverrun, final int deferredEntities) {
+        long actionsRun = 0;
+        for (int i = 0; i < this.recorders.size(); i++) {
+            actionsRun += this.recorders.get(i).drainTo(this.actions);
+        }
+        this.frame.update(duration, entitiesTicked, actionsRun, listenerDispatchTime, destructions, budgetOverrun, deferredEntities);
+        this.sinceExport++;
+        if (this.sinceExport >= this.exportPeriod) {
+            this.sinceExport = 0;
+            for (int i = 0; i < this.exporters.size(); i++) {
+                this.exporters.get(i).export(this.frame, this.actionsView);
+            }
+            this.actions.values().forEach(LatencyHistogram::reset);
+            this.frame.reset();
+        }
+    }
+
+    /**
+     * @return The counters of the last frame.
+     */
+    public FrameMetrics getFrame() {
+        return this.frame;
+    }
+
+    /**
+     * @return The run durations by action class, since the last export.
+     */
+    public Map<Class<?>, LatencyHistogram> getActions() {
+        return this.actionsView;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol;
+
+import be.yildizgames.common.geometry.Point3D;
+
+import java.util.Arrays;
+
+/**
+ * Positions of many entities for a frame, sent as a single message.
+ * The values are kept in primitive arrays, the position and orientation coordinates being interleaved (x, y, z), so a batch can be filled and read without any object per entity.
+ * A batch is meant to be reused: clear it, and add the positions of the next frame.
+ *
+ * @author Grégory Van den Borre
+ */
+public class EntityPositionBatchDto {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Frame number.
+     */
+    private long frame;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+
+    private float[] positions = new float[INITIAL_CAPACITY * 3];
+
+    private float[] orientations = new float[INITIAL_CAPACITY * 3];
+
+    private int size;
+
+    public EntityPositionBatchDto(long frame) {
+        super();
+        this.frame = frame;
+    }
+
+    /**
+     * Add an entity position.
+     *
+     * @param id Entity id value.
+     * @param position Entity position.
+     * @param orientation Entity orientation.
+     */
+    public final void add(final long id, final Point3D position, final Point3D orientation) {
+        this.add(id, position.x, position.y, position.z, orientation.x, orientation.y, orientation.z);
+    }
+
+    /**
+     * Add an entity position.
+     */
+    public final void add(final long id, final float x, final float y, final float z, final float orientationX, final float orientationY, final float orientationZ) {
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, this.size << 1);
+            this.positions = Arrays.copyOf(this.positions, this.size * 6);
+            this.orientations = Arrays.copyOf(this.orientations, this.size * 6);
+        }
+        int i = this.size * 3;
+        this.ids[this.size] = id;
+        this.positions[i] = x;
+        this.positions[i + 1] = y;
+        this.positions[i + 2] = z;
+        this.orientations[i] = orientationX;
+        this.orientations[i + 1] = orientationY;
+        this.orientations[i + 2] = orientationZ;
+        this.size++;
+    }
+
+    /**
+     * Remove all the positions and set a new frame number, the arrays are kept.
+     *
+     * @param frame New frame number.
+     */
+    public final void clear(final long frame) {
+        this.frame = frame;
+        this.size = 0;
+    }
+
+    public final long getFrame() {
+        return this.frame;
+    }
+
+    public final void setFrame(final long frame) {
+        this.frame = frame;
+    }
+
+    /**
+     * @return The number of entity positions.
+     */
+    public final int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The entity id values, valid up to size.
+     */
+    public final long[] getIds() {
+        return this.ids;
+    }
+
+    /**
+     * @return The positions, 3 coordinates per entity, valid up to size * 3.
+     */
+    public final float[] getPositions() {
+        return this.positions;
+    }
+
+    /**
+     * @return The orientations, 3 coordinates per entity, valid up to size * 3.
+     */
+    public final float[] getOrientations() {
+        return this.orientations;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EntityPositionBatchDto that = (EntityPositionBatchDto) o;
+        return this.frame == that.frame
+                && this.size == that.size
+                && Arrays.equals(this.ids, 0, this.size, that.ids, 0, that.size)
+                && Arrays.equals(this.positions, 0, this.size * 3, that.positions, 0, that.size * 3)
+                && Arrays.equals(this.orientations, 0, this.size * 3, that.orientations, 0, that.size * 3);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Long.hashCode(this.frame);
+        for (int i = 0; i < this.size; i++) {
+            result = 31 * result + Long.hashCode(this.ids[i]);
+        }
+        return result;
+    }
+}
@@ -26,7 +26,8 @@ package be.yildizgames.engine.feature.entity.protocol.mapper;
 
 import be.yildizgames.common.mapping.ObjectMapper;
 import be.yildizgames.common.mapping.Separator;
-import be.yildizgames.common.mapping.model.EntityIdMapper;
+import be.yildizgames.common.model.ActionId;
+import be.yildizgames.common.model.EntityId;
 import be.yildizgames.engine.feature.entity.protocol.ActionDto;
 
 /**
@@ -46,18 +47,48 @@ public class ActionDtoMapper implements ObjectMapper<ActionDto> {
 
     @Override
     public final ActionDto from(String s) {
-        String[] v = s.split(Separator.OBJECTS_SEPARATOR);
-        try {
-            return new ActionDto(ActionIdMapper.getInstance().from(v[0]), EntityIdMapper.getInstance().from(v[1]));
-        } catch (IndexOutOfBoundsException e) {
-            throw new EntityMappingException(e);
-        }
+        return this.from(s, 0, s.length());
     }
 
     @Override
     public final String to(ActionDto action) {
-        return ActionIdMapper.getInstance().to(action.id)
-                + Separator.OBJECTS_SEPARATOR
-                + EntityIdMapper.getInstance().to(action.entity);
+        StringBuilder builder = new StringBuilder(24);
+        this.to(action, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Read an action from a part of a text, without splitting it.
+     *
+     * @param s Text to read.
+     * @param start Position of the first character.
+     * @param end Position after the last character.
+     * @return The read object.
+     */
+    public final ActionDto from(final CharSequence s, final int start, final int end) {
+        return this.from(new TextParser(s, start, end));
+    }
+
+    /**
+     * Read an action at the parser position, the parser is left after it.
+     *
+     * @param parser Parser to read from.
+     * @return The read object.
+     */
+    public final ActionDto from(final TextParser parser) {
+        ActionId id = ActionIdMapper.getInstance().from(parser);
+        parser.expect(Separator.OBJECTS_SEPARATOR);
+        return new ActionDto(id, EntityId.valueOf(parser.nextLong()));
+    }
+
+    /**
+     * Append an action to a builder, without creating any intermediate String.
+     *
+     * @param action Object to write.
+     * @param builder Builder to append to.
+     */
+    public final void to(final ActionDto action, final StringBuilder builder) {
+        ActionIdMapper.getInstance().to(action.id, builder);
+        builder.append(Separator.OBJECTS_SEPARATOR).append(action.entity.value);
     }
 }
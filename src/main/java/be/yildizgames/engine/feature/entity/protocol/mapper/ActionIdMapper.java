@@ -47,15 +47,43 @@ public class ActionIdMapper implements ObjectMapper<ActionId> {
     @Override
     public final ActionId from(String s) {
         Objects.requireNonNull(s);
-        try {
-            return ActionId.valueOf(Integer.parseInt(s));
-        } catch (final NumberFormatException nfe) {
-            throw new EntityMappingException(nfe);
-        }
+        return this.from(s, 0, s.length());
     }
 
     @Override
     public final String to(ActionId actionId) {
         return String.valueOf(actionId.value);
     }
+
+    /**
+     * Read an action id from a part of a text, without splitting it.
+     *
+     * @param s Text to read.
+     * @param start Position of the first character.
+     * @param end Position after the last character.
+     * @return The read object.
+     */
+    public final ActionId from(final CharSequence s, final int start, final int end) {
+        return this.from(new TextParser(s, start, end));
+    }
+
+    /**
+     * Read an action id at the parser position, the parser is left after it.
+     *
+     * @param parser Parser to read from.
+     * @return The read object.
+     */
+    public final ActionId from(final TextParser parser) {
+        return ActionId.valueOf(parser.nextInt());
+    }
+
+    /**
+     * Append an action id to a builder, without creating any intermediate String.
+     *
+     * @param actionId Object to write.
+     * @param builder Builder to append to.
+     */
+    public final void to(final ActionId actionId, final StringBuilder builder) {
+        builder.append(actionId.value);
+    }
 }
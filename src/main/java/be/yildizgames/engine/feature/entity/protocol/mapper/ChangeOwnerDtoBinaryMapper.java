@@ -0,0 +1,66 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.protocol.ChangeOwnerDto;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout: entity id as a varint, new owner id as a varint.
+ *
+ * @author Grégory Van den Borre
+ */
+public class ChangeOwnerDtoBinaryMapper implements BinaryMapper<ChangeOwnerDto> {
+
+    private static final ChangeOwnerDtoBinaryMapper INSTANCE = new ChangeOwnerDtoBinaryMapper();
+
+    private ChangeOwnerDtoBinaryMapper() {
+        super();
+    }
+
+    public static ChangeOwnerDtoBinaryMapper getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public final ChangeOwnerDto from(final ByteBuffer buffer) {
+        try {
+            EntityId entity = EntityId.valueOf(VarInt.readSigned(buffer));
+            return new ChangeOwnerDto(entity, PlayerId.valueOf((int) VarInt.readSigned(buffer)));
+        } catch (BufferUnderflowException e) {
+            throw new EntityMappingException(e);
+        }
+    }
+
+    @Override
+    public final void to(final ChangeOwnerDto dto, final ByteBuffer buffer) {
+        VarInt.writeSigned(buffer, dto.entity.value);
+        VarInt.writeSigned(buffer, dto.newOwnerId.value);
+    }
+}
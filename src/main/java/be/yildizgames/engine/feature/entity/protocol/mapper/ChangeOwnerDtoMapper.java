@@ -26,8 +26,8 @@ package be.yildizgames.engine.feature.entity.protocol.mapper;
 
 import be.yildizgames.common.mapping.ObjectMapper;
 import be.yildizgames.common.mapping.Separator;
-import be.yildizgames.common.mapping.model.EntityIdMapper;
-import be.yildizgames.common.mapping.model.PlayerIdMapper;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.entity.protocol.ChangeOwnerDto;
 
 /**
@@ -47,18 +47,47 @@ public class ChangeOwnerDtoMapper implements ObjectMapper<ChangeOwnerDto> {
 
     @Override
     public ChangeOwnerDto from(String s) {
-        String[] v = s.split(Separator.OBJECTS_SEPARATOR);
-        try {
-            return new ChangeOwnerDto(EntityIdMapper.getInstance().from(v[0]), PlayerIdMapper.getInstance().from(v[1]));
-        } catch (IndexOutOfBoundsException e) {
-            throw new EntityMappingException(e);
-        }
+        return this.from(s, 0, s.length());
     }
 
     @Override
     public String to(ChangeOwnerDto dto) {
-        return EntityIdMapper.getInstance().to(dto.entity)
-                + Separator.OBJECTS_SEPARATOR
-                + PlayerIdMapper.getInstance().to(dto.newOwnerId);
+        StringBuilder builder = new StringBuilder(24);
+        this.to(dto, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Read an owner change from a part of a text, without splitting it.
+     *
+     * @param s Text to read.
+     * @param start Position of the first character.
+     * @param end Position after the last character.
+     * @return The read object.
+     */
+    public final ChangeOwnerDto from(final CharSequence s, final int start, final int end) {
+        return this.from(new TextParser(s, start, end));
+    }
+
+    /**
+     * Read an owner change at the parser position, the parser is left after it.
+     *
+     * @param parser Parser to read from.
+     * @return The read object.
+     */
+    public final ChangeOwnerDto from(final TextParser parser) {
+        EntityId entity = EntityId.valueOf(parser.nextLong());
+        parser.expect(Separator.OBJECTS_SEPARATOR);
+        return new ChangeOwnerDto(entity, PlayerId.valueOf(parser.nextInt()));
+    }
+
+    /**
+     * Append an owner change to a builder, without creating any intermediate String.
+     *
+     * @param dto Object to write.
+     * @param builder Builder to append to.
+     */
+    public final void to(final ChangeOwnerDto dto, final StringBuilder builder) {
+        builder.append(dto.entity.value).append(Separator.OBJECTS_SEPARATOR).append(dto.newOwnerId.value);
     }
 }
@@ -0,0 +1,241 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.util.Checker;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Keep the updates encoded during a frame, so an update sent to several connections is only encoded once.
+ * An update is identified by its entity id, its fields, its encoding and its event, the encoded bytes are kept in a direct buffer
+ * and every connection receives its own read only view of them, with an independent position.
+ * A state update is built from the entity state of the frame, so it is the same for a given entity and fields, it uses no event.
+ * An event such as a hit is not: several can happen to the same entity during a frame, each one must be given its own event number.
+ * The views are only valid until the next frame: clear reuses the buffer, so they must be written before calling it.
+ * Encoding is not thread safe, the returned views can be read from any thread.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class EncodedUpdateCache {
+
+    private static final int INITIAL_ENTRIES = 64;
+
+    /**
+     * Encoded updates of the current frame.
+     */
+    private ByteBuffer arena;
+
+    private long[] ids = new long[INITIAL_ENTRIES];
+
+    private int[] fields = new int[INITIAL_ENTRIES];
+
+    private long[] events = new long[INITIAL_ENTRIES];
+
+    private UpdateEncoding<?>[] encodings = new UpdateEncoding<?>[INITIAL_ENTRIES];
+
+    /**
+     * Read only view of every encoded update.
+     */
+    private ByteBuffer[] views = new ByteBuffer[INITIAL_ENTRIES];
+
+    /**
+     * Frame of every entry, an entry from another frame is empty.
+     */
+    private int[] frames = new int[INITIAL_ENTRIES];
+
+    /**
+     * Current frame, starting at 1 so the new entries are empty.
+     */
+    private int frame = 1;
+
+    /**
+     * Number of entries in the current frame.
+     */
+    private int size;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Create a new cache.
+     *
+     * @param capacity Initial number of bytes for a frame, the buffer grows if needed, must be greater than 0.
+     */
+    public EncodedUpdateCache(final int capacity) {
+        super();
+        Checker.exceptionNotGreaterThanZero(capacity);
+        this.arena = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Provide an encoded state update, encoding it only if it was not already encoded during this frame.
+     *
+     * @param id Id value of the updated entity.
+     * @param fields Fields to encode, as DirtyField bits.
+     * @param encoding Encoding to use.
+     * @param source Object to encode, only used if the update is not cached.
+     * @param <S> Object to encode.
+     * @return A read only view of the encoded bytes, from position 0 to its limit, not shared with any other caller.
+     */
+    public <S> ByteBuffer get(final long id, final int fields, final UpdateEncoding<? super S> encoding, final S source) {
+        return this.get(id, fields, encoding, 0, source);
+    }
+
+    /**
+     * Provide an encoded event update, encoding it only if the same event was not already encoded during this frame.
+     *
+     * @param id Id value of the updated entity.
+     * @param fields Fields to encode, as DirtyField bits.
+     * @param encoding Encoding to use.
+     * @param event Number of the event, different for every event of the entity during a frame, 0 is used by the state updates.
+     * @param source Object to encode, only used if the update is not cached.
+     * @param <S> Object to encode.
+     * @return A read only view of the encoded bytes, from position 0 to its limit, not shared with any other caller.
+     */
+    public <S> ByteBuffer get(final long id, final int fields, final UpdateEncoding<? super S> encoding, final long event, final S source) {
+        assert encoding != null;
+        int mask = this.ids.length - 1;
+        int i = hash(id, fields, encoding, event) & mask;
+        while (this.frames[i] == this.frame) {
+            if (this.ids[i] == id && this.fields[i] == fields && this.encodings[i] == encoding && this.events[i] == event) {
+                this.hits++;
+                return this.views[i].duplicate();
+            }
+            i = (i + 1) & mask;
+        }
+        this.misses++;
+        ByteBuffer view = this.encode(fields, encoding, source);
+        if ((this.size + 1) << 1 > this.ids.length) {
+            this.grow();
+        }
+        this.insert(id, fields, encoding, event, view);
+        this.size++;
+        return view.duplicate();
+    }
+
+    /**
+     * Start a new frame, the previously returned views must no longer be used.
+     */
+    public void clear() {
+        this.frame++;
+        if (this.frame == 0) {
+            Arrays.fill(this.frames, 0);
+            this.frame = 1;
+        }
+        Arrays.fill(this.views, null);
+        this.arena.clear();
+        this.size = 0;
+    }
+
+    /**
+     * @return The number of updates encoded during the current frame.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of requests served without encoding since this cache was created.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return The number of updates encoded since this cache was created.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Encode an update at the end of the arena, the arena is replaced by a bigger one if full, the views of the previous arena remain valid.
+     *
+     * @param fields Fields to encode.
+     * @param encoding Encoding to use.
+     * @param source Object to encode.
+     * @param <S> Object to encode.
+     * @return A read only view of the encoded bytes.
+     */
+    private <S> ByteBuffer encode(final int fields, final UpdateEncoding<? super S> encoding, final S source) {
+        while (true) {
+            int start = this.arena.position();
+            try {
+                encoding.encode(source, fields, this.arena);
+                int end = this.arena.position();
+                ByteBuffer view = this.arena.duplicate();
+                view.position(start).limit(end);
+                return view.slice().asReadOnlyBuffer();
+            } catch (BufferOverflowException e) {
+                this.arena = ByteBuffer.allocateDirect(this.arena.capacity() << 1);
+            }
+        }
+    }
+
+    private void insert(final long id, final int fields, final UpdateEncoding<?> encoding, final long event, final ByteBuffer view) {
+        int mask = this.ids.length - 1;
+        int i = hash(id, fields, encoding, event) & mask;
+        while (this.frames[i] == this.frame) {
+            i = (i + 1) & mask;
+        }
+        this.ids[i] = id;
+        this.fields[i] = fields;
+        this.encodings[i] = encoding;
+        this.events[i] = event;
+        this.views[i] = view;
+        this.frames[i] = this.frame;
+    }
+
+    private void grow() {
+        long[] oldIds = this.ids;
+        int[] oldFields = this.fields;
+        UpdateEncoding<?>[] oldEncodings = this.encodings;
+        long[] oldEvents = this.events;
+        ByteBuffer[] oldViews = this.views;
+        int[] oldFrames = this.frames;
+        int capacity = oldIds.length << 1;
+        this.ids = new long[capacity];
+        this.fields = new int[capacity];
+        this.encodings = new UpdateEncoding<?>[capacity];
+        this.events = new long[capacity];
+        this.views = new ByteBuffer[capacity];
+        this.frames = new int[capacity];
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldFrames[i] == this.frame) {
+                this.insert(oldIds[i], oldFields[i], oldEncodings[i], oldEvents[i], oldViews[i]);
+            }
+        }
+    }
+
+    private static int hash(final long id, final int fields, final UpdateEncoding<?> encoding, final long event) {
+        long h = (id * 0x9E3779B97F4A7C15L) ^ (fields * 0xC2B2AE3D27D4EB4FL) ^ (event * 0x165667B19E3779F9L) ^ System.identityHashCode(encoding);
+        h *= 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
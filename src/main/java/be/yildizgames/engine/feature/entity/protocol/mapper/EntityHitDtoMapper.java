@@ -24,10 +24,9 @@
 
 package be.yildizgames.engine.feature.entity.protocol.mapper;
 
-import be.yildizgames.common.mapping.IntegerMapper;
 import be.yildizgames.common.mapping.ObjectMapper;
 import be.yildizgames.common.mapping.Separator;
-import be.yildizgames.common.mapping.model.EntityIdMapper;
+import be.yildizgames.common.model.EntityId;
 import be.yildizgames.engine.feature.entity.protocol.EntityHitDto;
 
 /**
@@ -48,19 +47,47 @@ public class EntityHitDtoMapper implements ObjectMapper<EntityHitDto> {
 
     @Override
     public EntityHitDto from(String s) {
-        String[] v = s.split(Separator.OBJECTS_SEPARATOR);
-        try {
-            return new EntityHitDto(EntityIdMapper.getInstance().from(v[0]),
-                    IntegerMapper.getInstance().from(v[1]));
-        } catch(IndexOutOfBoundsException e) {
-            throw new EntityMappingException(e);
-        }
+        return this.from(s, 0, s.length());
     }
 
     @Override
     public String to(EntityHitDto dto) {
-        return EntityIdMapper.getInstance().to(dto.entity)
-                + Separator.OBJECTS_SEPARATOR
-                + IntegerMapper.getInstance().to(dto.hitPoint);
+        StringBuilder builder = new StringBuilder(24);
+        this.to(dto, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Read a hit from a part of a text, without splitting it.
+     *
+     * @param s Text to read.
+     * @param start Position of the first character.
+     * @param end Position after the last character.
+     * @return The read object.
+     */
+    public final EntityHitDto from(final CharSequence s, final int start, final int end) {
+        return this.from(new TextParser(s, start, end));
+    }
+
+    /**
+     * Read a hit at the parser position, the parser is left after it.
+     *
+     * @param parser Parser to read from.
+     * @return The read object.
+     */
+    public final EntityHitDto from(final TextParser parser) {
+        EntityId entity = EntityId.valueOf(parser.nextLong());
+        parser.expect(Separator.OBJECTS_SEPARATOR);
+        return new EntityHitDto(entity, parser.nextInt());
+    }
+
+    /**
+     * Append a hit to a builder, without creating any intermediate String.
+     *
+     * @param dto Object to write.
+     * @param builder Builder to append to.
+     */
+    public final void to(final EntityHitDto dto, final StringBuilder builder) {
+        builder.append(dto.entity.value).append(Separator.OBJECTS_SEPARATOR).append(dto.hitPoint);
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.engine.feature.entity.protocol.EntityPositionBatchDto;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of a position batch, as written by the PositionFrameWriter.
+ *
+ * @author Grégory Van den Borre
+ */
+public class EntityPositionBatchDtoBinaryMapper implements BinaryMapper<EntityPositionBatchDto> {
+
+    private static final EntityPositionBatchDtoBinaryMapper INSTANCE = new EntityPositionBatchDtoBinaryMapper();
+
+    private EntityPositionBatchDtoBinaryMapper() {
+        super();
+    }
+
+    public static EntityPositionBatchDtoBinaryMapper getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public final EntityPositionBatchDto from(final ByteBuffer buffer) {
+        return this.from(buffer, new EntityPositionBatchDto(0));
+    }
+
+    /**
+     * Read a batch into an existing dto, to reuse its arrays.
+     *
+     * @param buffer Buffer to read from.
+     * @param batch Batch to fill, cleared first.
+     * @return The filled batch.
+     */
+    public final EntityPositionBatchDto from(final ByteBuffer buffer, final EntityPositionBatchDto batch) {
+        batch.clear(0);
+        try {
+            batch.setFrame(PositionFrameWriter.read(buffer, batch::add));
+        } catch (BufferUnderflowException e) {
+            throw new EntityMappingException(e);
+        }
+        return batch;
+    }
+
+    @Override
+    public final void to(final EntityPositionBatchDto batch, final ByteBuffer buffer) {
+        PositionFrameWriter writer = new PositionFrameWriter().begin(buffer, batch.getFrame());
+        long[] ids = batch.getIds();
+        float[] p = batch.getPositions();
+        float[] o = batch.getOrientations();
+        for (int i = 0; i < batch.size(); i++) {
+            int c = i * 3;
+            writer.add(ids[i], p[c], p[c + 1], p[c + 2], o[c], o[c + 1], o[c + 2]);
+        }
+        writer.end();
+    }
+}
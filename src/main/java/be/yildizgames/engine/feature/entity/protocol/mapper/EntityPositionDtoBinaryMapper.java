@@ -0,0 +1,115 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.engine.feature.entity.protocol.EntityPositionDto;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout: entity id as a varint, position and orientation as 6 floats.
+ * The positions being the most frequent messages, they can also be written from the entity values and read into a consumer, without creating any dto.
+ *
+ * @author Grégory Van den Borre
+ */
+public class EntityPositionDtoBinaryMapper implements BinaryMapper<EntityPositionDto> {
+
+    /**
+     * Size of the position and orientation.
+     */
+    public static final int VECTORS_BYTES = 6 * Float.BYTES;
+
+    private static final EntityPositionDtoBinaryMapper INSTANCE = new EntityPositionDtoBinaryMapper();
+
+    private EntityPositionDtoBinaryMapper() {
+        super();
+    }
+
+    public static EntityPositionDtoBinaryMapper getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public final EntityPositionDto from(final ByteBuffer buffer) {
+        try {
+            EntityId id = EntityId.valueOf(VarInt.readSigned(buffer));
+            Point3D position = Point3D.valueOf(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+            Point3D orientation = Point3D.valueOf(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+            return new EntityPositionDto(id, position, orientation);
+        } catch (BufferUnderflowException e) {
+            throw new EntityMappingException(e);
+        }
+    }
+
+    /**
+     * Read a position without creating any object.
+     *
+     * @param buffer Buffer to read from.
+     * @param consumer Consumer receiving the read values.
+     */
+    public final void from(final ByteBuffer buffer, final PositionConsumer consumer) {
+        try {
+            long id = VarInt.readSigned(buffer);
+            consumer.accept(id, buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+        } catch (BufferUnderflowException e) {
+            throw new EntityMappingException(e);
+        }
+    }
+
+    @Override
+    public final void to(final EntityPositionDto dto, final ByteBuffer buffer) {
+        this.to(dto.id, dto.position, dto.orientation, buffer);
+    }
+
+    /**
+     * Write a position without creating any dto.
+     *
+     * @param id Entity id.
+     * @param position Entity position.
+     * @param orientation Entity orientation.
+     * @param buffer Buffer to write into.
+     */
+    public final void to(final EntityId id, final Point3D position, final Point3D orientation, final ByteBuffer buffer) {
+        VarInt.writeSigned(buffer, id.value);
+        buffer.putFloat(position.x);
+        buffer.putFloat(position.y);
+        buffer.putFloat(position.z);
+        buffer.putFloat(orientation.x);
+        buffer.putFloat(orientation.y);
+        buffer.putFloat(orientation.z);
+    }
+
+    /**
+     * Receive the values of a position read from a buffer.
+     */
+    @FunctionalInterface
+    public interface PositionConsumer {
+
+        void accept(long id, float x, float y, float z, float orientationX, float orientationY, float orientationZ);
+    }
+}
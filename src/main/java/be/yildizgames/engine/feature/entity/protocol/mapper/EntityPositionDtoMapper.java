@@ -26,8 +26,8 @@ package be.yildizgames.engine.feature.entity.protocol.mapper;
 
 import be.yildizgames.common.mapping.ObjectMapper;
 import be.yildizgames.common.mapping.Separator;
-import be.yildizgames.common.mapping.geometry.Point3DMapper;
-import be.yildizgames.common.mapping.model.EntityIdMapper;
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.EntityId;
 import be.yildizgames.engine.feature.entity.protocol.EntityPositionDto;
 
 /**
@@ -47,23 +47,77 @@ public class EntityPositionDtoMapper implements ObjectMapper<EntityPositionDto>
 
     @Override
     public EntityPositionDto from(String s) {
-        String[] v = s.split(Separator.OBJECTS_SEPARATOR );
-        try {
-            return new EntityPositionDto(EntityIdMapper.getInstance().from(v[0]),
-                    Point3DMapper.getInstance().from(v[1]),
-                    Point3DMapper.getInstance().from(v[2]));
-        } catch (final IndexOutOfBoundsException e) {
-            throw new EntityMappingException(e);
-        }
+        return this.from(s, 0, s.length());
     }
 
 
     @Override
     public String to(EntityPositionDto dto) {
-        return EntityIdMapper.getInstance().to(dto.id)
-                + Separator.OBJECTS_SEPARATOR
-                + Point3DMapper.getInstance().to(dto.position)
-                + Separator.OBJECTS_SEPARATOR
-                + Point3DMapper.getInstance().to(dto.orientation);
+        StringBuilder builder = new StringBuilder(64);
+        this.to(dto, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Read a position from a part of a text, without splitting it.
+     *
+     * @param s Text to read.
+     * @param start Position of the first character.
+     * @param end Position after the last character.
+     * @return The read object.
+     */
+    public final EntityPositionDto from(final CharSequence s, final int start, final int end) {
+        return this.from(new TextParser(s, start, end));
+    }
+
+    /**
+     * Read a position at the parser position, the parser is left after it.
+     *
+     * @param parser Parser to read from.
+     * @return The read object.
+     */
+    public final EntityPositionDto from(final TextParser parser) {
+        EntityId id = EntityId.valueOf(parser.nextLong());
+        parser.expect(Separator.OBJECTS_SEPARATOR);
+        Point3D position = readPoint(parser);
+        parser.expect(Separator.OBJECTS_SEPARATOR);
+        return new EntityPositionDto(id, position, readPoint(parser));
+    }
+
+    /**
+     * Append a position to a builder, without creating any intermediate String.
+     *
+     * @param dto Object to write.
+     * @param builder Builder to append to.
+     */
+    public final void to(final EntityPositionDto dto, final StringBuilder builder) {
+        builder.append(dto.id.value).append(Separator.OBJECTS_SEPARATOR);
+        appendPoint(dto.position, builder);
+        builder.append(Separator.OBJECTS_SEPARATOR);
+        appendPoint(dto.orientation, builder);
+    }
+
+    /**
+     * Read a point in the Point3DMapper format.
+     *
+     * @param parser Parser to read from.
+     * @return The read point.
+     */
+    private static Point3D readPoint(final TextParser parser) {
+        float x = parser.nextFloat();
+        parser.expect(Separator.VAR_SEPARATOR);
+        float y = parser.nextFloat();
+        parser.expect(Separator.VAR_SEPARATOR);
+        return Point3D.valueOf(x, y, parser.nextFloat());
+    }
+
+    /**
+     * Append a point in the Point3DMapper format.
+     *
+     * @param p Point to append.
+     * @param builder Builder to append to.
+     */
+    private static void appendPoint(final Point3D p, final StringBuilder builder) {
+        builder.append(p.x).append(Separator.VAR_SEPARATOR).append(p.y).append(Separator.VAR_SEPARATOR).append(p.z);
     }
 }
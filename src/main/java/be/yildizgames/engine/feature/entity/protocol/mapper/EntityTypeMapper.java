@@ -53,4 +53,36 @@ public class EntityTypeMapper implements ObjectMapper<EntityType> {
         return String.valueOf(type.type);
     }
 
+    /**
+     * Read an entity type from a part of a text, without splitting it.
+     *
+     * @param s Text to read.
+     * @param start Position of the first character.
+     * @param end Position after the last character.
+     * @return The read object.
+     */
+    public final EntityType from(final CharSequence s, final int start, final int end) {
+        return this.from(new TextParser(s, start, end));
+    }
+
+    /**
+     * Read an entity type at the parser position, the parser is left after it.
+     *
+     * @param parser Parser to read from.
+     * @return The read object.
+     */
+    public final EntityType from(final TextParser parser) {
+        return EntityType.valueOf(parser.nextInt());
+    }
+
+    /**
+     * Append an entity type to a builder, without creating any intermediate String.
+     *
+     * @param type Object to write.
+     * @param builder Builder to append to.
+     */
+    public final void to(final EntityType type, final StringBuilder builder) {
+        builder.append(type.type);
+    }
+
 }
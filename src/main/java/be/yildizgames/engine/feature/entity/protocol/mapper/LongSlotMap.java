@@ -0,0 +1,132 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table giving a dense slot to every entity id value, so per entity data can be kept in primitive arrays.
+ * Slots are never released, the table only grows.
+ *
+ * @author Grégory Van den Borre
+ */
+final class LongSlotMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    /**
+     * Slot + 1 for every key, 0 for an empty entry.
+     */
+    private int[] slots = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * @param key Key to find.
+     * @return The key slot, or -1 if the key has none.
+     */
+    int find(final long key) {
+        int mask = this.keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (this.slots[i] == 0) {
+                return -1;
+            }
+            if (this.keys[i] == key) {
+                return this.slots[i] - 1;
+            }
+        }
+    }
+
+    /**
+     * @param key Key to find or add.
+     * @return The key slot, a new one is given if the key had none.
+     */
+    int slot(final long key) {
+        int found = this.find(key);
+        if (found >= 0) {
+            return found;
+        }
+        if ((this.size + 1) << 1 > this.keys.length) {
+            this.grow();
+        }
+        this.insert(key, this.size + 1);
+        this.size++;
+        return this.size - 1;
+    }
+
+    /**
+     * @return The number of slots given.
+     */
+    int size() {
+        return this.size;
+    }
+
+    private void insert(final long key, final int value) {
+        int mask = this.keys.length - 1;
+        int i = hash(key) & mask;
+        while (this.slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = key;
+        this.slots[i] = value;
+    }
+
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldSlots = this.slots;
+        this.keys = new long[oldKeys.length << 1];
+        this.slots = new int[oldKeys.length << 1];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != 0) {
+                this.insert(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+
+    private static int hash(final long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Grow an array to hold a slot.
+     *
+     * @param array Array to grow.
+     * @param slot Slot to hold.
+     * @param perSlot Number of values per slot.
+     * @return The array, or a bigger copy.
+     */
+    static int[] ensure(final int[] array, final int slot, final int perSlot) {
+        int needed = (slot + 1) * perSlot;
+        return needed <= array.length ? array : Arrays.copyOf(array, Math.max(needed, array.length << 1));
+    }
+
+    static long[] ensure(final long[] array, final int slot, final int perSlot) {
+        int needed = (slot + 1) * perSlot;
+        return needed <= array.length ? array : Arrays.copyOf(array, Math.max(needed, array.length << 1));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+/**
+ * Pack a unit vector in 2 integers, by projecting it on an octahedron unfolded on a square.
+ * The error is spread evenly over the sphere, with 12 bits per component the angle error stays under 0.05 degree.
+ * A zero vector, having no direction, is encoded as (0, 0, 1).
+ *
+ * @author Grégory Van den Borre
+ */
+public final class OctahedralDirection {
+
+    private OctahedralDirection() {
+        super();
+    }
+
+    /**
+     * Encode a direction.
+     *
+     * @param x Direction x, the vector does not need to be normalized.
+     * @param y Direction y.
+     * @param z Direction z.
+     * @param bits Number of bits per component, from 2 to 16.
+     * @return The 2 components packed in an int, u in the high bits.
+     */
+    public static int encode(final float x, final float y, final float z, final int bits) {
+        assert bits >= 2 && bits <= 16;
+        float norm = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        float u = 0;
+        float v = 0;
+        if (norm > 0) {
+            u = x / norm;
+            v = y / norm;
+            if (z < 0) {
+                float pu = (1 - Math.abs(v)) * sign(u);
+                v = (1 - Math.abs(u)) * sign(v);
+                u = pu;
+            }
+        }
+        int max = (1 << bits) - 1;
+        int qu = Math.round((u * 0.5f + 0.5f) * max);
+        int qv = Math.round((v * 0.5f + 0.5f) * max);
+        return (qu << bits) | qv;
+    }
+
+    /**
+     * Decode a direction.
+     *
+     * @param packed Encoded direction.
+     * @param bits Number of bits per component used to encode.
+     * @param result Array receiving the normalized x, y and z.
+     * @param offset Position of x in the result array.
+     */
+    public static void decode(final int packed, final int bits, final float[] result, final int offset) {
+        int max = (1 << bits) - 1;
+        float u = ((packed >>> bits) & max) / (float) max * 2 - 1;
+        float v = (packed & max) / (float) max * 2 - 1;
+        float z = 1 - Math.abs(u) - Math.abs(v);
+        if (z < 0) {
+            float pu = (1 - Math.abs(v)) * sign(u);
+            v = (1 - Math.abs(u)) * sign(v);
+            u = pu;
+        }
+        float length = (float) Math.sqrt(u * u + v * v + z * z);
+        result[offset] = u / length;
+        result[offset + 1] = v / length;
+        result[offset + 2] = z / length;
+    }
+
+    /**
+     * @param bits Number of bits per component.
+     * @return The number of bytes holding an encoded direction.
+     */
+    public static int bytes(final int bits) {
+        return (2 * bits + 7) >> 3;
+    }
+
+    private static float sign(final float f) {
+        return f >= 0 ? 1 : -1;
+    }
+}
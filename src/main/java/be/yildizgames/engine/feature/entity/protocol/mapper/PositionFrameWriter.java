@@ -0,0 +1,143 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.geometry.Point3D;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Stream entity positions in a batch frame, directly from the entity values, without any dto.
+ * Layout: frame number as a varint, entry count as a 4 bytes int, then per entry the id delta with the previous entry as a zigzag varint, and the position and orientation as 6 floats.
+ * Sorting the entries by id keeps the deltas on a single byte.
+ * The count is reserved when starting, and written when ending the frame.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class PositionFrameWriter {
+
+    /**
+     * Maximum size of the frame header.
+     */
+    public static final int HEADER_BYTES = VarInt.MAX_BYTES + Integer.BYTES;
+
+    /**
+     * Maximum size of an entry.
+     */
+    public static final int ENTRY_BYTES = VarInt.MAX_BYTES + EntityPositionDtoBinaryMapper.VECTORS_BYTES;
+
+    private ByteBuffer buffer;
+
+    /**
+     * Position of the count in the buffer.
+     */
+    private int countPosition;
+
+    private int count;
+
+    private long previousId;
+
+    /**
+     * Start a new frame.
+     *
+     * @param buffer Buffer to write into.
+     * @param frame Frame number.
+     * @return This writer.
+     */
+    public PositionFrameWriter begin(final ByteBuffer buffer, final long frame) {
+        this.buffer = buffer;
+        this.count = 0;
+        this.previousId = 0;
+        VarInt.writeUnsigned(buffer, frame);
+        this.countPosition = buffer.position();
+        buffer.putInt(0);
+        return this;
+    }
+
+    /**
+     * Add an entity position.
+     *
+     * @param id Entity id value.
+     * @param position Entity position.
+     * @param orientation Entity orientation.
+     */
+    public void add(final long id, final Point3D position, final Point3D orientation) {
+        this.add(id, position.x, position.y, position.z, orientation.x, orientation.y, orientation.z);
+    }
+
+    /**
+     * Add an entity position.
+     */
+    public void add(final long id, final float x, final float y, final float z, final float orientationX, final float orientationY, final float orientationZ) {
+        assert this.buffer != null;
+        VarInt.writeSigned(this.buffer, id - this.previousId);
+        this.previousId = id;
+        this.buffer.putFloat(x);
+        this.buffer.putFloat(y);
+        this.buffer.putFloat(z);
+        this.buffer.putFloat(orientationX);
+        this.buffer.putFloat(orientationY);
+        this.buffer.putFloat(orientationZ);
+        this.count++;
+    }
+
+    /**
+     * End the frame, writing the entry count.
+     *
+     * @return The number of entries written.
+     */
+    public int end() {
+        this.buffer.putInt(this.countPosition, this.count);
+        this.buffer = null;
+        return this.count;
+    }
+
+    /**
+     * Read a frame, streaming every entry to a consumer.
+     *
+     * @param buffer Buffer to read from.
+     * @param consumer Consumer receiving every entry.
+     * @return The frame number.
+     * @throws EntityMappingException If the buffer does not contain a valid frame.
+     */
+    public static long read(final ByteBuffer buffer, final EntityPositionDtoBinaryMapper.PositionConsumer consumer) {
+        try {
+            long frame = VarInt.readUnsigned(buffer);
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new EntityMappingException("Invalid entry count " + count);
+            }
+            long id = 0;
+            for (int i = 0; i < count; i++) {
+                id += VarInt.readSigned(buffer);
+                consumer.accept(id, buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+            }
+            return frame;
+        } catch (BufferUnderflowException e) {
+            throw new EntityMappingException(e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Read the frames written by a QuantizedPositionEncoder, the receiver must acknowledge every frame read to the sender.
+ * The last positions received for every entity are kept, to be used as baseline by the next frames.
+ * This class is not thread safe.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class QuantizedPositionDecoder {
+
+    private static final int HISTORY = QuantizedPositionFormat.HISTORY;
+
+    private final QuantizedPositionFormat format;
+
+    /**
+     * Slot of every entity.
+     */
+    private final LongSlotMap entities = new LongSlotMap();
+
+    /**
+     * Frames of the last received positions, HISTORY per slot, -1 if empty.
+     */
+    private long[] frames = new long[0];
+
+    /**
+     * Last received quantized positions, HISTORY * 3 per slot.
+     */
+    private int[] values = new int[0];
+
+    /**
+     * Next history position to write for every slot.
+     */
+    private int[] next = new int[0];
+
+    /**
+     * Decoded direction.
+     */
+    private final float[] direction = new float[3];
+
+    public QuantizedPositionDecoder(final QuantizedPositionFormat format) {
+        super();
+        assert format != null;
+        this.format = format;
+    }
+
+    /**
+     * Read a frame, streaming every entry to a consumer.
+     *
+     * @param buffer Buffer to read from.
+     * @param consumer Consumer receiving the dequantized positions and the decoded directions.
+     * @return The frame number, to acknowledge to the sender.
+     * @throws EntityMappingException If the buffer does not contain a valid frame, or refers to an unknown baseline.
+     */
+    public long read(final ByteBuffer buffer, final EntityPositionDtoBinaryMapper.PositionConsumer consumer) {
+        try {
+            long frame = VarInt.readUnsigned(buffer);
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new EntityMappingException("Invalid entry count " + count);
+            }
+            long id = 0;
+            int bits = this.format.getDirectionBits();
+            int directionBytes = this.format.directionBytes();
+            for (int i = 0; i < count; i++) {
+                id += VarInt.readSigned(buffer);
+                int slot = this.slotOf(id);
+                long baseDistance = VarInt.readUnsigned(buffer);
+                int qx = (int) VarInt.readSigned(buffer);
+                int qy = (int) VarInt.readSigned(buffer);
+                int qz = (int) VarInt.readSigned(buffer);
+                if (baseDistance > 0) {
+                    int b = this.find(slot, frame - baseDistance) * 3;
+                    qx += this.values[b];
+                    qy += this.values[b + 1];
+                    qz += this.values[b + 2];
+                }
+                int packed = 0;
+                for (int j = 0; j < directionBytes; j++) {
+                    packed = (packed << 8) | (buffer.get() & 0xFF);
+                }
+                OctahedralDirection.decode(packed, bits, this.direction, 0);
+                this.store(slot, frame, qx, qy, qz);
+                consumer.accept(id, this.format.dequantize(qx), this.format.dequantize(qy), this.format.dequantize(qz),
+                        this.direction[0], this.direction[1], this.direction[2]);
+            }
+            return frame;
+        } catch (BufferUnderflowException e) {
+            throw new EntityMappingException(e);
+        }
+    }
+
+    private int slotOf(final long id) {
+        int slot = this.entities.slot(id);
+        if (slot >= this.next.length) {
+            int previous = this.frames.length;
+            this.frames = LongSlotMap.ensure(this.frames, slot, HISTORY);
+            Arrays.fill(this.frames, previous, this.frames.length, -1);
+            this.values = LongSlotMap.ensure(this.values, slot, HISTORY * 3);
+            this.next = LongSlotMap.ensure(this.next, slot, 1);
+        }
+        return slot;
+    }
+
+    /**
+     * Find a baseline in the history of an entity.
+     *
+     * @param slot Entity slot.
+     * @param frame Baseline frame.
+     * @return The history index of the baseline.
+     */
+    private int find(final int slot, final long frame) {
+        int start = slot * HISTORY;
+        for (int i = start; i < start + HISTORY; i++) {
+            if (this.frames[i] == frame) {
+                return i;
+            }
+        }
+        throw new EntityMappingException("Unknown baseline frame " + frame);
+    }
+
+    private void store(final int slot, final long frame, final int qx, final int qy, final int qz) {
+        int i = slot * HISTORY + this.next[slot];
+        this.next[slot] = (this.next[slot] + 1) % HISTORY;
+        this.frames[i] = frame;
+        this.values[i * 3] = qx;
+        this.values[i * 3 + 1] = qy;
+        this.values[i * 3 + 2] = qz;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.geometry.Point3D;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Write the entity positions of a frame, quantized, and as a difference with the last position acknowledged by the receiver when possible.
+ * An encoder is bound to a single receiver: it remembers the positions sent in every frame, and acknowledge must be called with the frames the receiver got,
+ * their positions then become the baselines of the next frames.
+ * When an entity has no baseline, or too many positions were sent since its baseline, its position is sent in full.
+ * This class is not thread safe.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class QuantizedPositionEncoder {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final QuantizedPositionFormat format;
+
+    /**
+     * Slot of every entity.
+     */
+    private final LongSlotMap entities = new LongSlotMap();
+
+    /**
+     * Frame of the baseline of every slot, -1 if none.
+     */
+    private long[] baseFrames = new long[0];
+
+    /**
+     * Quantized baseline of every slot, 3 values per slot.
+     */
+    private int[] baselines = new int[0];
+
+    /**
+     * Number of positions ever sent for every slot.
+     */
+    private int[] sentCounts = new int[0];
+
+    /**
+     * Value of the sent count when the baseline of every slot was sent,
+     * the difference with the sent count is the number of positions the receiver got after the baseline, at most.
+     */
+    private int[] baseCounts = new int[0];
+
+    /**
+     * Positions sent and not yet acknowledged: frame, slot, sent count of the slot including this position, and quantized coordinates.
+     */
+    private long[] sentFrames = new long[INITIAL_CAPACITY];
+
+    private int[] sentSlots = new int[INITIAL_CAPACITY];
+
+    private int[] sentSequences = new int[INITIAL_CAPACITY];
+
+    private int[] sentValues = new int[INITIAL_CAPACITY * 3];
+
+    private int sentSize;
+
+    private ByteBuffer buffer;
+
+    private long frame;
+
+    private int countPosition;
+
+    private int count;
+
+    private long previousId;
+
+    public QuantizedPositionEncoder(final QuantizedPositionFormat format) {
+        super();
+        assert format != null;
+        this.format = format;
+    }
+
+    /**
+     * Start a new frame.
+     *
+     * @param buffer Buffer to write into.
+     * @param frame Frame number, must be greater than the previous frames.
+     * @return This encoder.
+     */
+    public QuantizedPositionEncoder begin(final ByteBuffer buffer, final long frame) {
+        this.buffer = buffer;
+        this.frame = frame;
+        this.count = 0;
+        this.previousId = 0;
+        VarInt.writeUnsigned(buffer, frame);
+        this.countPosition = buffer.position();
+        buffer.putInt(0);
+        return this;
+    }
+
+    /**
+     * Add an entity position.
+     *
+     * @param id Entity id value.
+     * @param position Entity position.
+     * @param direction Entity direction.
+     */
+    public void add(final long id, final Point3D position, final Point3D direction) {
+        this.add(id, position.x, position.y, position.z, direction.x, direction.y, direction.z);
+    }
+
+    /**
+     * Add an entity position.
+     */
+    public void add(final long id, final float x, final float y, final float z, final float directionX, final float directionY, final float directionZ) {
+        assert this.buffer != null;
+        int slot = this.slotOf(id);
+        int qx = this.format.quantize(x);
+        int qy = this.format.quantize(y);
+        int qz = this.format.quantize(z);
+        VarInt.writeSigned(this.buffer, id - this.previousId);
+        this.previousId = id;
+        long base = this.baseFrames[slot];
+        if (base >= 0 && this.sentCounts[slot] - this.baseCounts[slot] < QuantizedPositionFormat.HISTORY - 1) {
+            int b = slot * 3;
+            VarInt.writeUnsigned(this.buffer, this.frame - base);
+            VarInt.writeSigned(this.buffer, qx - this.baselines[b]);
+            VarInt.writeSigned(this.buffer, qy - this.baselines[b + 1]);
+            VarInt.writeSigned(this.buffer, qz - this.baselines[b + 2]);
+        } else {
+            VarInt.writeUnsigned(this.buffer, 0);
+            VarInt.writeSigned(this.buffer, qx);
+            VarInt.writeSigned(this.buffer, qy);
+            VarInt.writeSigned(this.buffer, qz);
+        }
+        int direction = OctahedralDirection.encode(directionX, directionY, directionZ, this.format.getDirectionBits());
+        for (int i = this.format.directionBytes() - 1; i >= 0; i--) {
+            this.buffer.put((byte) (direction >>> (i << 3)));
+        }
+        this.record(slot, qx, qy, qz);
+        this.count++;
+    }
+
+    /**
+     * End the frame, writing the entry count.
+     *
+     * @return The number of entries written.
+     */
+    public int end() {
+        this.buffer.putInt(this.countPosition, this.count);
+        this.buffer = null;
+        return this.count;
+    }
+
+    /**
+     * Tell that the receiver got a frame, its positions become the baselines, the positions sent before and not acknowledged are forgotten.
+     * A baseline is kept until a newer frame containing the entity is acknowledged, and is no longer used once the receiver may have dropped it from its history,
+     * so a lost acknowledgement only makes the positions sent in full.
+     *
+     * @param acknowledged Frame received.
+     */
+    public void acknowledge(final long acknowledged) {
+        int write = 0;
+        for (int read = 0; read < this.sentSize; read++) {
+            long f = this.sentFrames[read];
+            int slot = this.sentSlots[read];
+            if (f > acknowledged) {
+                this.sentFrames[write] = f;
+                this.sentSlots[write] = slot;
+                this.sentSequences[write] = this.sentSequences[read];
+                System.arraycopy(this.sentValues, read * 3, this.sentValues, write * 3, 3);
+                write++;
+                continue;
+            }
+            if (f == acknowledged && f > this.baseFrames[slot]) {
+                this.baseFrames[slot] = f;
+                this.baseCounts[slot] = this.sentSequences[read];
+                System.arraycopy(this.sentValues, read * 3, this.baselines, slot * 3, 3);
+            }
+        }
+        this.sentSize = write;
+    }
+
+    /**
+     * @return The number of positions sent and not yet acknowledged.
+     */
+    public int getPendingCount() {
+        return this.sentSize;
+    }
+
+    private int slotOf(final long id) {
+        int slot = this.entities.slot(id);
+        if (slot * 3 >= this.baselines.length) {
+            int previous = this.baseFrames.length;
+            this.baseFrames = LongSlotMap.ensure(this.baseFrames, slot, 1);
+            Arrays.fill(this.baseFrames, previous, this.baseFrames.length, -1);
+            this.baselines = LongSlotMap.ensure(this.baselines, slot, 3);
+            this.sentCounts = LongSlotMap.ensure(this.sentCounts, slot, 1);
+            this.baseCounts = LongSlotMap.ensure(this.baseCounts, slot, 1);
+        }
+        return slot;
+    }
+
+    private void record(final int slot, final int qx, final int qy, final int qz) {
+        if (this.sentSize == this.sentFrames.length) {
+            this.sentFrames = Arrays.copyOf(this.sentFrames, this.sentSize << 1);
+            this.sentSlots = Arrays.copyOf(this.sentSlots, this.sentSize << 1);
+            this.sentSequences = Arrays.copyOf(this.sentSequences, this.sentSize << 1);
+            this.sentValues = Arrays.copyOf(this.sentValues, this.sentSize * 6);
+        }
+        this.sentCounts[slot]++;
+        this.sentFrames[this.sentSize] = this.frame;
+        this.sentSlots[this.sentSize] = slot;
+        this.sentSequences[this.sentSize] = this.sentCounts[slot];
+        int v = this.sentSize * 3;
+        this.sentValues[v] = qx;
+        this.sentValues[v + 1] = qy;
+        this.sentValues[v + 2] = qz;
+        this.sentSize++;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.util.Checker;
+
+/**
+ * Settings shared by the quantized position encoder and decoder, both sides must use the same.
+ * Positions are rounded to a grid, the error per axis is at most half the grid step, directions are octahedral encoded.
+ *
+ * Frame layout: frame number as a varint, entry count as a 4 bytes int, then per entry:
+ * the id delta with the previous entry as a zigzag varint,
+ * the distance to the baseline frame as a varint, 0 if the position is absolute,
+ * the 3 quantized coordinates, or their difference with the baseline, as zigzag varints,
+ * and the direction on the bytes needed by the direction bits.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class QuantizedPositionFormat {
+
+    /**
+     * Number of positions per entity kept by the decoder, to be used as baseline.
+     */
+    static final int HISTORY = 16;
+
+    /**
+     * Grid step.
+     */
+    private final float step;
+
+    /**
+     * Inverse of the grid step.
+     */
+    private final float inverseStep;
+
+    /**
+     * Number of bits per direction component.
+     */
+    private final int directionBits;
+
+    /**
+     * Create a new format.
+     *
+     * @param step Grid step, in world unit, the maximum error on every axis is step / 2.
+     * @param directionBits Number of bits per octahedral direction component, from 2 to 16.
+     */
+    public QuantizedPositionFormat(final float step, final int directionBits) {
+        super();
+        Checker.exceptionNotGreaterThanZero(step);
+        assert directionBits >= 2 && directionBits <= 16;
+        this.step = step;
+        this.inverseStep = 1 / step;
+        this.directionBits = directionBits;
+    }
+
+    /**
+     * @return The maximum error on every position axis.
+     */
+    public float getPositionErrorBound() {
+        return this.step / 2;
+    }
+
+    public int getDirectionBits() {
+        return this.directionBits;
+    }
+
+    int quantize(final float value) {
+        return Math.round(value * this.inverseStep);
+    }
+
+    float dequantize(final int value) {
+        return value * this.step;
+    }
+
+    int directionBytes() {
+        return OctahedralDirection.bytes(this.directionBits);
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.mapping.Separator;
+
+/**
+ * Cursor reading the text protocol values directly from a CharSequence, without splitting it nor creating any substring.
+ * The integers are parsed in place, the floats as well when the result is exact, the others (more than 7 significant digits, big exponents, NaN...) fall back to Float.parseFloat.
+ * A parser can be reset and reused for every message, a mapper reading from it leaves it after the read object, ready for the next one.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class TextParser {
+
+    /**
+     * Powers of 10 exact as float.
+     */
+    private static final float[] POWERS = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    /**
+     * Biggest mantissa for which a double is exact.
+     */
+    private static final long EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Biggest mantissa for which a float is exact.
+     */
+    private static final long EXACT_FLOAT_MANTISSA = 1L << 24;
+
+    /**
+     * Text being read.
+     */
+    private CharSequence text;
+
+    /**
+     * Position of the next character to read.
+     */
+    private int position;
+
+    /**
+     * End of the text to read, exclusive.
+     */
+    private int end;
+
+    /**
+     * Create a parser reading a whole text.
+     *
+     * @param text Text to read.
+     */
+    public TextParser(final CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    /**
+     * Create a parser reading a part of a text.
+     *
+     * @param text Text to read.
+     * @param start Position of the first character to read.
+     * @param end Position after the last character to read.
+     */
+    public TextParser(final CharSequence text, final int start, final int end) {
+        super();
+        this.reset(text, start, end);
+    }
+
+    /**
+     * Read another text.
+     *
+     * @param text Text to read.
+     * @param start Position of the first character to read.
+     * @param end Position after the last character to read.
+     * @return This parser.
+     */
+    public TextParser reset(final CharSequence text, final int start, final int end) {
+        if (start < 0 || end > text.length() || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + "-" + end + " for length " + text.length());
+        }
+        this.text = text;
+        this.position = start;
+        this.end = end;
+        return this;
+    }
+
+    /**
+     * @return The position of the next character to read.
+     */
+    public int getPosition() {
+        return this.position;
+    }
+
+    /**
+     * @return <code>true</code> if there are still characters to read.
+     */
+    public boolean hasRemaining() {
+        return this.position < this.end;
+    }
+
+    /**
+     * Skip a separator.
+     *
+     * @param separator Expected separator.
+     * @throws EntityMappingException If the next characters are not the separator.
+     */
+    public void expect(final String separator) {
+        int length = separator.length();
+        if (this.end - this.position < length) {
+            throw new EntityMappingException("Missing separator " + separator + " at " + this.position);
+        }
+        for (int i = 0; i < length; i++) {
+            if (this.text.charAt(this.position + i) != separator.charAt(i)) {
+                throw new EntityMappingException("Missing separator " + separator + " at " + this.position);
+            }
+        }
+        this.position += length;
+    }
+
+    /**
+     * Read an int.
+     *
+     * @return The read value.
+     * @throws EntityMappingException If the next characters are not an int.
+     */
+    public int nextInt() {
+        long v = this.nextLong();
+        if (v != (int) v) {
+            throw new EntityMappingException("Integer overflow at " + this.position);
+        }
+        return (int) v;
+    }
+
+    /**
+     * Read a long, up to the end or the next separator.
+     *
+     * @return The read value.
+     * @throws EntityMappingException If the next characters are not a long.
+     */
+    public long nextLong() {
+        int start = this.position;
+        int p = start;
+        boolean negative = p < this.end && this.text.charAt(p) == '-';
+        if (negative) {
+            p++;
+        }
+        int digits = p;
+        long result = 0;
+        while (p < this.end) {
+            int d = this.text.charAt(p) - '0';
+            if (d < 0 || d > 9) {
+                break;
+            }
+            if (result < (Long.MIN_VALUE + d) / 10) {
+                throw new EntityMappingException("Long overflow at " + start);
+            }
+            result = result * 10 - d;
+            p++;
+        }
+        if (p == digits) {
+            throw new EntityMappingException("Missing number at " + start);
+        }
+        this.position = p;
+        this.checkValueEnd();
+        if (negative) {
+            return result;
+        }
+        if (result == Long.MIN_VALUE) {
+            throw new EntityMappingException("Long overflow at " + start);
+        }
+        return -result;
+    }
+
+    /**
+     * Read a float, up to the end or the next separator.
+     *
+     * @return The read value.
+     * @throws EntityMappingException If the next characters are not a float.
+     */
+    public float nextFloat() {
+        int start = this.position;
+        int p = start;
+        boolean negative = false;
+        if (p < this.end && (this.text.charAt(p) == '-' || this.text.charAt(p) == '+')) {
+            negative = this.text.charAt(p) == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+        boolean dot = false;
+        for (; p < this.end; p++) {
+            char c = this.text.charAt(p);
+            if (c == '.' && !dot) {
+                dot = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa < EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (dot) {
+                        exponent--;
+                    }
+                } else {
+                    exact = false;
+                }
+            } else {
+                break;
+            }
+        }
+        if (p < this.end && (this.text.charAt(p) == 'E' || this.text.charAt(p) == 'e')) {
+            this.position = p + 1;
+            exponent += this.nextExponent();
+            p = this.position;
+        }
+        this.position = p;
+        if (digits == 0) {
+            return this.fallbackFloat(start);
+        }
+        this.checkValueEnd();
+        if (exact) {
+            if (exponent == 0) {
+                return negative ? -(float) mantissa : (float) mantissa;
+            }
+            //Both operands are exact floats, so the single float operation is correctly rounded, as Float.parseFloat.
+            if (mantissa <= EXACT_FLOAT_MANTISSA && Math.abs(exponent) < POWERS.length) {
+                float f = exponent < 0 ? mantissa / POWERS[-exponent] : mantissa * POWERS[exponent];
+                return negative ? -f : f;
+            }
+        }
+        return this.fallbackFloat(start);
+    }
+
+    /**
+     * Read the exponent of a float, without separator check.
+     *
+     * @return The exponent value.
+     */
+    private int nextExponent() {
+        int p = this.position;
+        boolean negative = p < this.end && this.text.charAt(p) == '-';
+        if (negative || p < this.end && this.text.charAt(p) == '+') {
+            p++;
+        }
+        int digits = p;
+        int result = 0;
+        while (p < this.end && this.text.charAt(p) >= '0' && this.text.charAt(p) <= '9') {
+            result = Math.min(result * 10 + this.text.charAt(p) - '0', 1000);
+            p++;
+        }
+        if (p == digits) {
+            throw new EntityMappingException("Missing exponent at " + this.position);
+        }
+        this.position = p;
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parse a float with the JDK, for the values not handled by the fast path.
+     *
+     * @param start Position of the float.
+     * @return The parsed value.
+     */
+    private float fallbackFloat(final int start) {
+        int p = start;
+        while (p < this.end && !isSeparator(this.text.charAt(p))) {
+            p++;
+        }
+        try {
+            float result = Float.parseFloat(this.text.subSequence(start, p).toString());
+            this.position = p;
+            return result;
+        } catch (NumberFormatException e) {
+            throw new EntityMappingException(e);
+        }
+    }
+
+    /**
+     * Check that the value just read is followed by the end or a separator.
+     */
+    private void checkValueEnd() {
+        if (this.position < this.end && !isSeparator(this.text.charAt(this.position))) {
+            throw new EntityMappingException("Unexpected character " + this.text.charAt(this.position) + " at " + this.position);
+        }
+    }
+
+    /**
+     * @param c Character to check.
+     * @return <code>true</code> if the character starts a variable or a collection separator.
+     */
+    private static boolean isSeparator(final char c) {
+        return c == Separator.VAR_SEPARATOR.charAt(0) || c == Separator.COLLECTION_SEPARATOR.charAt(0);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encode the changed fields of an entity update, used as part of the key of the encoded update cache,
+ * so a same instance must always produce the same bytes for the same source, fields and event during a frame.
+ *
+ * @author Grégory Van den Borre
+ */
+@FunctionalInterface
+public interface UpdateEncoding<S> {
+
+    /**
+     * Build an encoding from a binary mapper, the whole object is always written whatever the fields.
+     *
+     * @param mapper Mapper writing the object.
+     * @param <T> Object to write.
+     * @return The created encoding.
+     */
+    static <T> UpdateEncoding<T> of(final BinaryMapper<T> mapper) {
+        assert mapper != null;
+        return (source, fields, buffer) -> mapper.to(source, buffer);
+    }
+
+    /**
+     * Write an update.
+     *
+     * @param source Object to encode.
+     * @param fields Fields to encode, as DirtyField bits.
+     * @param buffer Buffer to write into, at its position, a BufferOverflowException is expected if there is not enough space.
+     */
+    void encode(S source, int fields, ByteBuffer buffer);
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Variable length encoding of integers, 7 bits per byte, the high bit telling if more bytes follow, small values take less bytes.
+ * Signed values are zigzag encoded first, so small negative values are small too.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class VarInt {
+
+    /**
+     * Maximum number of bytes of an encoded long.
+     */
+    public static final int MAX_BYTES = 10;
+
+    private VarInt() {
+        super();
+    }
+
+    /**
+     * Write an unsigned value.
+     *
+     * @param buffer Buffer to write into.
+     * @param value Value to write, considered unsigned.
+     */
+    public static void writeUnsigned(final ByteBuffer buffer, final long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    /**
+     * Read an unsigned value.
+     *
+     * @param buffer Buffer to read from.
+     * @return The read value.
+     * @throws EntityMappingException If the value is longer than 10 bytes.
+     * @throws BufferUnderflowException If the buffer ends before the value.
+     */
+    public static long readUnsigned(final ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new EntityMappingException("Variable length value too long.");
+    }
+
+    /**
+     * Write a signed value, zigzag encoded.
+     *
+     * @param buffer Buffer to write into.
+     * @param value Value to write.
+     */
+    public static void writeSigned(final ByteBuffer buffer, final long value) {
+        writeUnsigned(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Read a signed value, zigzag encoded.
+     *
+     * @param buffer Buffer to read from.
+     * @return The read value.
+     */
+    public static long readSigned(final ByteBuffer buffer) {
+        long v = readUnsigned(buffer);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Compute the encoded size of an unsigned value.
+     *
+     * @param value Value, considered unsigned.
+     * @return The number of bytes used to encode the value.
+     */
+    public static int size(final long value) {
+        int bits = 64 - Long.numberOfLeadingZeros(value | 1);
+        return (bits + 6) / 7;
+    }
+}
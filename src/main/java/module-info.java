@@ -33,6 +33,7 @@ module be.yildizgames.feature.entity.shared {
     requires be.yildizgames.common.mapping.model;
     requires be.yildizgames.common.mapping.geometry;
     requires be.yildizgames.feature.resource.shared;
+    requires jdk.jfr;
 
     exports be.yildizgames.engine.feature.entity;
     exports be.yildizgames.engine.feature.entity.protocol;
@@ -43,5 +44,8 @@ module be.yildizgames.feature.entity.shared {
     exports be.yildizgames.engine.feature.entity.construction;
     exports be.yildizgames.engine.feature.entity.data;
     exports be.yildizgames.engine.feature.entity.fields;
+    exports be.yildizgames.engine.feature.entity.metrics;
     exports be.yildizgames.engine.feature.entity.module;
+
+    uses be.yildizgames.engine.feature.entity.metrics.MetricsExporter;
 }
@@ -0,0 +1,602 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.ActionId;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.action.ActionListener;
+import be.yildizgames.engine.feature.entity.action.NoAction;
+import be.yildizgames.engine.feature.entity.fields.AttackHitResult;
+import be.yildizgames.engine.feature.entity.fields.Target;
+import be.yildizgames.engine.feature.entity.metrics.ActionRecorder;
+import be.yildizgames.engine.feature.entity.metrics.SimulationMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class ActionManagerTest {
+
+    private static final int ENTITIES = 500;
+
+    @Test
+    public void parallelSameAsSequential() {
+        List<List<Float>> sequential = run(new EntityManager<>(EntityMock.WORLD), null);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<List<Float>> parallel = run(EntityManager.threadSafe(EntityMock.WORLD), pool);
+            assertEquals(sequential, parallel);
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(sequential.get(0).size() > 1);
+    }
+
+    @Test
+    public void parallelReadsSameAsSequential() {
+        List<Point3D> sequential = runFollow(new EntityManager<>(EntityMock.WORLD), null);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(sequential, runFollow(EntityManager.threadSafe(EntityMock.WORLD), pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void edgeTriggeredNotifiesTransitions() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock other = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.setEdgeTriggered(true);
+        am.setHeartbeatPeriod(10);
+        List<String> events = new ArrayList<>();
+        am.addListener(new ActionListener() {
+            @Override
+            public void execute(EntityId id, PlayerId owner, Action a) {
+                events.add("execute");
+            }
+
+            @Override
+            public void started(EntityId id, PlayerId owner, Action a, Target target) {
+                events.add("started");
+            }
+
+            @Override
+            public void stopped(EntityId id, PlayerId owner, Action a) {
+                events.add("stopped");
+            }
+
+            @Override
+            public void completed(EntityId id, PlayerId owner, Action a) {
+                events.add("completed");
+            }
+
+            @Override
+            public void stillRunning(EntityId id, PlayerId owner, Action a) {
+                events.add("running");
+            }
+        });
+        HitAction action = new HitAction(other, 1);
+        e.startAction(action);
+        for (int frame = 0; frame < 4; frame++) {
+            am.frameEnded(4);
+        }
+        action.stop(e);
+        am.frameEnded(4);
+        am.frameEnded(4);
+        assertEquals(List.of("started", "running", "stopped"), events);
+    }
+
+    @Test
+    public void edgeTriggeredNotifiesTargetChange() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock other = new EntityMock(2, EntityMock.TYPE_1, 2);
+        em.addEntity(e);
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.setEdgeTriggered(true);
+        am.enableSleeping();
+        List<Target> targets = new ArrayList<>();
+        am.addListener(new ActionListener() {
+            @Override
+            public void execute(EntityId id, PlayerId owner, Action a) {
+                //Not used in edge triggered mode.
+            }
+
+            @Override
+            public void started(EntityId id, PlayerId owner, Action a, Target target) {
+                targets.add(target);
+            }
+
+            @Override
+            public void targetChanged(EntityId id, PlayerId owner, Action a, Target target) {
+                targets.add(target);
+            }
+        });
+        e.startAction(new HitAction(other, 1));
+        am.frameEnded(4);
+        e.setTarget(other);
+        am.frameEnded(4);
+        am.frameEnded(4);
+        e.setTarget(null);
+        am.frameEnded(4);
+        assertEquals(Arrays.asList(null, other, null), targets);
+    }
+
+    @Test
+    public void edgeTriggeredNotifiesActionsEndedInTheirFirstFrame() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock other = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.setEdgeTriggered(true);
+        List<String> events = new ArrayList<>();
+        am.addListener(new ActionListener() {
+            @Override
+            public void execute(EntityId id, PlayerId owner, Action a) {
+                //Not edge triggered.
+            }
+
+            @Override
+            public void started(EntityId id, PlayerId owner, Action a, Target target) {
+                events.add("started");
+            }
+
+            @Override
+            public void stopped(EntityId id, PlayerId owner, Action a) {
+                events.add("stopped");
+            }
+
+            @Override
+            public void completed(EntityId id, PlayerId owner, Action a) {
+                events.add("completed");
+            }
+        });
+        HitAction stopped = new HitAction(other, 1);
+        e.startAction(stopped);
+        stopped.stop(e);
+        am.frameEnded(4);
+        am.frameEnded(4);
+        assertEquals(List.of("started", "stopped"), events);
+        stopped.init(e);
+        stopped.stop(e);
+        am.frameEnded(4);
+        assertEquals(List.of("started", "stopped", "started", "stopped"), events);
+        events.clear();
+        HitAction completed = new HitAction(other, 1);
+        completed.ready = false;
+        e.startAction(completed);
+        am.frameEnded(4);
+        am.frameEnded(4);
+        assertEquals(List.of("started", "completed"), events);
+    }
+
+    @Test
+    public void idleEntitiesSleep() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock busy = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock idle = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(busy);
+        em.addEntity(idle);
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.enableSleeping();
+        HitAction action = new HitAction(idle, 1);
+        busy.startAction(action);
+        idle.startAction(new NoAction(ActionId.valueOf(2)));
+        am.frameEnded(1);
+        assertEquals(1, am.getActiveEntities());
+        assertEquals(1, idle.getHits().size());
+        action.stop(busy);
+        am.frameEnded(1);
+        assertEquals(0, am.getActiveEntities());
+        am.frameEnded(1);
+        assertEquals(1, idle.getHits().size());
+        idle.startAction(new HitAction(busy, 2));
+        EntityMock added = new EntityMock(3, EntityMock.TYPE_1, 1);
+        em.addEntity(added);
+        am.frameEnded(1);
+        assertEquals(1, busy.getHits().size());
+        assertEquals(1, am.getActiveEntities());
+    }
+
+    @Test
+    public void sleepingActionWokenAtItsTime() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock other = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.enableSleeping();
+        e.startAction(new CooldownAction(other, 100));
+        am.frameEnded(10);
+        assertEquals(0, am.getActiveEntities());
+        for (int i = 0; i < 9; i++) {
+            am.frameEnded(10);
+        }
+        assertEquals(1, other.getHits().size());
+        am.frameEnded(10);
+        assertEquals(2, other.getHits().size());
+    }
+
+    @Test
+    public void sleepingActionWokenWhenItsTargetMoves() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock other = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        em.addEntity(other);
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.enableSleeping();
+        CooldownAction action = new CooldownAction(other, 100);
+        action.watch = true;
+        e.startAction(action);
+        am.frameEnded(10);
+        assertEquals(0, am.getActiveEntities());
+        am.frameEnded(10);
+        assertEquals(1, action.runs);
+        other.setPosition(Point3D.valueOf(10, 0, 0));
+        am.frameEnded(10);
+        assertEquals(2, action.runs);
+        am.frameEnded(10);
+        assertEquals(2, action.runs);
+    }
+
+    @Test
+    public void ratioSameDuringTheTick() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock target = new EntityMock(2, EntityMock.TYPE_1, 1);
+        target.setHitPoints(4);
+        em.addEntity(e);
+        em.addEntity(target);
+        float[] read = new float[1];
+        e.startAction(new BaseAction(ActionId.valueOf(2), false) {
+            @Override
+            public boolean checkPrerequisite(final Entity entity) {
+                return true;
+            }
+
+            @Override
+            protected void runImpl(final long time, final Entity entity) {
+                read[0] = target.getHitPointsRatio();
+            }
+
+            @Override
+            protected void initImpl(final Entity entity) {
+                //Nothing to init.
+            }
+
+            @Override
+            protected void stopImpl(final Entity entity) {
+                //Nothing to stop.
+            }
+
+            @Override
+            public void delete() {
+                //Nothing to delete.
+            }
+        });
+        new ActionManager<>(em).frameEnded(1);
+        assertEquals(0.4f, read[0]);
+        assertEquals(0.4f, target.getHitPointsRatio());
+    }
+
+    @Test
+    public void wakeUpInIgnoredWithoutSleeping() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        for (int i = 0; i < 10; i++) {
+            am.wakeUpIn(e, 100);
+            am.frameEnded(10);
+        }
+        assertEquals(0, am.getScheduledWakeUps());
+        am.enableSleeping();
+        am.wakeUpIn(e, 100);
+        assertEquals(1, am.getScheduledWakeUps());
+    }
+
+    @Test
+    public void lowPriorityDeferredOverBudget() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock target = new EntityMock(100, EntityMock.TYPE_1, 1);
+        EntityMock high = new EntityMock(50, EntityMock.TYPE_1, 1);
+        em.addEntity(high);
+        high.startAction(new HitAction(target, 1));
+        for (int i = 0; i < 20; i++) {
+            EntityMock e = new EntityMock(i, EntityMock.TYPE_1, 1);
+            em.addEntity(e);
+            e.startAction(new HitAction(target, 2));
+        }
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.setFrameBudget(1, e -> e.getId().value < 20);
+        SimulationMetrics metrics = new SimulationMetrics(10);
+        am.setMetrics(metrics);
+        am.frameEnded(1);
+        assertEquals(9, target.getHits().size());
+        assertEquals(12, am.getDeferredEntities());
+        assertEquals(1, am.getBudgetOverruns());
+        assertEquals(12, metrics.getFrame().getDeferredEntities());
+        assertEquals(1, metrics.getFrame().getBudgetOverruns());
+        am.frameEnded(1);
+        am.frameEnded(1);
+        assertEquals(27, target.getHits().size());
+        assertTrue(am.getLastFrameDuration() > 0);
+        assertEquals(3, metrics.getFrame().getBudgetOverruns());
+        am.setMetrics(null);
+    }
+
+    @Test
+    public void lowPriorityLeastRecentlyUpdatedFirst() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        List<EntityMock> targets = new ArrayList<>();
+        List<EntityMock> first = new ArrayList<>();
+        Set<EntityMock> high = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            EntityMock e = new EntityMock(i, EntityMock.TYPE_1, 1);
+            EntityMock target = new EntityMock(100 + i, EntityMock.TYPE_1, 1);
+            em.addEntity(e);
+            e.startAction(new HitAction(target, 1));
+            targets.add(target);
+            if (i < 8) {
+                first.add(e);
+            }
+        }
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.setFrameBudget(1, e -> !high.contains(e));
+        am.frameEnded(1);
+        assertEquals(8, targets.stream().filter(t -> !t.getHits().isEmpty()).count());
+        high.addAll(first);
+        am.frameEnded(1);
+        assertEquals(16, targets.stream().filter(t -> !t.getHits().isEmpty()).count());
+        high.clear();
+        am.frameEnded(1);
+        assertTrue(targets.stream().noneMatch(t -> t.getHits().isEmpty()));
+    }
+
+    @Test
+    public void metricsRecordActionsAndFrames() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock other = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        em.addEntity(other);
+        e.startAction(new HitAction(other, 1));
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        List<Long> exported = new ArrayList<>();
+        SimulationMetrics metrics = new SimulationMetrics(2);
+        metrics.addExporter((frame, actions) -> exported.add(actions.get(HitAction.class).getCount()));
+        am.setMetrics(metrics);
+        am.frameEnded(1);
+        assertEquals(2, metrics.getFrame().getEntitiesTicked());
+        assertEquals(1, metrics.getFrame().getActionsRun());
+        am.frameEnded(1);
+        assertEquals(List.of(2L), exported);
+        assertEquals(0, metrics.getActions().get(HitAction.class).getCount());
+        am.setMetrics(null);
+        assertFalse(ActionRecorder.isEnabled());
+    }
+
+    private static List<List<Float>> run(final EntityManager<EntityMock> em, final ForkJoinPool pool) {
+        List<EntityMock> all = new ArrayList<>();
+        for (int i = 0; i < ENTITIES; i++) {
+            EntityMock e = new EntityMock(i, EntityMock.TYPE_1, 1);
+            all.add(e);
+            em.addEntity(e);
+        }
+        for (int i = 0; i < ENTITIES; i++) {
+            all.get(i).startAction(new HitAction(all.get(i * 7 % ENTITIES), i));
+            all.get(i).startAction(new HitAction(all.get(i * 3 % ENTITIES), -i));
+        }
+        ActionManager<EntityMock> am = pool == null ? new ActionManager<>(em) : new ActionManager<>(em, pool);
+        for (int frame = 0; frame < 3; frame++) {
+            am.frameEnded(frame);
+        }
+        List<List<Float>> result = new ArrayList<>();
+        for (EntityMock e : all) {
+            List<Float> hits = new ArrayList<>();
+            for (AttackHitResult h : e.getHits()) {
+                hits.add(h.weaponBaseDamage);
+            }
+            result.add(hits);
+        }
+        return result;
+    }
+
+    private static List<Point3D> runFollow(final EntityManager<EntityMock> em, final ForkJoinPool pool) {
+        List<EntityMock> all = new ArrayList<>();
+        for (int i = 0; i < ENTITIES; i++) {
+            EntityMock e = new EntityMock(i, EntityMock.TYPE_1, 1);
+            e.setPosition(Point3D.valueOf(i, i % 7, 0));
+            all.add(e);
+            em.addEntity(e);
+        }
+        for (int i = 0; i < ENTITIES; i++) {
+            all.get(i).startAction(new FollowAction(all.get((i * 7 + 250) % ENTITIES)));
+            all.get(i).startAction(new FollowAction(all.get((i + 1) % ENTITIES)));
+        }
+        ActionManager<EntityMock> am = pool == null ? new ActionManager<>(em) : new ActionManager<>(em, pool);
+        for (int frame = 0; frame < 5; frame++) {
+            am.frameEnded(frame);
+        }
+        List<Point3D> result = new ArrayList<>();
+        for (EntityMock e : all) {
+            result.add(e.getPosition());
+        }
+        return result;
+    }
+
+    /**
+     * Move halfway to another entity every frame, reading its position, and copy its hit points.
+     */
+    private static final class FollowAction extends BaseAction {
+
+        private final EntityMock target;
+
+        private FollowAction(final EntityMock target) {
+            super(ActionId.valueOf(4), false);
+            this.target = target;
+        }
+
+        @Override
+        public boolean checkPrerequisite(final Entity e) {
+            return true;
+        }
+
+        @Override
+        protected void runImpl(final long time, final Entity e) {
+            Point3D p = this.target.getPosition();
+            e.setPosition(Point3D.valueOf((e.getPosition().x + p.x) / 2, (e.getPosition().y + p.y) / 2, 0));
+            e.setHitPoints(this.target.getHitPoints() - 1);
+        }
+
+        @Override
+        protected void initImpl(final Entity e) {
+            //Nothing to init.
+        }
+
+        @Override
+        protected void stopImpl(final Entity e) {
+            //Nothing to stop.
+        }
+
+        @Override
+        public void delete() {
+            //Nothing to delete.
+        }
+    }
+
+    /**
+     * Hit another entity, and wait before hitting it again.
+     */
+    private static final class CooldownAction extends BaseAction {
+
+        private final EntityMock target;
+
+        private final long cooldown;
+
+        private boolean watch;
+
+        private int runs;
+
+        private CooldownAction(final EntityMock target, final long cooldown) {
+            super(ActionId.valueOf(3), false);
+            this.target = target;
+            this.cooldown = cooldown;
+        }
+
+        @Override
+        public boolean checkPrerequisite(final Entity e) {
+            return true;
+        }
+
+        @Override
+        protected void runImpl(final long time, final Entity e) {
+            this.runs++;
+            if (this.watch) {
+                this.sleepUntilMoved(this.cooldown, e, this.target);
+            } else {
+                EffectBuffer.hit(this.target, new AttackHitResult(1, 0));
+                this.sleepFor(this.cooldown);
+            }
+        }
+
+        @Override
+        protected void initImpl(final Entity e) {
+            //Nothing to init.
+        }
+
+        @Override
+        protected void stopImpl(final Entity e) {
+            //Nothing to stop.
+        }
+
+        @Override
+        public void delete() {
+            //Nothing to delete.
+        }
+    }
+
+    /**
+     * Hit another entity every frame.
+     */
+    private static final class HitAction extends BaseAction {
+
+        private final EntityMock target;
+
+        private final AttackHitResult hit;
+
+        private boolean ready = true;
+
+        private HitAction(final EntityMock target, final int damage) {
+            super(ActionId.valueOf(1), false);
+            this.target = target;
+            this.hit = new AttackHitResult(damage, 0);
+        }
+
+        @Override
+        public boolean checkPrerequisite(final Entity e) {
+            return this.ready;
+        }
+
+        @Override
+        protected void runImpl(final long time, final Entity e) {
+            EffectBuffer.hit(this.target, this.hit);
+        }
+
+        @Override
+        protected void initImpl(final Entity e) {
+            //Nothing to init.
+        }
+
+        @Override
+        protected void stopImpl(final Entity e) {
+            //Nothing to stop.
+        }
+
+        @Override
+        public void delete() {
+            //Nothing to delete.
+        }
+    }
+}
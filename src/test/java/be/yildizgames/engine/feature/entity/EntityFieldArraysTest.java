@@ -0,0 +1,106 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class EntityFieldArraysTest {
+
+    @Test
+    public void accessorsUseArrays() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        e1.setPosition(Point3D.valueOf(1, 2, 3));
+        e1.setHitPoints(4);
+        em.addEntity(e1);
+        assertEquals(0.4f, e1.getHitPointsRatio());
+        EntityFieldArrays fields = em.enableFieldArrays();
+        assertEquals(0.4f, e1.getHitPointsRatio());
+        assertSame(fields, em.enableFieldArrays());
+        int slot = em.getHandle(e1.getId()).slot;
+        assertSame(e1, fields.getEntity(slot));
+        assertEquals(2f, fields.getPositionY(slot));
+        assertEquals(4, fields.getHitPoints(slot));
+        assertEquals(10, fields.getMaxHitPoints(slot));
+        e1.setEnergyPoints(3);
+        assertEquals(3, fields.getEnergyPoints(slot));
+        fields.setHitPoints(slot, 50);
+        assertEquals(10, e1.getHitPoints());
+        fields.setPosition(slot, 7, 8, 9);
+        assertEquals(Point3D.valueOf(7, 8, 9), e1.getPosition());
+        em.removeEntity(e1);
+        assertNull(fields.getEntity(slot));
+        fields.setHitPoints(slot, 1);
+        assertEquals(10, e1.getHitPoints());
+        fields.setPosition(slot, 1000, 1000, 1000);
+        List<EntityMock> found = new ArrayList<>();
+        em.findInRadius(Point3D.valueOf(1000, 1000, 1000), 10, found);
+        assertTrue(found.isEmpty());
+        assertEquals(3, e1.getEnergyPoints());
+        assertEquals(Point3D.valueOf(7, 8, 9), e1.getPosition());
+    }
+
+    @Test
+    public void batchOperations() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityFieldArrays fields = em.enableFieldArrays();
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 1);
+        e2.setPosition(Point3D.valueOf(100, 0, 0));
+        e2.setDestination(Point3D.valueOf(100, 0, 0));
+        e1.setDestination(Point3D.valueOf(100, 0, 0));
+        em.addEntity(e1);
+        em.addEntity(e2);
+        e1.setEnergyPoints(2);
+        assertEquals(1, fields.moveTowardDestination(50));
+        assertEquals(Point3D.valueOf(50, 0, 0), e1.getPosition());
+        assertEquals(1, fields.moveTowardDestination(50));
+        assertEquals(Point3D.valueOf(100, 0, 0), e1.getPosition());
+        assertEquals(0, fields.moveTowardDestination(50));
+        Set<EntityMock> found = new HashSet<>();
+        em.findInRadius(Point3D.valueOf(100, 0, 0), 1, found);
+        assertEquals(Set.of(e1, e2), found);
+        int[] slots = new int[4];
+        assertEquals(2, fields.findInRadius(100, 0, 0, 1, slots));
+        fields.regenerateEnergy(5);
+        assertEquals(7, e1.getEnergyPoints());
+        fields.regenerateEnergy(5);
+        assertEquals(10, e1.getEnergyPoints());
+    }
+}
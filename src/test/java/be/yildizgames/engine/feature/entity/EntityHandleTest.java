@@ -0,0 +1,93 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class EntityHandleTest {
+
+    @Test
+    public void retrieveFromHandle() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        EntityHandle h = em.getHandle(e.getId());
+        assertTrue(em.isValid(h));
+        assertSame(e, em.findByHandle(h));
+        assertSame(e, em.findByHandle(h.toLong()));
+    }
+
+    @Test
+    public void staleAfterRemoveAndReuse() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(e1);
+        EntityHandle h1 = em.getHandle(e1.getId());
+        em.removeEntity(e1);
+        em.addEntity(e2);
+        EntityHandle h2 = em.getHandle(e2.getId());
+        assertEquals(h1.slot, h2.slot);
+        assertNotEquals(h1, h2);
+        assertFalse(em.isValid(h1));
+        assertSame(EntityMock.WORLD, em.findByHandle(h1));
+        assertSame(EntityMock.WORLD, em.findByHandle(h1.toLong()));
+        assertSame(e2, em.findByHandle(h2));
+        assertSame(e2, em.findByHandle(h2.toLong()));
+    }
+
+    @Test
+    public void invalid() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        assertSame(EntityHandle.INVALID, em.getHandle(EntityMock.WORLD.getId()));
+        assertFalse(em.isValid(EntityHandle.INVALID));
+        assertSame(EntityMock.WORLD, em.findByHandle(EntityHandle.INVALID.toLong()));
+    }
+
+    @Test
+    public void handleStableWhenOtherEntitiesMove() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock[] entities = new EntityMock[100];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new EntityMock(i + 1, EntityMock.TYPE_1, 1);
+            em.addEntity(entities[i]);
+        }
+        EntityHandle h = em.getHandle(entities[99].getId());
+        for (int i = 0; i < 50; i++) {
+            em.removeEntity(entities[i]);
+        }
+        assertSame(entities[99], em.findByHandle(h));
+        assertSame(entities[99], em.findById(entities[99].getId()));
+    }
+}
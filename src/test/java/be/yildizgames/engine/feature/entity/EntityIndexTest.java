@@ -0,0 +1,100 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class EntityIndexTest {
+
+    @Test
+    public void putAndGet() {
+        EntityIndex<EntityMock> index = new EntityIndex<>();
+        EntityMock e = new EntityMock(5, EntityMock.TYPE_1, 1);
+        assertTrue(index.put(e, 3));
+        assertSame(e, index.get(5));
+        assertEquals(3, index.getPosition(5));
+        assertNull(index.get(6));
+        assertEquals(-1, index.getPosition(6));
+    }
+
+    @Test
+    public void putTwice() {
+        EntityIndex<EntityMock> index = new EntityIndex<>();
+        EntityMock e = new EntityMock(5, EntityMock.TYPE_1, 1);
+        index.put(e, 3);
+        assertFalse(index.put(e, 4));
+        assertEquals(4, index.getPosition(5));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void remove() {
+        EntityIndex<EntityMock> index = new EntityIndex<>();
+        EntityMock e = new EntityMock(5, EntityMock.TYPE_1, 1);
+        index.put(e, 3);
+        assertEquals(3, index.remove(5));
+        assertEquals(-1, index.remove(5));
+        assertNull(index.get(5));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void manyEntriesWithChurn() {
+        EntityIndex<EntityMock> index = new EntityIndex<>();
+        List<EntityMock> entities = new ArrayList<>();
+        for (int i = -500; i < 1500; i++) {
+            EntityMock e = new EntityMock(i, EntityMock.TYPE_1, 1);
+            entities.add(e);
+            index.put(e, i);
+        }
+        for (int i = 0; i < entities.size(); i += 2) {
+            index.remove(entities.get(i).getId().value);
+        }
+        for (int i = 0; i < entities.size(); i += 4) {
+            index.put(entities.get(i), i);
+        }
+        for (int i = 0; i < entities.size(); i++) {
+            EntityMock e = entities.get(i);
+            if (i % 4 == 0 || i % 2 == 1) {
+                assertSame(e, index.get(e.getId().value));
+            } else {
+                assertNull(index.get(e.getId().value));
+            }
+        }
+        assertEquals(1500, index.size());
+    }
+}
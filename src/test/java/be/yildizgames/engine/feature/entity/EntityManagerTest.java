@@ -24,8 +24,26 @@
 
 package be.yildizgames.engine.feature.entity;
 
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * @author Grégory Van den Borre
  */
@@ -90,4 +108,247 @@ public class EntityManagerTest {
     @Test
     public void testSetOwnerEntityPlayer() {
     }
+
+    @Test
+    public void threadSafeFindById() {
+        EntityManager<EntityMock> em = EntityManager.threadSafe(EntityMock.WORLD);
+        assertTrue(em.isThreadSafe());
+        EntityMock e = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        assertSame(e, em.findById(EntityId.valueOf(2L)));
+        em.removeEntity(e);
+        assertSame(EntityMock.WORLD, em.findById(EntityId.valueOf(2L)));
+    }
+
+    @Test
+    public void notThreadSafeByDefault() {
+        assertFalse(new EntityManager<>(EntityMock.WORLD).isThreadSafe());
+    }
+
+    @Test
+    public void threadSafeReadWhileWriting() throws InterruptedException {
+        EntityManager<EntityMock> em = EntityManager.threadSafe(EntityMock.WORLD);
+        EntityMock stable = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(stable);
+        EntityId id = stable.getId();
+        PlayerId player = stable.getOwner();
+        AtomicBoolean failed = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            while (done.getCount() > 0) {
+                if (em.findById(id) != stable) {
+                    failed.set(true);
+                }
+                em.getEntities(player).forEach(EntityMock::getId);
+            }
+        });
+        reader.start();
+        for (int i = 2; i < 20_000; i++) {
+            EntityMock e = new EntityMock(i, EntityMock.TYPE_1, 1);
+            em.addEntity(e);
+            em.removeEntity(e);
+        }
+        done.countDown();
+        reader.join();
+        assertFalse(failed.get());
+        assertEquals(1, em.getEntities(PlayerId.valueOf(1)).size());
+    }
+
+    @Test
+    public void numberOfEntitiesFollowsStructuralChanges() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        PlayerId p1 = PlayerId.valueOf(1);
+        PlayerId p2 = PlayerId.valueOf(2);
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 1);
+        EntityMock e3 = new EntityMock(3, EntityMock.TYPE_2, 1);
+        assertEquals(0, em.getNumberOfEntities(p1, EntityMock.TYPE_1));
+        em.addEntity(e1);
+        em.addEntity(e2);
+        em.addEntity(e3);
+        em.addEntity(e3);
+        assertEquals(2, em.getNumberOfEntities(p1, EntityMock.TYPE_1));
+        assertEquals(1, em.getNumberOfEntities(p1, EntityMock.TYPE_2));
+        em.setOwner(e2, p2);
+        assertEquals(1, em.getNumberOfEntities(p1, EntityMock.TYPE_1));
+        assertEquals(1, em.getNumberOfEntities(p2, EntityMock.TYPE_1));
+        assertTrue(em.getEntities(p2).contains(e2));
+        assertFalse(em.getEntities(p1).contains(e2));
+        em.removeEntity(e3);
+        assertFalse(em.hasEntity(p1, EntityMock.TYPE_2));
+        assertTrue(em.hasEntity(p2, EntityMock.TYPE_1));
+    }
+
+    @Test
+    public void spatialIndexFollowsMoves() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 1);
+        e1.setPosition(Point3D.valueOf(10, 0, 10));
+        e2.setPosition(Point3D.valueOf(500, 0, 500));
+        em.addEntity(e1);
+        em.addEntity(e2);
+        Set<EntityMock> result = new HashSet<>();
+        em.findInRadius(Point3D.valueOf(0, 0, 0), 20, result);
+        assertEquals(Set.of(e1), result);
+        e2.setPosition(Point3D.valueOf(-5, 0, 0));
+        result.clear();
+        em.findInRadius(Point3D.valueOf(0, 0, 0), 20, result);
+        assertEquals(Set.of(e1, e2), result);
+        em.removeEntity(e1);
+        e1.setPosition(Point3D.valueOf(1, 0, 1));
+        result.clear();
+        em.findInRadius(Point3D.valueOf(0, 0, 0), 20, result);
+        assertEquals(Set.of(e2), result);
+    }
+
+    @Test
+    public void spatialQueries() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        em.setSpatialCellSize(10);
+        List<EntityMock> all = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            EntityMock e = new EntityMock(i, EntityMock.TYPE_1, 1);
+            e.setPosition(Point3D.valueOf(i * 7 % 100, 0, i * 13 % 100));
+            all.add(e);
+            em.addEntity(e);
+        }
+        em.setSpatialCellSize(25);
+        Point3D center = Point3D.valueOf(50, 0, 50);
+        Set<EntityMock> radius = new HashSet<>();
+        em.findInRadius(center, 30, radius);
+        Set<EntityMock> box = new HashSet<>();
+        em.findInBox(Point3D.valueOf(20, -1, 20), Point3D.valueOf(80, 1, 80), box);
+        for (EntityMock e : all) {
+            Point3D p = e.getPosition();
+            assertEquals(Point3D.squaredDistance(p, center) < 900, radius.contains(e));
+            assertEquals(p.x >= 20 && p.x <= 80 && p.z >= 20 && p.z <= 80, box.contains(e));
+        }
+        List<EntityMock> nearest = new ArrayList<>();
+        em.findNearest(center, 5, nearest);
+        assertEquals(5, nearest.size());
+        List<EntityMock> sorted = new ArrayList<>(all);
+        sorted.sort((a, b) -> Float.compare(Point3D.squaredDistance(a.getPosition(), center), Point3D.squaredDistance(b.getPosition(), center)));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Point3D.squaredDistance(sorted.get(i).getPosition(), center), Point3D.squaredDistance(nearest.get(i).getPosition(), center));
+        }
+        nearest.clear();
+        em.findNearest(Point3D.valueOf(10000, 0, 10000), 200, nearest);
+        assertEquals(100, nearest.size());
+    }
+
+    @Test
+    public void bulkOperations() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        PlayerId p1 = PlayerId.valueOf(1);
+        PlayerId p2 = PlayerId.valueOf(2);
+        List<EntityMock> all = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            all.add(new EntityMock(i, i % 2 == 0 ? EntityMock.TYPE_1 : EntityMock.TYPE_2, 1));
+        }
+        em.addEntities(all);
+        em.addEntities(all);
+        assertEquals(5, em.getNumberOfEntities(p1, EntityMock.TYPE_1));
+        assertEquals(10, em.getEntities(p1).size());
+        em.transferOwnership(all.subList(0, 4), p2);
+        assertEquals(3, em.getNumberOfEntities(p1, EntityMock.TYPE_1));
+        assertEquals(2, em.getNumberOfEntities(p2, EntityMock.TYPE_2));
+        assertEquals(4, em.getEntities(p2).size());
+        em.removeEntities(all.subList(2, 6));
+        em.removeEntities(all.subList(2, 6));
+        assertEquals(2, em.getEntities(p2).size());
+        assertEquals(4, em.getEntities(p1).size());
+        assertEquals(6, em.getEntities().size());
+        assertEquals(2, em.getNumberOfEntities(p1, EntityMock.TYPE_1));
+    }
+
+    @Test
+    public void pendingChangesAppliedInOrder() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        PlayerId p2 = PlayerId.valueOf(2);
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 1);
+        em.addEntity(e1);
+        em.removeEntityLater(e1);
+        em.addEntityLater(e2);
+        em.setOwnerLater(e2, p2);
+        em.removeEntityLater(e1);
+        assertSame(e1, em.findById(e1.getId()));
+        assertSame(EntityMock.WORLD, em.findById(e2.getId()));
+        assertEquals(4, em.applyPendingChanges());
+        assertSame(EntityMock.WORLD, em.findById(e1.getId()));
+        assertSame(e2, em.findById(e2.getId()));
+        assertEquals(1, em.getNumberOfEntities(p2, EntityMock.TYPE_1));
+        assertEquals(0, em.applyPendingChanges());
+    }
+
+    @Test
+    public void drainChanges() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 1);
+        EntityMock e3 = new EntityMock(3, EntityMock.TYPE_1, 1);
+        em.addEntities(Arrays.asList(e1, e2, e3));
+        Map<EntityMock, Integer> drained = new HashMap<>();
+        assertEquals(3, em.drainChanges(drained::put));
+        assertEquals(DirtyField.ALL, drained.get(e1).intValue());
+        drained.clear();
+        assertEquals(0, em.drainChanges(drained::put));
+        e1.setPosition(Point3D.valueOf(5, 0, 5));
+        e1.setHitPoints(4);
+        e2.setOwner(PlayerId.valueOf(1));
+        e3.setDirection(Point3D.valueOf(0, 0, 1));
+        em.removeEntity(e3);
+        assertEquals(1, em.drainChanges(drained::put));
+        assertEquals(DirtyField.POSITION | DirtyField.HIT_POINTS, drained.get(e1).intValue());
+        assertEquals(0, e1.getDirtyFields());
+        drained.clear();
+        em.setOwner(e2, PlayerId.valueOf(2));
+        assertEquals(1, em.drainChanges((e, f) -> {
+            assertTrue(DirtyField.contains(f, DirtyField.OWNER));
+            e.setDestination(Point3D.valueOf(1, 1, 1));
+        }));
+        assertEquals(1, em.drainChanges(drained::put));
+        assertEquals(DirtyField.DESTINATION, drained.get(e2).intValue());
+    }
+
+    @Test
+    public void targetChangeDrained() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 2);
+        em.addEntities(Arrays.asList(e1, e2));
+        em.drainChanges((e, f) -> {});
+        Map<EntityMock, Integer> drained = new HashMap<>();
+        e1.setTarget(e2);
+        e1.setTarget(e2);
+        assertEquals(1, em.drainChanges(drained::put));
+        assertEquals(DirtyField.TARGET, drained.get(e1).intValue());
+        assertEquals(e2, e1.getTarget().orElse(null));
+        e1.setTarget(e2);
+        assertEquals(0, em.drainChanges(drained::put));
+    }
+
+    @Test
+    public void changesNotTrackedUntilEnabled() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(e1);
+        e1.setPosition(Point3D.valueOf(1, 1, 1));
+        assertEquals(0, em.getChangedCount());
+        em.enableChangeTracking();
+        assertEquals(1, em.getChangedCount());
+        for (int i = 0; i < 5; i++) {
+            em.removeEntity(e1);
+            em.addEntity(e1);
+            e1.setHitPoints(i);
+        }
+        assertEquals(1, em.getChangedCount());
+        Map<EntityMock, Integer> drained = new HashMap<>();
+        assertEquals(1, em.drainChanges(drained::put));
+        assertEquals(DirtyField.ALL, drained.get(e1).intValue());
+        em.removeEntity(e1);
+        e1.setHitPoints(1);
+        assertEquals(0, em.getChangedCount());
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class EntityStoreTest {
+
+    @Test
+    public void addAndRemove() {
+        EntityStore<EntityMock> store = new EntityStore<>();
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 1);
+        assertTrue(store.add(e1));
+        assertTrue(store.add(e2));
+        assertFalse(store.add(e1));
+        assertEquals(2, store.size());
+        assertTrue(store.remove(e1));
+        assertFalse(store.remove(e1));
+        List<EntityMock> result = new ArrayList<>();
+        store.copyTo(result);
+        assertEquals(List.of(e2), result);
+    }
+
+    @Test
+    public void removeDuringIteration() {
+        EntityStore<EntityMock> store = new EntityStore<>();
+        List<EntityMock> all = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            EntityMock e = new EntityMock(i, EntityMock.TYPE_1, 1);
+            all.add(e);
+            store.add(e);
+        }
+        List<EntityMock> visited = new ArrayList<>();
+        store.forEach(e -> {
+            visited.add(e);
+            store.remove(e);
+            if (e.getId().value == 10) {
+                store.remove(all.get(40));
+            }
+        });
+        assertEquals(49, visited.size());
+        assertFalse(visited.contains(all.get(40)));
+        assertEquals(0, store.size());
+        store.add(all.get(3));
+        List<EntityMock> result = new ArrayList<>();
+        store.copyTo(result);
+        assertEquals(List.of(all.get(3)), result);
+    }
+
+    @Test
+    public void addDuringIterationVisitedNextTime() {
+        EntityStore<EntityMock> store = new EntityStore<>();
+        EntityMock e1 = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock e2 = new EntityMock(2, EntityMock.TYPE_1, 1);
+        store.add(e1);
+        List<EntityMock> visited = new ArrayList<>();
+        store.forEach(e -> {
+            visited.add(e);
+            store.add(e2);
+        });
+        assertEquals(List.of(e1), visited);
+        visited.clear();
+        store.forEach(visited::add);
+        assertEquals(List.of(e1, e2), visited);
+    }
+}
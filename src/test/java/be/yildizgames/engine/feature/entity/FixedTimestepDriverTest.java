@@ -0,0 +1,71 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.frame.EndFrameListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class FixedTimestepDriverTest {
+
+    @Test
+    public void stepsAccumulated() {
+        List<Long> times = new ArrayList<>();
+        FixedTimestepDriver driver = new FixedTimestepDriver(listener(times), 10, 5);
+        driver.frameEnded(4);
+        assertEquals(0, times.size());
+        driver.frameEnded(17);
+        assertEquals(List.of(10L, 10L), times);
+        assertEquals(1, driver.getRemainingTime());
+        assertEquals(2, driver.getSteps());
+    }
+
+    @Test
+    public void slowFrameStepsDropped() {
+        List<Long> times = new ArrayList<>();
+        FixedTimestepDriver driver = new FixedTimestepDriver(listener(times), 10, 3);
+        driver.frameEnded(55);
+        assertEquals(3, times.size());
+        assertEquals(2, driver.getDroppedSteps());
+        assertEquals(5, driver.getRemainingTime());
+    }
+
+    private static EndFrameListener listener(final List<Long> times) {
+        return new EndFrameListener() {
+            @Override
+            public boolean frameEnded(final long time) {
+                times.add(time);
+                return true;
+            }
+        };
+    }
+}
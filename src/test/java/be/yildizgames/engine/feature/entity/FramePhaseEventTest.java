@@ -0,0 +1,142 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.entity.action.ActionListener;
+import be.yildizgames.engine.feature.entity.action.ActionMock;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class FramePhaseEventTest {
+
+    @Test
+    public void framePhasesRecorded() throws IOException {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        em.addEntity(new EntityMock(1, EntityMock.TYPE_1, 1));
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        Path file = Files.createTempFile("entity", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("be.yildizgames.entity.FramePhase");
+            recording.start();
+            am.frameEnded(1);
+            recording.stop();
+            recording.dump(file);
+            List<String> phases = new ArrayList<>();
+            for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+                phases.add(e.getString("phase"));
+            }
+            assertTrue(phases.contains("tick"));
+            assertTrue(phases.contains("dispatch"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void slowCallbacksRecordedPerListener() throws IOException {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        e.startAction(new ActionMock());
+        ActionManager<EntityMock> am = new ActionManager<>(em);
+        am.addListener(new FirstListener());
+        am.addListener(new SecondListener());
+        Path file = Files.createTempFile("entity", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("be.yildizgames.entity.SlowCallback").withThreshold(Duration.ZERO);
+            recording.start();
+            am.frameEnded(1);
+            recording.stop();
+            recording.dump(file);
+            List<String> listeners = new ArrayList<>();
+            for (RecordedEvent r : RecordingFile.readAllEvents(file)) {
+                if (r.getEventType().getName().equals("be.yildizgames.entity.SlowCallback")) {
+                    listeners.add(r.getString("listener"));
+                }
+            }
+            assertEquals(List.of(FirstListener.class.getName(), SecondListener.class.getName()), listeners);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void singleStructuralChangesRecorded() throws IOException {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        Path file = Files.createTempFile("entity", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("be.yildizgames.entity.StructuralChange");
+            recording.start();
+            em.addEntity(e);
+            em.setOwner(e, PlayerId.valueOf(2));
+            em.removeEntity(e);
+            recording.stop();
+            recording.dump(file);
+            List<String> operations = new ArrayList<>();
+            for (RecordedEvent r : RecordingFile.readAllEvents(file)) {
+                if (r.getEventType().getName().equals("be.yildizgames.entity.StructuralChange")) {
+                    operations.add(r.getString("operation"));
+                }
+            }
+            assertEquals(List.of("add", "transfer", "remove"), operations);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static final class FirstListener implements ActionListener {
+
+        @Override
+        public void execute(EntityId id, PlayerId owner, Action a) {
+            //Nothing to do.
+        }
+    }
+
+    private static final class SecondListener implements ActionListener {
+
+        @Override
+        public void execute(EntityId id, PlayerId owner, Action a) {
+            //Nothing to do.
+        }
+    }
+}
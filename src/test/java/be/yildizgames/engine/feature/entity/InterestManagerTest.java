@@ -0,0 +1,164 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.gameobject.CollisionResult;
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class InterestManagerTest {
+
+    private static final PlayerId P1 = PlayerId.valueOf(1);
+
+    private static final PlayerId P2 = PlayerId.valueOf(2);
+
+    @Test
+    public void visibleOwnedAndPinned() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock own = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock enemy = new EntityMock(2, EntityMock.TYPE_1, 2);
+        EntityMock other = new EntityMock(3, EntityMock.TYPE_1, 2);
+        em.addEntities(Arrays.asList(own, enemy, other));
+        InterestManager<EntityMock> im = new InterestManager<>(em);
+        List<String> events = new ArrayList<>();
+        im.willNotify(new InterestListener<>() {
+            @Override
+            public void entered(PlayerId player, EntityMock entity) {
+                events.add("+" + player.value + ":" + entity.getId().value);
+            }
+
+            @Override
+            public void left(PlayerId player, EntityMock entity) {
+                events.add("-" + player.value + ":" + entity.getId().value);
+            }
+        });
+        im.addPlayer(P1);
+        LosManager<EntityMock> los = new LosManager<>(em);
+        los.willNotify(im);
+        assertEquals(Arrays.asList("+1:1"), events);
+        assertEquals(3, im.collect());
+        Map<EntityMock, Integer> updates = new HashMap<>();
+        assertEquals(1, im.forEachUpdate(P1, updates::put));
+        assertEquals(DirtyField.ALL, updates.get(own).intValue());
+
+        los.newCollision(new CollisionResult(own.getId(), enemy.getId()));
+        im.pin(P1, other);
+        assertTrue(im.isInterested(P1, enemy));
+        assertEquals(3, im.getInterestSize(P1));
+        enemy.setPosition(Point3D.valueOf(1, 2, 3));
+        im.collect();
+        updates.clear();
+        assertEquals(1, im.forEachUpdate(P1, updates::put));
+        assertEquals(DirtyField.POSITION, updates.get(enemy).intValue());
+
+        los.lostCollision(new CollisionResult(own.getId(), enemy.getId()));
+        im.unpin(P1, other);
+        assertFalse(im.isInterested(P1, enemy));
+        assertEquals(1, im.getInterestSize(P1));
+        enemy.setPosition(Point3D.valueOf(3, 2, 1));
+        im.collect();
+        assertEquals(0, im.forEachUpdate(P1, updates::put));
+        los.newCollision(new CollisionResult(own.getId(), enemy.getId()));
+        assertTrue(im.isInterested(P1, enemy));
+
+        em.setOwner(enemy, P1);
+        em.setOwner(own, P2);
+        im.collect();
+        assertTrue(im.isInterested(P1, enemy));
+        assertFalse(im.isInterested(P1, own));
+        assertEquals(Arrays.asList("+1:1", "+1:2", "+1:3", "-1:2", "-1:3", "+1:2", "-1:1"), events);
+    }
+
+    @Test
+    public void destroyedEntityLeaves() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock own = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock enemy = new EntityMock(2, EntityMock.TYPE_1, 2);
+        em.addEntities(Arrays.asList(own, enemy));
+        InterestManager<EntityMock> im = new InterestManager<>(em);
+        im.addPlayer(P1);
+        im.addPlayer(P2);
+        LosManager<EntityMock> los = new LosManager<>(em);
+        los.willNotify(im);
+        los.newCollision(new CollisionResult(own.getId(), enemy.getId()));
+        los.newCollision(new CollisionResult(enemy.getId(), own.getId()));
+        assertTrue(im.isInterested(P2, own));
+        im.entityDestroyed(own);
+        assertFalse(im.isInterested(P1, own));
+        assertFalse(im.isInterested(P2, own));
+        assertFalse(im.isInterested(P1, enemy));
+        assertEquals(1, im.getInterestSize(P2));
+    }
+
+    @Test
+    public void viewerOwnerChangeMovesSeenEntities() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        EntityMock viewer = new EntityMock(1, EntityMock.TYPE_1, 1);
+        EntityMock target = new EntityMock(2, EntityMock.TYPE_1, 3);
+        em.addEntities(Arrays.asList(viewer, target));
+        InterestManager<EntityMock> im = new InterestManager<>(em);
+        im.addPlayer(P1);
+        im.addPlayer(P2);
+        LosManager<EntityMock> los = new LosManager<>(em);
+        los.willNotify(im);
+        im.collect();
+        los.newCollision(new CollisionResult(viewer.getId(), target.getId()));
+        assertTrue(im.isInterested(P1, target));
+
+        em.setOwner(viewer, P2);
+        im.collect();
+        assertFalse(im.isInterested(P1, target));
+        assertTrue(im.isInterested(P2, target));
+        los.lostCollision(new CollisionResult(viewer.getId(), target.getId()));
+        assertFalse(im.isInterested(P2, target));
+
+        los.newCollision(new CollisionResult(viewer.getId(), target.getId()));
+        assertTrue(im.isInterested(P2, target));
+        em.setOwner(viewer, P1);
+        los.lostCollision(new CollisionResult(viewer.getId(), target.getId()));
+        assertFalse(im.isInterested(P1, target));
+        assertFalse(im.isInterested(P2, target));
+        im.collect();
+        assertFalse(im.isInterested(P1, target));
+        assertFalse(im.isInterested(P2, target));
+        los.newCollision(new CollisionResult(viewer.getId(), target.getId()));
+        assertTrue(im.isInterested(P1, target));
+        assertFalse(im.isInterested(P2, target));
+    }
+}
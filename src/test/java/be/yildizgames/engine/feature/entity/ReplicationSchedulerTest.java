@@ -0,0 +1,121 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class ReplicationSchedulerTest {
+
+    private static final ReplicationScheduler.UpdateSizer<Entity> SIZER = (e, f) -> 10;
+
+    @Test
+    public void closestFirstWithinBudget() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        List<EntityMock> enemies = this.world(em);
+        ReplicationScheduler<EntityMock> scheduler = new ReplicationScheduler<>(em, PlayerId.valueOf(1));
+        enemies.forEach(e -> scheduler.accept(e, DirtyField.POSITION));
+        List<EntityMock> sent = new ArrayList<>();
+        assertEquals(30, scheduler.schedule(16, 35, SIZER, (e, f) -> sent.add(e)));
+        assertEquals(enemies.subList(0, 3), sent);
+        assertEquals(7, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void noStarvation() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        List<EntityMock> enemies = this.world(em);
+        ReplicationScheduler<EntityMock> scheduler = new ReplicationScheduler<>(em, PlayerId.valueOf(1));
+        Set<EntityMock> sent = new HashSet<>();
+        for (int tick = 0; tick < 20; tick++) {
+            enemies.forEach(e -> scheduler.accept(e, DirtyField.POSITION));
+            scheduler.schedule(16, 20, SIZER, (e, f) -> sent.add(e));
+        }
+        assertEquals(enemies.size(), sent.size());
+    }
+
+    @Test
+    public void hitEntityFirstAndOversizedSent() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        List<EntityMock> enemies = this.world(em);
+        ReplicationScheduler<EntityMock> scheduler = new ReplicationScheduler<>(em, PlayerId.valueOf(1));
+        scheduler.accept(enemies.get(0), DirtyField.POSITION);
+        scheduler.accept(enemies.get(9), DirtyField.HIT_POINTS);
+        List<Integer> sent = new ArrayList<>();
+        scheduler.setCombatFactor(10, 1000);
+        assertEquals(10, scheduler.schedule(16, 5, SIZER, (e, f) -> sent.add(f)));
+        assertEquals(List.of(DirtyField.HIT_POINTS), sent);
+        scheduler.remove(enemies.get(0));
+        assertEquals(0, scheduler.getPendingCount());
+        assertEquals(0, scheduler.schedule(16, 100, SIZER, (e, f) -> sent.add(f)));
+    }
+
+    @Test
+    public void sentEntitiesDroppedOutOfCombat() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        List<EntityMock> enemies = this.world(em);
+        ReplicationScheduler<EntityMock> scheduler = new ReplicationScheduler<>(em, PlayerId.valueOf(1));
+        scheduler.setCombatFactor(2, 100);
+        enemies.forEach(e -> scheduler.accept(e, DirtyField.POSITION));
+        scheduler.accept(enemies.get(0), DirtyField.HIT_POINTS);
+        scheduler.schedule(16, 1000, SIZER, (e, f) -> {});
+        assertEquals(10, scheduler.getTrackedCount());
+        scheduler.schedule(16, 1000, SIZER, (e, f) -> {});
+        assertEquals(1, scheduler.getTrackedCount());
+        scheduler.schedule(100, 1000, SIZER, (e, f) -> {});
+        assertEquals(0, scheduler.getTrackedCount());
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    /**
+     * Create a player 1 unit at the origin, and 10 player 2 entities getting farther.
+     *
+     * @param em Manager to fill.
+     * @return The player 2 entities, from the closest.
+     */
+    private List<EntityMock> world(final EntityManager<EntityMock> em) {
+        EntityMock unit = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(unit);
+        List<EntityMock> enemies = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            EntityMock e = new EntityMock(10 + i, EntityMock.TYPE_1, 2);
+            e.setPosition(Point3D.valueOf(5 + i * 10, 0, 0));
+            em.addEntity(e);
+            enemies.add(e);
+        }
+        return enemies;
+    }
+}
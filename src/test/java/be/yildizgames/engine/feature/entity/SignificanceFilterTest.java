@@ -0,0 +1,136 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class SignificanceFilterTest {
+
+    @Test
+    public void thresholds() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        SignificanceFilter filter = new SignificanceFilter(em);
+        filter.setThreshold(EntityMock.TYPE_1, new SignificanceThreshold(1, 10, 500));
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        e.setDirection(Point3D.valueOf(1, 0, 0));
+        assertTrue(filter.publish(e, 0));
+        assertFalse(filter.publish(e, 100));
+        e.setPosition(Point3D.valueOf(0.5f, 0, 0));
+        assertFalse(filter.publish(e, 100));
+        e.setDirection(Point3D.valueOf(1, 0.1f, 0));
+        assertFalse(filter.publish(e, 100));
+        e.setDirection(Point3D.valueOf(1, 0.2f, 0));
+        assertTrue(filter.publish(e, 100));
+        e.setPosition(Point3D.valueOf(1.6f, 0, 0));
+        assertTrue(filter.publish(e, 200));
+        e.setPosition(Point3D.valueOf(1.7f, 0, 0));
+        assertFalse(filter.publish(e, 699));
+        assertTrue(filter.publish(e, 700));
+        assertEquals(4, filter.getFiltered());
+        EntityMock other = new EntityMock(2, EntityMock.TYPE_2, 1);
+        em.addEntity(other);
+        assertTrue(filter.publish(other, 0));
+        other.setPosition(Point3D.valueOf(0.01f, 0, 0));
+        assertTrue(filter.publish(other, 0));
+    }
+
+    @Test
+    public void drainKeepsInsignificantMoves() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        SignificanceFilter filter = new SignificanceFilter(em);
+        filter.setDefaultThreshold(new SignificanceThreshold(1, 5, 1000));
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        Map<EntityMock, Integer> drained = new HashMap<>();
+        assertEquals(1, filter.drainChanges(0, drained::put));
+        drained.clear();
+        e.setPosition(Point3D.valueOf(0.1f, 0, 0));
+        e.setHitPoints(5);
+        assertEquals(1, filter.drainChanges(10, drained::put));
+        assertEquals(DirtyField.HIT_POINTS, drained.get(e).intValue());
+        assertEquals(DirtyField.POSITION, e.getDirtyFields());
+        drained.clear();
+        assertEquals(0, filter.drainChanges(20, drained::put));
+        assertNull(drained.get(e));
+        assertEquals(1, filter.drainChanges(1000, drained::put));
+        assertEquals(DirtyField.POSITION, drained.get(e).intValue());
+        assertEquals(0, e.getDirtyFields());
+    }
+
+    @Test
+    public void unmanagedAlwaysSignificant() {
+        SignificanceFilter filter = new SignificanceFilter(new EntityManager<>(EntityMock.WORLD));
+        filter.setDefaultThreshold(new SignificanceThreshold(1, 5, 1000));
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        assertTrue(filter.publish(e, 0));
+        assertTrue(filter.publish(e, 0));
+    }
+
+    @Test
+    public void filtersKeepTheirOwnPublishedState() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        SignificanceFilter first = new SignificanceFilter(em);
+        SignificanceFilter second = new SignificanceFilter(em);
+        first.setDefaultThreshold(new SignificanceThreshold(1, 5, 1000));
+        second.setDefaultThreshold(new SignificanceThreshold(1, 5, 1000));
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        assertTrue(first.publish(e, 0));
+        e.setPosition(Point3D.valueOf(2, 0, 0));
+        assertTrue(second.publish(e, 0));
+        e.setPosition(Point3D.valueOf(2.5f, 0, 0));
+        assertTrue(first.publish(e, 10));
+        assertFalse(second.publish(e, 10));
+    }
+
+    @Test
+    public void drainDropsMovesBackToPublished() {
+        EntityManager<EntityMock> em = new EntityManager<>(EntityMock.WORLD);
+        SignificanceFilter filter = new SignificanceFilter(em);
+        filter.setDefaultThreshold(new SignificanceThreshold(1, 5, 1000));
+        EntityMock e = new EntityMock(1, EntityMock.TYPE_1, 1);
+        em.addEntity(e);
+        Map<EntityMock, Integer> drained = new HashMap<>();
+        assertEquals(1, filter.drainChanges(0, drained::put));
+        e.setPosition(Point3D.valueOf(0.1f, 0, 0));
+        e.setPosition(Point3D.ZERO);
+        assertEquals(0, filter.drainChanges(10, drained::put));
+        assertEquals(0, e.getDirtyFields());
+        assertEquals(0, em.getChangedCount());
+    }
+}
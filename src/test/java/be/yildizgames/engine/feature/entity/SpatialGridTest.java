@@ -0,0 +1,80 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import be.yildizgames.common.geometry.Point3D;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class SpatialGridTest {
+
+    @Test
+    public void emptyCellsRemoved() {
+        SpatialGrid<EntityMock> grid = new SpatialGrid<>(10);
+        List<EntityMock> entities = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            EntityMock e = new EntityMock(i + 1, EntityMock.TYPE_1, 1);
+            e.setPosition(Point3D.valueOf(0, i * 10, 0));
+            grid.add(i, e);
+            entities.add(e);
+        }
+        assertEquals(50, grid.cellCount());
+        List<EntityMock> found = new ArrayList<>();
+        for (int step = 1; step <= 200; step++) {
+            for (int i = 0; i < entities.size(); i++) {
+                Point3D p = Point3D.valueOf(step * 7, i * 10, 0);
+                entities.get(i).setPosition(p);
+                grid.move(i, p);
+            }
+            assertTrue(grid.cellCount() <= 50);
+            found.clear();
+            grid.findInBox(Point3D.valueOf(-1e6f, -1e6f, -1e6f), Point3D.valueOf(1e6f, 1e6f, 1e6f), found);
+            assertEquals(50, found.size());
+        }
+        for (int i = 0; i < entities.size(); i++) {
+            found.clear();
+            grid.findInRadius(entities.get(i).getPosition(), 1, found);
+            assertEquals(List.of(entities.get(i)), found);
+        }
+        for (int i = 0; i < entities.size(); i++) {
+            grid.remove(i);
+        }
+        assertEquals(0, grid.cellCount());
+        EntityMock e = entities.get(0);
+        e.setPosition(Point3D.valueOf(5, 5, 5));
+        grid.add(0, e);
+        found.clear();
+        grid.findNearest(Point3D.ZERO, 1, found);
+        assertEquals(List.of(e), found);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void elementsExpireAtTheirTime() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1);
+        Random random = new Random(12);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = 1 + random.nextInt(i % 3 == 0 ? 300000 : 500);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+        wheel.schedule(20_000_000L, 20_000_000L);
+        List<Long> expired = new ArrayList<>();
+        long time = 0;
+        while (wheel.size() > 0) {
+            time += 1 + random.nextInt(40);
+            final long now = time;
+            wheel.advance(now, d -> {
+                assertTrue(d <= now);
+                assertTrue(d > now - 41);
+                expired.add(d);
+            });
+        }
+        assertEquals(deadlines.size() + 1, expired.size());
+    }
+
+    @Test
+    public void pastDeadlineExpiresAtNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10);
+        wheel.advance(100, s -> {});
+        wheel.schedule("a", 50);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(105, expired::add);
+        assertEquals(0, expired.size());
+        wheel.advance(110, expired::add);
+        assertEquals(List.of("a"), expired);
+        assertEquals(0, wheel.size());
+    }
+}
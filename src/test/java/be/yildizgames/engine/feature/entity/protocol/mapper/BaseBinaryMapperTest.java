@@ -0,0 +1,69 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public abstract class BaseBinaryMapperTest<T> {
+
+    private final BinaryMapper<T> mapper;
+    private final T baseObject;
+
+    protected BaseBinaryMapperTest(BinaryMapper<T> mapper, T baseObject) {
+        this.mapper = mapper;
+        this.baseObject = baseObject;
+    }
+
+    @Test
+    public void happyFlow() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        mapper.to(baseObject, buffer);
+        mapper.to(baseObject, buffer);
+        buffer.flip();
+        Assertions.assertEquals(baseObject, mapper.from(buffer));
+        Assertions.assertEquals(baseObject, mapper.from(buffer));
+        Assertions.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void tooShort() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        mapper.to(baseObject, buffer);
+        buffer.flip();
+        buffer.limit(buffer.limit() - 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> mapper.from(buffer));
+    }
+
+    @Test
+    public void toNull() {
+        Assertions.assertThrows(NullPointerException.class, () -> mapper.to(null, ByteBuffer.allocate(256)));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.engine.feature.entity.protocol.EntityHitDto;
+import be.yildizgames.engine.feature.entity.protocol.EntityPositionDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class EncodedUpdateCacheTest {
+
+    private static final UpdateEncoding<EntityPositionDto> POSITION = UpdateEncoding.of(EntityPositionDtoBinaryMapper.getInstance());
+
+    private static final UpdateEncoding<EntityHitDto> HIT = UpdateEncoding.of(EntityHitDtoBinaryMapper.getInstance());
+
+    @Test
+    public void encodedOnce() {
+        EncodedUpdateCache cache = new EncodedUpdateCache(64);
+        EntityPositionDto dto = new EntityPositionDto(EntityId.valueOf(5L), Point3D.valueOf(1, 2, 3), Point3D.valueOf(0, 0, 1));
+        ByteBuffer first = cache.get(5L, 1, POSITION, dto);
+        ByteBuffer second = cache.get(5L, 1, POSITION, dto);
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(first, second);
+        Assertions.assertTrue(first.isReadOnly());
+        Assertions.assertThrows(ReadOnlyBufferException.class, () -> first.put(0, (byte) 1));
+        Assertions.assertEquals(dto, EntityPositionDtoBinaryMapper.getInstance().from(first));
+        Assertions.assertEquals(0, second.position());
+        Assertions.assertEquals(dto, EntityPositionDtoBinaryMapper.getInstance().from(second));
+        cache.get(5L, 3, POSITION, dto);
+        cache.get(5L, 1, HIT, 1, new EntityHitDto(EntityId.valueOf(5L), 3));
+        Assertions.assertEquals(3, cache.size());
+        cache.clear();
+        Assertions.assertEquals(0, cache.size());
+        cache.get(5L, 1, POSITION, dto);
+        Assertions.assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void growKeepsViews() {
+        EncodedUpdateCache cache = new EncodedUpdateCache(16);
+        ByteBuffer[] views = new ByteBuffer[200];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = cache.get(i, 1, HIT, 1, new EntityHitDto(EntityId.valueOf((long) i), i));
+        }
+        Assertions.assertEquals(200, cache.size());
+        for (int i = 0; i < views.length; i++) {
+            Assertions.assertEquals(views[i], cache.get(i, 1, HIT, 1, new EntityHitDto(EntityId.valueOf((long) i), i)));
+            Assertions.assertEquals(new EntityHitDto(EntityId.valueOf((long) i), i), EntityHitDtoBinaryMapper.getInstance().from(views[i]));
+        }
+        Assertions.assertEquals(200, cache.getMisses());
+        Assertions.assertEquals(200, cache.getHits());
+    }
+
+    @Test
+    public void eventsOfSameEntityKeptApart() {
+        EncodedUpdateCache cache = new EncodedUpdateCache(64);
+        EntityHitDto first = new EntityHitDto(EntityId.valueOf(5L), 3);
+        EntityHitDto second = new EntityHitDto(EntityId.valueOf(5L), 7);
+        Assertions.assertEquals(first, EntityHitDtoBinaryMapper.getInstance().from(cache.get(5L, 1, HIT, 1, first)));
+        Assertions.assertEquals(second, EntityHitDtoBinaryMapper.getInstance().from(cache.get(5L, 1, HIT, 2, second)));
+        Assertions.assertEquals(first, EntityHitDtoBinaryMapper.getInstance().from(cache.get(5L, 1, HIT, 1, first)));
+        Assertions.assertEquals(2, cache.getMisses());
+        Assertions.assertEquals(1, cache.getHits());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.engine.feature.entity.protocol.EntityPositionBatchDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class EntityPositionBatchDtoBinaryMapperTest extends BaseBinaryMapperTest<EntityPositionBatchDto> {
+
+    public EntityPositionBatchDtoBinaryMapperTest() {
+        super(EntityPositionBatchDtoBinaryMapper.getInstance(), batch());
+    }
+
+    private static EntityPositionBatchDto batch() {
+        EntityPositionBatchDto batch = new EntityPositionBatchDto(12);
+        batch.add(5, Point3D.valueOf(1, 2, 3), Point3D.valueOf(0, 0, 1));
+        batch.add(6, Point3D.valueOf(4, 5, 6), Point3D.valueOf(0, 1, 0));
+        batch.add(3, Point3D.valueOf(7, 8, 9), Point3D.valueOf(1, 0, 0));
+        return batch;
+    }
+
+    @Test
+    public void streamWithWriter() {
+        ByteBuffer buffer = ByteBuffer.allocate(PositionFrameWriter.HEADER_BYTES + 40 * PositionFrameWriter.ENTRY_BYTES);
+        PositionFrameWriter writer = new PositionFrameWriter().begin(buffer, 3);
+        for (int i = 0; i < 40; i++) {
+            writer.add(100 + i, i, 0, -i, 1, 0, 0);
+        }
+        Assertions.assertEquals(40, writer.end());
+        Assertions.assertEquals(1 + 4 + 40 * 25 + 1, buffer.position());
+        buffer.flip();
+        EntityPositionBatchDto read = EntityPositionBatchDtoBinaryMapper.getInstance().from(buffer, batch());
+        Assertions.assertEquals(3, read.getFrame());
+        Assertions.assertEquals(40, read.size());
+        Assertions.assertEquals(139, read.getIds()[39]);
+        Assertions.assertEquals(-39f, read.getPositions()[39 * 3 + 2]);
+    }
+
+    @Test
+    public void truncatedFrame() {
+        ByteBuffer buffer = ByteBuffer.allocate(PositionFrameWriter.HEADER_BYTES + 2 * PositionFrameWriter.ENTRY_BYTES);
+        PositionFrameWriter writer = new PositionFrameWriter().begin(buffer, 3);
+        writer.add(100, 1, 2, 3, 1, 0, 0);
+        writer.add(101, 1, 2, 3, 1, 0, 0);
+        writer.end();
+        buffer.flip();
+        buffer.limit(buffer.limit() - 5);
+        Assertions.assertThrows(EntityMappingException.class, () -> PositionFrameWriter.read(buffer, (id, x, y, z, dx, dy, dz) -> {}));
+    }
+}
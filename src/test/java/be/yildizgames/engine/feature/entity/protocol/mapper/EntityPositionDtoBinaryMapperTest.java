@@ -0,0 +1,64 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.EntityId;
+import be.yildizgames.engine.feature.entity.protocol.EntityPositionDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class EntityPositionDtoBinaryMapperTest extends BaseBinaryMapperTest<EntityPositionDto> {
+
+    public EntityPositionDtoBinaryMapperTest() {
+        super(EntityPositionDtoBinaryMapper.getInstance(), new EntityPositionDto(
+                EntityId.valueOf(7),
+                Point3D.valueOf(4, 5, 6),
+                Point3D.valueOf(1, 2, 3)
+        ));
+    }
+
+    @Test
+    public void readIntoConsumer() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        EntityPositionDtoBinaryMapper.getInstance().to(EntityId.valueOf(7), Point3D.valueOf(4, 5, 6), Point3D.valueOf(1, 2, 3), buffer);
+        Assertions.assertEquals(1 + EntityPositionDtoBinaryMapper.VECTORS_BYTES, buffer.position());
+        buffer.flip();
+        float[] values = new float[7];
+        EntityPositionDtoBinaryMapper.getInstance().from(buffer, (id, x, y, z, dx, dy, dz) -> {
+            values[0] = id;
+            values[1] = x;
+            values[6] = dz;
+        });
+        Assertions.assertEquals(7f, values[0]);
+        Assertions.assertEquals(4f, values[1]);
+        Assertions.assertEquals(3f, values[6]);
+    }
+}
@@ -27,6 +27,8 @@ package be.yildizgames.engine.feature.entity.protocol.mapper;
 import be.yildizgames.common.geometry.Point3D;
 import be.yildizgames.common.model.EntityId;
 import be.yildizgames.engine.feature.entity.protocol.EntityPositionDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 
 /**
  * @author Grégory Van den Borre
@@ -40,4 +42,19 @@ public class EntityPositionDtoMapperTest extends BaseMapperTest<EntityPositionDt
                 Point3D.valueOf(1,2,3)
         ));
     }
+
+    @Test
+    public void batchInBuilder() {
+        EntityPositionDto a = new EntityPositionDto(EntityId.valueOf(7), Point3D.valueOf(4.25f, -5, 6), Point3D.valueOf(1, 0, 0));
+        EntityPositionDto b = new EntityPositionDto(EntityId.valueOf(8), Point3D.valueOf(0.001f, 5, 1e9f), Point3D.valueOf(0, 1, 0));
+        StringBuilder builder = new StringBuilder();
+        EntityPositionDtoMapper.getInstance().to(a, builder);
+        builder.append(',');
+        EntityPositionDtoMapper.getInstance().to(b, builder);
+        TextParser parser = new TextParser(builder);
+        Assertions.assertEquals(a, EntityPositionDtoMapper.getInstance().from(parser));
+        parser.expect(",");
+        Assertions.assertEquals(b, EntityPositionDtoMapper.getInstance().from(parser));
+        Assertions.assertEquals(EntityPositionDtoMapper.getInstance().to(a), builder.substring(0, builder.indexOf(",")));
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class OctahedralDirectionTest {
+
+    @Test
+    public void angleErrorBounded() {
+        Random random = new Random(42);
+        float[] decoded = new float[3];
+        double maxAngle = 0;
+        for (int i = 0; i < 100000; i++) {
+            double x = random.nextGaussian();
+            double y = random.nextGaussian();
+            double z = random.nextGaussian();
+            double l = Math.sqrt(x * x + y * y + z * z);
+            OctahedralDirection.decode(OctahedralDirection.encode((float) (x / l), (float) (y / l), (float) (z / l), 12), 12, decoded, 0);
+            double dot = (x * decoded[0] + y * decoded[1] + z * decoded[2]) / l;
+            maxAngle = Math.max(maxAngle, Math.toDegrees(Math.acos(Math.min(1, dot))));
+        }
+        Assertions.assertTrue(maxAngle < 0.1, String.valueOf(maxAngle));
+    }
+
+    @Test
+    public void axes() {
+        float[] decoded = new float[3];
+        OctahedralDirection.decode(OctahedralDirection.encode(0, 0, -1, 8), 8, decoded, 0);
+        Assertions.assertEquals(-1f, decoded[2], 0.001f);
+        OctahedralDirection.decode(OctahedralDirection.encode(0, 0, 0, 8), 8, decoded, 0);
+        Assertions.assertEquals(1f, decoded[2], 0.001f);
+        Assertions.assertEquals(3, OctahedralDirection.bytes(12));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class QuantizedPositionEncoderTest {
+
+    private static final int ENTITIES = 100;
+
+    @Test
+    public void deltaFramesWithinErrorAndSmall() {
+        QuantizedPositionFormat format = new QuantizedPositionFormat(0.01f, 12);
+        QuantizedPositionEncoder encoder = new QuantizedPositionEncoder(format);
+        QuantizedPositionDecoder decoder = new QuantizedPositionDecoder(format);
+        Random random = new Random(42);
+        float[] positions = new float[ENTITIES * 3];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * 1000;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        float[] maxError = new float[1];
+        int lastFrameSize = 0;
+        for (int frame = 1; frame <= 40; frame++) {
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] += random.nextFloat() - 0.5f;
+            }
+            buffer.clear();
+            encoder.begin(buffer, frame);
+            for (int e = 0; e < ENTITIES; e++) {
+                encoder.add(e + 1, positions[e * 3], positions[e * 3 + 1], positions[e * 3 + 2], 1, 0, 0);
+            }
+            encoder.end();
+            lastFrameSize = buffer.position();
+            buffer.flip();
+            if (frame % 3 == 0) {
+                continue;
+            }
+            long read = decoder.read(buffer, (id, x, y, z, dx, dy, dz) -> {
+                int p = (int) (id - 1) * 3;
+                maxError[0] = Math.max(maxError[0], Math.max(Math.abs(x - positions[p]), Math.max(Math.abs(y - positions[p + 1]), Math.abs(z - positions[p + 2]))));
+                Assertions.assertEquals(1f, dx, 0.001f);
+            });
+            encoder.acknowledge(read);
+        }
+        Assertions.assertTrue(maxError[0] <= format.getPositionErrorBound() + 0.0001f, String.valueOf(maxError[0]));
+        Assertions.assertTrue(lastFrameSize < ENTITIES * 12, String.valueOf(lastFrameSize));
+    }
+
+    @Test
+    public void unacknowledgedSentInFull() {
+        QuantizedPositionFormat format = new QuantizedPositionFormat(0.1f, 8);
+        QuantizedPositionEncoder encoder = new QuantizedPositionEncoder(format);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        for (int frame = 1; frame <= 20; frame++) {
+            encoder.begin(buffer, frame).add(1, 5, 5, 5, 0, 1, 0);
+            encoder.end();
+        }
+        Assertions.assertEquals(20, encoder.getPendingCount());
+        encoder.acknowledge(20);
+        Assertions.assertEquals(0, encoder.getPendingCount());
+        buffer.flip();
+        QuantizedPositionDecoder decoder = new QuantizedPositionDecoder(format);
+        for (int frame = 1; frame <= 20; frame++) {
+            decoder.read(buffer, (id, x, y, z, dx, dy, dz) -> Assertions.assertEquals(5f, x, 0.05f));
+        }
+    }
+
+    @Test
+    public void lostAcknowledgementsKeepValidBaselines() {
+        QuantizedPositionFormat format = new QuantizedPositionFormat(0.1f, 8);
+        QuantizedPositionEncoder encoder = new QuantizedPositionEncoder(format);
+        QuantizedPositionDecoder decoder = new QuantizedPositionDecoder(format);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        float[] received = new float[1];
+        for (int frame = 1; frame <= 40; frame++) {
+            buffer.clear();
+            encoder.begin(buffer, frame);
+            if (frame <= 15 || frame > 20) {
+                encoder.add(1, frame, 0, 0, 1, 0, 0);
+            }
+            encoder.add(2, 0, frame, 0, 1, 0, 0);
+            encoder.end();
+            buffer.flip();
+            long read = decoder.read(buffer, (id, x, y, z, dx, dy, dz) -> {
+                if (id == 1) {
+                    received[0] = x;
+                }
+            });
+            if (read == 1 || read == 20) {
+                encoder.acknowledge(read);
+            }
+        }
+        Assertions.assertEquals(40f, received[0], format.getPositionErrorBound());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class TextParserTest {
+
+    @Test
+    public void floatsSameAsJdk() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        TextParser parser = new TextParser("");
+        for (int i = 0; i < 100000; i++) {
+            float f = i % 2 == 0 ? (random.nextFloat() - 0.5f) * 20000 : Float.intBitsToFloat(random.nextInt());
+            builder.setLength(0);
+            builder.append(f);
+            parser.reset(builder, 0, builder.length());
+            Assertions.assertEquals(Float.floatToIntBits(Float.parseFloat(builder.toString())), Float.floatToIntBits(parser.nextFloat()));
+        }
+    }
+
+    @Test
+    public void decimalsSameAsJdk() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        TextParser parser = new TextParser("");
+        for (int i = 0; i < 100000; i++) {
+            builder.setLength(0);
+            int digits = 1 + random.nextInt(9);
+            int dot = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == dot) {
+                    builder.append('.');
+                }
+                builder.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                builder.append('E').append(random.nextInt(25) - 12);
+            }
+            parser.reset(builder, 0, builder.length());
+            Assertions.assertEquals(Float.floatToIntBits(Float.parseFloat(builder.toString())), Float.floatToIntBits(parser.nextFloat()));
+        }
+    }
+
+    @Test
+    public void valuesAndSeparators() {
+        TextParser parser = new TextParser("xx-12@@3.5@1E3,9223372036854775807yy", 2, 34);
+        Assertions.assertEquals(-12, parser.nextInt());
+        parser.expect("@@");
+        Assertions.assertEquals(3.5f, parser.nextFloat());
+        parser.expect("@");
+        Assertions.assertEquals(1000f, parser.nextFloat());
+        parser.expect(",");
+        Assertions.assertEquals(Long.MAX_VALUE, parser.nextLong());
+        Assertions.assertFalse(parser.hasRemaining());
+    }
+
+    @Test
+    public void invalid() {
+        Assertions.assertThrows(EntityMappingException.class, () -> new TextParser("12a").nextLong());
+        Assertions.assertThrows(EntityMappingException.class, () -> new TextParser("").nextInt());
+        Assertions.assertThrows(EntityMappingException.class, () -> new TextParser("3000000000").nextInt());
+        Assertions.assertThrows(EntityMappingException.class, () -> new TextParser("9223372036854775808").nextLong());
+        Assertions.assertThrows(EntityMappingException.class, () -> new TextParser("1.5@").expect("@@"));
+        Assertions.assertThrows(EntityMappingException.class, () -> new TextParser("abc").nextFloat());
+    }
+}
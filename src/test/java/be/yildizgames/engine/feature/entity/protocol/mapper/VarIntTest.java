@@ -0,0 +1,70 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.entity.protocol.mapper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class VarIntTest {
+
+    @Test
+    public void signedRoundTrip() {
+        long[] values = {0, 1, -1, 63, -64, 64, 300, -300, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * VarInt.MAX_BYTES);
+        for (long v : values) {
+            VarInt.writeSigned(buffer, v);
+        }
+        buffer.flip();
+        for (long v : values) {
+            Assertions.assertEquals(v, VarInt.readSigned(buffer));
+        }
+    }
+
+    @Test
+    public void size() {
+        ByteBuffer buffer = ByteBuffer.allocate(VarInt.MAX_BYTES);
+        long[] values = {0, 127, 128, 16383, 16384, -1L};
+        for (long v : values) {
+            buffer.clear();
+            VarInt.writeUnsigned(buffer, v);
+            Assertions.assertEquals(buffer.position(), VarInt.size(v));
+        }
+    }
+
+    @Test
+    public void tooLong() {
+        ByteBuffer buffer = ByteBuffer.allocate(11);
+        for (int i = 0; i < 11; i++) {
+            buffer.put((byte) 0x80);
+        }
+        buffer.flip();
+        Assertions.assertThrows(EntityMappingException.class, () -> VarInt.readUnsigned(buffer));
+    }
+}